@@ -0,0 +1,64 @@
+/**
+ * The per-frame camera work of Starter.display: rebuilding the rotation and position matrices and
+ * multiplying them into the view matrix.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CameraBenchmark {
+
+    private Camera camera;
+
+    @Setup
+    public void setUp() {
+        camera = new Camera(0.0f, 2.0f, 15.0f);
+        camera.lookLeft();
+        camera.moveForward();
+    }
+
+    @Benchmark
+    public void updateCameraRotation() {
+        camera.updateCameraRotation();
+    }
+
+    @Benchmark
+    public void updateCameraPosition() {
+        camera.updateCameraPosition();
+    }
+
+    @Benchmark
+    public Matrix4f vMatrix() {
+        return camera.vMatrix();
+    }
+
+    //the three calls in the order display makes them
+    @Benchmark
+    public Matrix4f frame() {
+        camera.updateCameraRotation();
+        camera.updateCameraPosition();
+        return camera.vMatrix();
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Culling thousands of mushrooms and shuttles scattered like -Da2.scatter against the view of Starter's initial
+ * camera, one frame's update and visibility tests per operation. Setup prints how many objects and triangles
+ * culling removes, so the time per frame can be weighed against the draws it saves.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrustumCullerBenchmark {
+
+    @Param({"5000"})
+    public int objects;
+
+    private final FrustumCuller culler = new FrustumCuller();
+    private ImportedModel[] models;
+    private Matrix4f[] worlds;
+    private Matrix4f projection;
+    private Matrix4f view;
+
+    @Setup
+    public void setUp() {
+        models = new ImportedModel[]{new ImportedModel("mushroom.obj"), new ImportedModel("shuttle.obj")};
+        Random random = new Random(42);
+        worlds = new Matrix4f[objects];
+        for (int i = 0; i < objects; i++) {
+            worlds[i] = new Matrix4f().translation(random.nextFloat() * 400.0f - 200.0f,
+                    random.nextFloat() * 40.0f - 10.0f, random.nextFloat() * 400.0f - 200.0f)
+                    .rotateY(random.nextFloat() * 6.2832f);
+        }
+        projection = new Matrix4f().setPerspective((float) Math.toRadians(60.0f), 1.0f, 0.1f, 1000.0f);
+        view = new Camera(0.0f, 2.0f, 15.0f).vMatrix();
+
+        long triangles = 0, visibleTriangles = 0;
+        culler.update(projection, view);
+        for (int i = 0; i < objects; i++) {
+            ImportedModel model = models[i % 2];
+            triangles += model.getNumIndices() / 3;
+            if (culler.isVisible(model.getBounds(), worlds[i])) {
+                visibleTriangles += model.getNumIndices() / 3;
+            }
+        }
+        System.out.printf("%n%d objects: %d culled (%.1f%%), triangles submitted: %d -> %d%n", objects,
+                culler.getCulled(), 100.0 * culler.getCulled() / objects, triangles, visibleTriangles);
+    }
+
+    @Benchmark
+    public int cull() {
+        culler.resetCounters();
+        culler.update(projection, view);
+        for (int i = 0; i < objects; i++) {
+            culler.isVisible(models[i % 2].getBounds(), worlds[i]);
+        }
+        return culler.getDrawn();
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Loading an OBJ model through ImportedModel, either parsed from text or read from the MeshCache.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImportedModelBenchmark {
+
+    @Param({"shuttle.obj", "mushroom.obj"})
+    public String model;
+
+    //false parses the OBJ text every time, true reads the cache file written by the first load
+    @Param({"false", "true"})
+    public String meshCache;
+
+    @Setup
+    public void setUp() {
+        System.setProperty("a2.meshCache", meshCache);
+        new ImportedModel(model);
+    }
+
+    @Benchmark
+    public ImportedModel load() {
+        return new ImportedModel(model);
+    }
+}
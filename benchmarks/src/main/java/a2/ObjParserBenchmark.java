@@ -0,0 +1,120 @@
+/**
+ * How ObjParser.parseParallel scales with its worker count on a synthetic OBJ file, against the sequential
+ * parse as 0 threads. The file is a textured, lit grid generated in memory, so no large model has to be
+ * checked in; setup checks every parallel parse against the sequential one.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjParserBenchmark {
+
+    @Param({"1000000"})
+    public int faces;
+
+    //0 parses sequentially without a pool
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    private byte[] obj;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        obj = generateGrid(faces);
+        if (threads > 0) {
+            pool = new ForkJoinPool(threads);
+            ObjParser reference = parse(null);
+            ObjParser parallel = parse(pool);
+            if (!Arrays.equals(reference.getCorners().toArray(), parallel.getCorners().toArray())
+                    || !Arrays.equals(reference.getPositions().toArray(), parallel.getPositions().toArray())) {
+                throw new IllegalStateException("parallel parse differs from the sequential parse");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public ObjParser parse() {
+        return parse(pool);
+    }
+
+    private ObjParser parse(ForkJoinPool pool) {
+        if (pool == null) {
+            ObjParser parser = new ObjParser();
+            parser.parse(obj);
+            return parser;
+        }
+        return ObjParser.parseParallel(obj, pool);
+    }
+
+    /**
+     * builds an OBJ grid with at least the given number of triangles, with one vt and vn per vertex
+     */
+    private static byte[] generateGrid(int faces) {
+        int cells = (int) Math.ceil(Math.sqrt(faces / 2.0));
+        int side = cells + 1;
+        StringBuilder text = new StringBuilder();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(faces * 64);
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                float u = (float) x / cells, v = (float) y / cells;
+                text.append(String.format(Locale.ROOT, "v %f %f %f\nvt %f %f\nvn 0.000000 0.000000 1.000000\n",
+                        u * 10.0f - 5.0f, v * 10.0f - 5.0f, (float) Math.sin(u * 20.0f) * 0.1f, u, v));
+            }
+            flush(text, out);
+        }
+        for (int y = 0; y < cells; y++) {
+            for (int x = 0; x < cells; x++) {
+                int a = y * side + x + 1, b = a + 1, c = a + side, d = c + 1;
+                text.append("f ").append(a).append('/').append(a).append('/').append(a)
+                        .append(' ').append(b).append('/').append(b).append('/').append(b)
+                        .append(' ').append(d).append('/').append(d).append('/').append(d).append('\n');
+                text.append("f ").append(a).append('/').append(a).append('/').append(a)
+                        .append(' ').append(d).append('/').append(d).append('/').append(d)
+                        .append(' ').append(c).append('/').append(c).append('/').append(c).append('\n');
+            }
+            flush(text, out);
+        }
+        return out.toByteArray();
+    }
+
+    private static void flush(StringBuilder text, ByteArrayOutputStream out) {
+        out.writeBytes(text.toString().getBytes(StandardCharsets.US_ASCII));
+        text.setLength(0);
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Converting the bundled textures to the RGBA bytes OpenGL takes with Utils.getRGBAPixelData, flipped
+ * vertically as loadTextureAWT does.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PixelDataBenchmark {
+
+    @Param({"brick1.jpg", "gordonPic.jpg", "spstob_1.jpg", "cubehead.png", "mushroom_color.png"})
+    public String texture;
+
+    private BufferedImage image;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream input = Utils.class.getResourceAsStream(texture)) {
+            if (input == null) {
+                throw new IOException("texture not on the classpath: " + texture);
+            }
+            image = ImageIO.read(input);
+        }
+    }
+
+    @Benchmark
+    public byte[] getRGBAPixelData() {
+        return Utils.getRGBAPixelData(image, true);
+    }
+}
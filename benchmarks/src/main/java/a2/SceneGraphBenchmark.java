@@ -0,0 +1,90 @@
+/**
+ * One frame of robot animation: moving the rotation and bow nodes of every robot the way Starter.display does
+ * and updating the world matrices. The robots replace the matrix stack walk display used to make, see
+ * SceneNode; the sequential update is measured, as on a single core.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneGraphBenchmark {
+
+    //the animated robot alone, and with a crowd
+    @Param({"1", "100"})
+    public int robots;
+
+    private SceneNode scene;
+    private final List<SceneNode> rotations = new ArrayList<>();
+    private final List<SceneNode> bows = new ArrayList<>();
+    private float time;
+
+    @Setup
+    public void setUp() {
+        scene = new SceneNode();
+        for (int i = 0; i < robots; i++) {
+            SceneNode position = scene.addChild(new SceneNode());
+            position.editLocal().translation(i % 10 * 6.0f, 0.0f, i / 10 * -6.0f);
+            buildRobot(position);
+        }
+        scene.updateWorld(null);
+    }
+
+    @Benchmark
+    public int animate() {
+        time += 0.016f;
+        for (int i = 0; i < rotations.size(); i++) {
+            rotations.get(i).editLocal().rotationY((float) Math.toRadians(180) + time + i * 0.37f);
+        }
+        float bowAngle = (float) Math.abs(Math.sin(time)) * 0.5f;
+        for (SceneNode bow : bows) {
+            bow.editLocal().translation(0.0f, -0.5f, 0.0f).rotateX(bowAngle).translate(0.0f, 0.5f, 0.0f);
+        }
+        return scene.updateWorld(null);
+    }
+
+    /**
+     * the node layout of Starter.buildRobot
+     */
+    private void buildRobot(SceneNode position) {
+        SceneNode rotation = position.addChild(new SceneNode());
+        rotations.add(rotation);
+        SceneNode bow = rotation.addChild(new SceneNode());
+        bows.add(bow);
+        bow.addChild(new SceneNode());
+        bow.addChild(new SceneNode()).editLocal()
+                .translation(-1.3f, 0.2f, 0.0f)
+                .translate(0.0f, 1.1f, 0.0f).rotateX((float) -Math.toRadians(140)).translate(0.0f, -1.1f, 0.0f)
+                .scale(0.25f, 0.9f, 0.25f);
+        bow.addChild(new SceneNode()).editLocal()
+                .translation(1.3f, 0.2f, 0.0f)
+                .translate(0.0f, 1.1f, 0.0f).rotateX((float) -Math.toRadians(140)).translate(0.0f, -1.1f, 0.0f)
+                .scale(0.25f, 0.9f, 0.25f);
+        bow.addChild(new SceneNode()).editLocal().translation(0.0f, 2.55f, 0.0f);
+        rotation.addChild(new SceneNode()).editLocal().translation(-0.5f, -2.0f, 0.0f).scale(0.25f, 0.9f, 0.25f);
+        rotation.addChild(new SceneNode()).editLocal().translation(0.5f, -2.0f, 0.0f).scale(0.25f, 0.9f, 0.25f);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * SceneNode.updateWorld on a large synthetic scene of robot-shaped subtrees when nothing, one percent or all of
+ * the robots moved, sequentially and on the common fork/join pool. Setup checks the parallel update against the
+ * sequential one first.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneUpdateBenchmark {
+
+    @Param({"10000"})
+    public int robots;
+
+    //every n-th robot turns before each update, 0 moves none, 100 one percent and 1 all of them
+    @Param({"0", "100", "1"})
+    public int moveEvery;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private SceneNode scene;
+    private final List<SceneNode> rotations = new ArrayList<>();
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        scene = buildScene(robots, rotations);
+        List<SceneNode> sequentialRotations = new ArrayList<>();
+        SceneNode sequential = buildScene(robots, sequentialRotations);
+        move(rotations, 1, 0.5f);
+        move(sequentialRotations, 1, 0.5f);
+        scene.updateWorld(ForkJoinPool.commonPool());
+        sequential.updateWorld(null);
+        if (!sameWorlds(sequential, scene)) {
+            throw new IllegalStateException("parallel update differs from the sequential update");
+        }
+        pool = parallel ? ForkJoinPool.commonPool() : null;
+    }
+
+    @Benchmark
+    public int update() {
+        move(rotations, moveEvery, 0.1f);
+        return scene.updateWorld(pool);
+    }
+
+    /**
+     * a grid of robots with the node layout of Starter.buildRobot
+     */
+    private static SceneNode buildScene(int robots, List<SceneNode> rotations) {
+        SceneNode root = new SceneNode();
+        for (int i = 0; i < robots; i++) {
+            SceneNode position = root.addChild(new SceneNode());
+            position.editLocal().translation(i % 100 * 6.0f, 0.0f, i / 100 * -6.0f);
+            SceneNode rotation = position.addChild(new SceneNode());
+            rotations.add(rotation);
+            SceneNode bow = rotation.addChild(new SceneNode());
+            for (int part = 0; part < 4; part++) {
+                bow.addChild(new SceneNode()).editLocal().translation(part - 1.5f, 0.2f, 0.0f).scale(0.25f, 0.9f, 0.25f);
+            }
+            for (int leg = 0; leg < 2; leg++) {
+                rotation.addChild(new SceneNode()).editLocal().translation(leg - 0.5f, -2.0f, 0.0f);
+            }
+        }
+        return root;
+    }
+
+    /**
+     * turns every n-th robot a little further, n of 0 moves nothing
+     */
+    private static void move(List<SceneNode> rotations, int every, float angle) {
+        if (every == 0) {
+            return;
+        }
+        for (int i = 0; i < rotations.size(); i += every) {
+            rotations.get(i).editLocal().rotateY(angle);
+        }
+    }
+
+    private static boolean sameWorlds(SceneNode a, SceneNode b) {
+        if (!a.getWorld().equals(b.getWorld()) || a.getChildren().size() != b.getChildren().size()) {
+            return false;
+        }
+        for (int i = 0; i < a.getChildren().size(); i++) {
+            if (!sameWorlds(a.getChildren().get(i), b.getChildren().get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Loads models and textures on a worker pool while the GL thread carries on with other setup. Textures come
+ * from the TextureCache, decoded only when their cache file is missing or stale. Only the final
+ * glBufferData/glTexSubImage2D uploads are left for the GL thread. Every asset's load time is
+ * logged, along with the total time from construction to finish().
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GLProfile;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class AssetLoader {
+
+    private final ForkJoinPool pool;
+    private final long startTime;
+
+    /**
+     * constructor, starts a pool with one worker per available processor
+     */
+    public AssetLoader() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * starts loading an OBJ model on the worker pool
+     * @param filename model resource name, e.g. shuttle.obj
+     * @return the model once it is loaded
+     */
+    public Future<ImportedModel> loadModel(String filename) {
+        return submit(filename, () -> new ImportedModel(filename));
+    }
+
+    /**
+     * starts loading a texture on the worker pool, resampled to a texture array's layer size
+     * @param glp profile of the context the texture will be uploaded to
+     * @param textureFileName image file path
+     * @param width layer width
+     * @param height layer height
+     * @return the texture once it is ready for TextureArrayBuilder.add
+     */
+    public Future<TextureCache.Entry> loadTextureLayer(GLProfile glp, String textureFileName, int width, int height) {
+        return submit(textureFileName, () -> TextureCache.load(glp, textureFileName, width, height));
+    }
+
+    /**
+     * waits for an asset, rethrowing anything its loader threw
+     * @param asset asset being loaded
+     * @return the loaded asset
+     */
+    public <T> T await(Future<T> asset) {
+        try {
+            return asset.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * stops the worker pool and logs the total loading time
+     */
+    public void finish() {
+        pool.shutdown();
+        System.out.printf("assets loaded in %.1f ms%n", (System.nanoTime() - startTime) / 1e6);
+    }
+
+    private <T> Future<T> submit(String name, Callable<T> loader) {
+        return pool.submit(() -> {
+            long loadStart = System.nanoTime();
+            T asset = loader.call();
+            System.out.printf("loaded %s in %.1f ms on %s%n", name, (System.nanoTime() - loadStart) / 1e6,
+                    Thread.currentThread().getName());
+            return asset;
+        });
+    }
+}
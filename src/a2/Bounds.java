@@ -0,0 +1,70 @@
+/**
+ * Model space bounding volumes of a mesh: the axis aligned bounding box and a bounding sphere around the box's
+ * center. Both are computed once when the geometry is loaded; FrustumCuller transforms them into world space.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import java.nio.ByteBuffer;
+
+public class Bounds {
+
+    private final float[] min = new float[3];
+    private final float[] max = new float[3];
+    private final float[] center = new float[3];
+    private final float radius;
+
+    /**
+     * @param positions 3 floats per vertex
+     * @return the bounds of the positions, empty bounds at the origin if there are none
+     */
+    public static Bounds fromPositions(float[] positions) {
+        return new Bounds(positions);
+    }
+
+    /**
+     * @param vertexData interleaved vertices, see Mesh.FLOATS_PER_VERTEX
+     * @return the bounds of the vertex positions
+     */
+    public static Bounds fromVertexData(ByteBuffer vertexData) {
+        return new Bounds(Mesh.deinterleave(vertexData, 0, 3));
+    }
+
+    private Bounds(float[] positions) {
+        int numVertices = positions.length / 3;
+        if (numVertices == 0) {
+            radius = 0.0f;
+            return;
+        }
+        for (int c = 0; c < 3; c++) {
+            min[c] = Float.MAX_VALUE;
+            max[c] = -Float.MAX_VALUE;
+        }
+        for (int i = 0; i < numVertices; i++) {
+            for (int c = 0; c < 3; c++) {
+                float p = positions[i * 3 + c];
+                min[c] = Math.min(min[c], p);
+                max[c] = Math.max(max[c], p);
+            }
+        }
+        for (int c = 0; c < 3; c++) {
+            center[c] = (min[c] + max[c]) * 0.5f;
+        }
+        float radiusSquared = 0.0f;
+        for (int i = 0; i < numVertices; i++) {
+            float dx = positions[i * 3] - center[0];
+            float dy = positions[i * 3 + 1] - center[1];
+            float dz = positions[i * 3 + 2] - center[2];
+            radiusSquared = Math.max(radiusSquared, dx * dx + dy * dy + dz * dz);
+        }
+        radius = (float) Math.sqrt(radiusSquared);
+    }
+
+    public float[] getMin() { return min; }
+    public float[] getMax() { return max; }
+    public float[] getCenter() { return center; }
+    public float getRadius() { return radius; }
+}
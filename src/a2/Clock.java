@@ -0,0 +1,20 @@
+/**
+ * A source of nanosecond timestamps. Code that animates or paces frames reads the time through a Clock so a
+ * run can be driven by FixedStepClock instead of real time and produce the same frames every time.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+public interface Clock {
+
+    //real time, System.nanoTime
+    Clock SYSTEM = System::nanoTime;
+
+    /**
+     * @return current time in nanoseconds, only differences between values are meaningful
+     */
+    long nanoTime();
+}
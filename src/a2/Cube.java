@@ -45,6 +45,8 @@ public class Cube {
 
             };
 
+    private Bounds bounds = Bounds.fromPositions(cubePositions);
+
     public Cube(){
 
     }
@@ -54,4 +56,5 @@ public class Cube {
         return cubePositions;
     }
     public float[] getTextureCoordinates(){ return textureCoordinates;}
+    public Bounds getBounds(){ return bounds;}
 }
@@ -44,6 +44,8 @@ public class CubeHead {
 
             };
 
+    private Bounds bounds = Bounds.fromPositions(cubePositions);
+
 
     public CubeHead(){
 
@@ -54,4 +56,5 @@ public class CubeHead {
         return cubePositions;
     }
     public float[] getTextureCoordinates(){ return textureCoordinates;}
+    public Bounds getBounds(){ return bounds;}
 }
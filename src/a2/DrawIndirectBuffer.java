@@ -0,0 +1,131 @@
+/**
+ * Per-frame DrawElementsIndirectCommand records for glMultiDrawElementsIndirect. Commands are grouped in
+ * batches, one multi-draw each, and every batch is preceded by a record holding its command count.
+ *
+ * The records live in a RingBuffer bound to GL_DRAW_INDIRECT_BUFFER, persistently mapped where
+ * GL_ARB_buffer_storage allows. With GL_ARB_indirect_parameters a batch is drawn with one
+ * glMultiDrawElementsIndirectCountARB, the count record doubling as its parameter buffer; this is also the only
+ * multi-draw indirect entry point of JOGL 2.3.2 that takes a buffer offset. Its glMultiDrawElementsIndirect
+ * only accepts a client Buffer, which core profiles reject, so without the extension every command of the
+ * batch is drawn with its own glDrawElementsIndirect from the same buffer, as GpuCuller.draw does.
+ *
+ * The mapped records are only ever written; the command count of every batch is also kept on the CPU, since
+ * reading mapped memory back is undefined without GL_MAP_READ_BIT and uncached where it works.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL4;
+
+import java.nio.ByteBuffer;
+
+import static com.jogamp.opengl.GL4.*;
+
+public class DrawIndirectBuffer {
+
+    //count, instanceCount, firstIndex, baseVertex, baseInstance
+    public static final int COMMAND_SIZE = 5 * 4;
+
+    private final boolean indirectCount;
+    private final RingBuffer ring;
+
+    private ByteBuffer records;
+    private int used;
+    //command count per batch, indexed like the records by the batch's header
+    private int[] commandCounts = new int[0];
+
+    /**
+     * constructor
+     * @param gl current GL
+     * @param commands initial commands per frame, grows as needed
+     */
+    public DrawIndirectBuffer(GL4 gl, int commands) {
+        indirectCount = gl.isExtensionAvailable("GL_ARB_indirect_parameters");
+        ring = new RingBuffer(gl, GL_DRAW_INDIRECT_BUFFER, COMMAND_SIZE, commands * 2);
+    }
+
+    /**
+     * starts a frame
+     * @param gl current GL
+     * @param commands upper bound of the frame's commands
+     */
+    public void begin(GL4 gl, int commands) {
+        //every batch has at least one command, so commands plus batch headers never exceed twice the commands
+        records = ring.begin(gl, commands * 2);
+        used = 0;
+        if (commandCounts.length < commands * 2) {
+            commandCounts = new int[commands * 2];
+        }
+    }
+
+    /**
+     * @return a new batch, pass it to the following addCommand calls and to draw
+     */
+    public int beginBatch() {
+        records.putInt(used * COMMAND_SIZE, 0);
+        commandCounts[used] = 0;
+        return used++;
+    }
+
+    /**
+     * appends a command to a batch, which must be the last one begun
+     */
+    public void addCommand(int batch, int count, int instances, int firstIndex, int baseVertex, int baseInstance) {
+        int offset = used * COMMAND_SIZE;
+        records.putInt(offset, count);
+        records.putInt(offset + 4, instances);
+        records.putInt(offset + 8, firstIndex);
+        records.putInt(offset + 12, baseVertex);
+        records.putInt(offset + 16, baseInstance);
+        commandCounts[batch]++;
+        records.putInt(batch * COMMAND_SIZE, commandCounts[batch]);
+        used++;
+    }
+
+    /**
+     * finishes the frame's records, uploading them if they are not persistently mapped
+     * @param gl current GL
+     */
+    public void end(GL4 gl) {
+        ring.end(gl);
+    }
+
+    /**
+     * @return true if draw issues one multi-draw call per batch, false if it issues one draw per command
+     */
+    public boolean isMultiDraw() { return indirectCount; }
+
+    /**
+     * draws a batch, with one multi-draw call if GL_ARB_indirect_parameters is available
+     * @param gl current GL
+     * @param mode primitive type
+     * @param batch batch from beginBatch
+     * @return number of commands drawn
+     */
+    public int draw(GL4 gl, int mode, int batch) {
+        int commands = commandCounts[batch];
+        long header = (long) (ring.getFirstRecord() + batch) * COMMAND_SIZE;
+        gl.glBindBuffer(GL_DRAW_INDIRECT_BUFFER, ring.getBuffer());
+        if (indirectCount) {
+            gl.glBindBuffer(GL_PARAMETER_BUFFER_ARB, ring.getBuffer());
+            gl.glMultiDrawElementsIndirectCountARB(mode, GL_UNSIGNED_INT, header + COMMAND_SIZE, header,
+                    commands, COMMAND_SIZE);
+        } else {
+            for (int i = 1; i <= commands; i++) {
+                gl.glDrawElementsIndirect(mode, GL_UNSIGNED_INT, header + (long) i * COMMAND_SIZE);
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * fences the frame's records, call after its last draw
+     * @param gl current GL
+     */
+    public void fence(GL4 gl) {
+        ring.fence(gl);
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * One draw submitted to the RenderQueue: what to draw, with which program and texture, and where. Items are
+ * pooled by the queue and overwritten every frame.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.joml.Matrix4f;
+
+class DrawItem {
+
+    ShaderProgram program;
+    int texture;
+    Mesh mesh;
+    int layer;
+    int lod;
+    final Matrix4f modelView = new Matrix4f();
+
+    //state sort key, see RenderQueue.stateKey
+    long key;
+
+    //set on the first draw of a multi-draw batch: the DrawIndirectBuffer batch, the draw after it, the number
+    //of draws it covers (0 for draws that start no batch) and its triangles at the chosen and full detail
+    int batch;
+    int batchEnd;
+    int batchDraws;
+    int batchTriangles;
+    int batchFullTriangles;
+}
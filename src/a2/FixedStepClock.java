@@ -0,0 +1,33 @@
+/**
+ * A Clock that only moves when told to, by the same step every time, so every frame of a run sees the same
+ * time no matter how long it took to draw.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+public class FixedStepClock implements Clock {
+
+    private final long stepNanos;
+    private long now;
+
+    /**
+     * constructor, starts at 0
+     * @param stepNanos nanoseconds each advance moves the clock
+     */
+    public FixedStepClock(long stepNanos) {
+        this.stepNanos = stepNanos;
+    }
+
+    /**
+     * moves the clock forward by one step
+     */
+    public void advance() {
+        now += stepNanos;
+    }
+
+    @Override
+    public long nanoTime() { return now; }
+}
@@ -0,0 +1,58 @@
+/**
+ * Growable list of primitive floats, used while parsing models so values are never boxed
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import java.util.Arrays;
+
+public class FloatList {
+
+    private float[] values;
+    private int size;
+
+    /**
+     * constructor
+     * @param initialCapacity number of floats the list can hold before growing
+     */
+    public FloatList(int initialCapacity) {
+        values = new float[Math.max(initialCapacity, 4)];
+    }
+
+    /**
+     * constructor, takes ownership of an already filled array
+     * @param values backing array, all of it counts as content
+     */
+    public FloatList(float[] values) {
+        this.values = values;
+        this.size = values.length;
+    }
+
+    /**
+     * appends a value, doubling the backing array when it is full
+     * @param value value to append
+     */
+    public void add(float value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(size * 2, 4));
+        }
+        values[size++] = value;
+    }
+
+    public float get(int index) { return values[index]; }
+    public int size() { return size; }
+    public void clear() { size = 0; }
+
+    /**
+     * @return the backing array, valid up to size(), without copying it
+     */
+    public float[] array() { return values; }
+
+    /**
+     * @return a copy of the values trimmed to size()
+     */
+    public float[] toArray() { return Arrays.copyOf(values, size); }
+}
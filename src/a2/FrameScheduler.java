@@ -0,0 +1,161 @@
+/**
+ * Drives a drawable's display loop with one of four pacing modes and records every frame time in
+ * FrameTimeHistograms, one for the whole run and one the caller can reset for a rolling view.
+ *
+ * VSYNC waits for the vertical blank on every swap. UNCAPPED swaps immediately and draws as fast as it can.
+ * FIXED swaps immediately but lets an FPSAnimator start frames at a target rate. ADAPTIVE syncs to the vertical
+ * blank while frames keep up and tears instead of waiting a whole extra refresh when one is late: with
+ * EXT_swap_control_tear through a swap interval of -1, otherwise by switching the swap interval between 1 and 0
+ * depending on whether the previous frame missed the refresh period.
+ *
+ * The mode comes from -Da2.frameMode (vsync, uncapped, fixed or adaptive, vsync by default) and the FIXED rate
+ * from -Da2.targetFps (60 by default).
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GLAnimatorControl;
+import com.jogamp.opengl.GLAutoDrawable;
+import com.jogamp.opengl.util.Animator;
+import com.jogamp.opengl.util.FPSAnimator;
+
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.awt.HeadlessException;
+import java.util.Locale;
+
+public class FrameScheduler {
+
+    public enum Mode { VSYNC, UNCAPPED, FIXED, ADAPTIVE }
+
+    private static final int DEFAULT_REFRESH_RATE = 60;
+    //a frame this much longer than the refresh period missed its vertical blank
+    private static final double LATE_FACTOR = 1.2;
+
+    private final GLAutoDrawable drawable;
+    private final Mode mode;
+    private final int targetFps;
+    private final long refreshNanos;
+    private GLAnimatorControl animator;
+
+    //ADAPTIVE without swap_control_tear switches the swap interval itself
+    private boolean emulateAdaptive;
+    private int swapInterval;
+
+    private final FrameTimeHistogram total = new FrameTimeHistogram();
+    private final FrameTimeHistogram recent = new FrameTimeHistogram();
+    private long lastFrame;
+
+    /**
+     * constructor
+     * @param drawable drawable to animate
+     * @param mode pacing mode
+     * @param targetFps frame rate of FIXED, ignored by the other modes
+     */
+    public FrameScheduler(GLAutoDrawable drawable, Mode mode, int targetFps) {
+        this.drawable = drawable;
+        this.mode = mode;
+        this.targetFps = targetFps;
+        this.refreshNanos = 1_000_000_000L / refreshRate();
+    }
+
+    /**
+     * @param drawable drawable to animate
+     * @return a scheduler configured by -Da2.frameMode and -Da2.targetFps
+     */
+    public static FrameScheduler fromProperties(GLAutoDrawable drawable) {
+        Mode mode = Mode.valueOf(System.getProperty("a2.frameMode", "vsync").toUpperCase(Locale.ROOT));
+        return new FrameScheduler(drawable, mode, Integer.getInteger("a2.targetFps", 60));
+    }
+
+    /**
+     * starts the display loop
+     */
+    public void start() {
+        animator = (mode == Mode.FIXED) ? new FPSAnimator(drawable, targetFps, true) : new Animator(drawable);
+        animator.start();
+    }
+
+    /**
+     * stops the display loop
+     */
+    public void stop() {
+        if (animator != null) {
+            animator.stop();
+        }
+    }
+
+    /**
+     * sets the swap interval of the mode, call from GLEventListener.init
+     * @param gl current GL
+     */
+    public void init(GL gl) {
+        switch (mode) {
+            case VSYNC:
+                swapInterval = 1;
+                break;
+            case ADAPTIVE:
+                boolean tear = gl.isExtensionAvailable("GLX_EXT_swap_control_tear")
+                        || gl.isExtensionAvailable("WGL_EXT_swap_control_tear");
+                emulateAdaptive = !tear;
+                swapInterval = tear ? -1 : 1;
+                break;
+            default:
+                swapInterval = 0;
+        }
+        gl.setSwapInterval(swapInterval);
+        System.out.println("frame pacing: " + mode.name().toLowerCase(Locale.ROOT)
+                + ((mode == Mode.FIXED) ? " at " + targetFps + " fps" : "")
+                + ((mode == Mode.ADAPTIVE && emulateAdaptive) ? ", emulated" : ""));
+    }
+
+    /**
+     * records the time since the previous frame, call at the start of GLEventListener.display
+     * @param gl current GL
+     */
+    public void beginFrame(GL gl) {
+        long now = System.nanoTime();
+        if (lastFrame != 0) {
+            long frameTime = now - lastFrame;
+            total.record(frameTime);
+            recent.record(frameTime);
+            if (emulateAdaptive) {
+                int interval = (frameTime > refreshNanos * LATE_FACTOR) ? 0 : 1;
+                if (interval != swapInterval) {
+                    swapInterval = interval;
+                    gl.setSwapInterval(interval);
+                }
+            }
+        }
+        lastFrame = now;
+    }
+
+    public Mode getMode() { return mode; }
+
+    /**
+     * @return every frame time since the start
+     */
+    public FrameTimeHistogram getTotal() { return total; }
+
+    /**
+     * @return frame times since the caller last reset it
+     */
+    public FrameTimeHistogram getRecent() { return recent; }
+
+    /**
+     * @return refresh rate of the default screen, DEFAULT_REFRESH_RATE when unknown
+     */
+    private static int refreshRate() {
+        try {
+            int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDisplayMode().getRefreshRate();
+            return (rate == DisplayMode.REFRESH_RATE_UNKNOWN) ? DEFAULT_REFRESH_RATE : rate;
+        } catch (HeadlessException e) {
+            return DEFAULT_REFRESH_RATE;
+        }
+    }
+}
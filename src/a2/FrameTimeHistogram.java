@@ -0,0 +1,101 @@
+/**
+ * A fixed memory histogram of frame times in the style of HdrHistogram: values are bucketed by their power of
+ * two, and every power of two is split into 64 linear buckets, so every recorded value keeps about
+ * 1.5% relative precision from a microsecond up to over a day, without storing the samples. Percentiles are
+ * read off the cumulative counts; the exact maximum is kept separately so a single long stall is never
+ * rounded away.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import java.util.Arrays;
+
+public class FrameTimeHistogram {
+
+    //values below SUB_BUCKETS microseconds are exact, every power of two above is split into HALF linear buckets
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    //powers of two above SUB_BUCKETS, enough for about 2^37 us; longer frames are clamped
+    private static final int MAGNITUDES = 30;
+    private static final long LARGEST = (1L << (MAGNITUDES + SUB_BUCKET_BITS)) - 1;
+
+    private final long[] counts = new long[SUB_BUCKETS + MAGNITUDES * HALF];
+    private long total;
+    private long maxMicros;
+    private long sumMicros;
+
+    /**
+     * records one frame
+     * @param nanos frame time in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, Math.min(LARGEST, nanos / 1000));
+        counts[index(micros)]++;
+        total++;
+        sumMicros += micros;
+        maxMicros = Math.max(maxMicros, micros);
+    }
+
+    /**
+     * @param percentile 0 to 100
+     * @return the frame time in milliseconds that the given percentage of frames did not exceed, the upper end
+     * of its bucket; 0 before any frame was recorded
+     */
+    public double getPercentile(double percentile) {
+        if (total == 0) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxMicros) / 1000.0;
+            }
+        }
+        return maxMicros / 1000.0;
+    }
+
+    public long getCount() { return total; }
+    public double getMax() { return maxMicros / 1000.0; }
+    public double getMean() { return (total == 0) ? 0.0 : (double) sumMicros / total / 1000.0; }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        maxMicros = 0;
+        sumMicros = 0;
+    }
+
+    /**
+     * @return one line with the frame count, mean, p50, p95, p99 and max in milliseconds
+     */
+    public String summary() {
+        return String.format("%d frames, mean %.2f ms, p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms",
+                total, getMean(), getPercentile(50), getPercentile(95), getPercentile(99), getMax());
+    }
+
+    /**
+     * values below SUB_BUCKETS get one bucket each, larger ones are bucketed by their top SUB_BUCKET_BITS bits
+     */
+    private static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int magnitude = 64 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (magnitude - 1) * HALF + (int) (micros >>> magnitude) - HALF;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = (index - SUB_BUCKETS) / HALF + 1;
+        long top = (index - SUB_BUCKETS) % HALF + HALF;
+        return ((top + 1) << magnitude) - 1;
+    }
+}
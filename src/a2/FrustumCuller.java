@@ -0,0 +1,75 @@
+/**
+ * Tests world space bounds against the view frustum extracted from the projection and view matrices. The
+ * bounding sphere is tested first; objects it cannot reject or accept outright get the tighter test of their
+ * box transformed into world space. Counts how many objects were drawn and culled since the last
+ * resetCounters.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector3f;
+
+public class FrustumCuller {
+
+    private final FrustumIntersection frustum = new FrustumIntersection();
+    private final Matrix4f viewProjection = new Matrix4f();
+    private final Vector3f center = new Vector3f();
+    private final Vector3f scale = new Vector3f();
+    private final Vector3f boxMin = new Vector3f();
+    private final Vector3f boxMax = new Vector3f();
+
+    private int drawn;
+    private int culled;
+
+    /**
+     * extracts the frustum planes of a frame
+     * @param projection projection matrix
+     * @param view view matrix
+     */
+    public void update(Matrix4fc projection, Matrix4fc view) {
+        frustum.set(projection.mul(view, viewProjection));
+    }
+
+    /**
+     * @param bounds model space bounds
+     * @param world model to world transform
+     * @return whether any part of the bounds may be inside the frustum; counted as drawn or culled
+     */
+    public boolean isVisible(Bounds bounds, Matrix4fc world) {
+        float[] c = bounds.getCenter();
+        world.transformPosition(c[0], c[1], c[2], center);
+        world.getScale(scale);
+        float radius = bounds.getRadius() * Math.max(scale.x, Math.max(scale.y, scale.z));
+        int sphere = frustum.intersectSphere(center.x, center.y, center.z, radius);
+        boolean visible;
+        if (sphere == FrustumIntersection.OUTSIDE) {
+            visible = false;
+        } else if (sphere == FrustumIntersection.INSIDE) {
+            visible = true;
+        } else {
+            float[] min = bounds.getMin(), max = bounds.getMax();
+            world.transformAab(min[0], min[1], min[2], max[0], max[1], max[2], boxMin, boxMax);
+            visible = frustum.testAab(boxMin, boxMax);
+        }
+        if (visible) {
+            drawn++;
+        } else {
+            culled++;
+        }
+        return visible;
+    }
+
+    public int getDrawn() { return drawn; }
+    public int getCulled() { return culled; }
+
+    public void resetCounters() {
+        drawn = 0;
+        culled = 0;
+    }
+}
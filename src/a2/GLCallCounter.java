@@ -0,0 +1,301 @@
+/**
+ * Counts every OpenGL call made through a GL it wraps, that is every gl* entry point and not JOGL's own
+ * helpers such as isExtensionAvailable or getContext: calls per function, draw calls, buffer and texture binds,
+ * program switches, uniform uploads and the bytes handed to buffer and texture uploads. It also shadows the
+ * bindable state (active texture unit, texture, buffer and VAO bindings, program, enabled capabilities and
+ * depth function) and flags calls that set what is already set as redundant.
+ *
+ * wrap returns a java.lang.reflect.Proxy implementing the same GL interfaces as the wrapped GL, so it can be
+ * installed with GLAutoDrawable.setGL and every later GLContext.getCurrentGL sees it. Calls are collected until
+ * endFrame, after which getLastFrame holds the finished frame's counts for printing or for asserting a call
+ * budget.
+ *
+ * The shadow state starts out unknown and is forgotten for anything a delete could have unbound, so a call is
+ * only reported as redundant when it certainly changed nothing.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static com.jogamp.opengl.GL4.*;
+
+public class GLCallCounter {
+
+    private Frame current = new Frame();
+    private Frame last = new Frame();
+
+    //shadowed state, absent keys are unknown
+    private Integer activeTexture;
+    private Integer program;
+    private Integer vertexArray;
+    private Integer depthFunc;
+    private final Map<Long, Integer> textures = new HashMap<>();
+    private final Map<Integer, Integer> buffers = new HashMap<>();
+    private final Map<Integer, Boolean> capabilities = new HashMap<>();
+
+    /**
+     * wraps a GL so that every call through it is counted
+     * @param gl GL to forward the calls to
+     * @param counter counter the calls are recorded in
+     * @param <T> GL type, such as GL4
+     * @return a GL implementing every GL interface of gl
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends GL> T wrap(T gl, GLCallCounter counter) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> type = gl.getClass(); type != null; type = type.getSuperclass()) {
+            Collections.addAll(interfaces, type.getInterfaces());
+        }
+        return (T) Proxy.newProxyInstance(GLCallCounter.class.getClassLoader(), interfaces.toArray(new Class<?>[0]),
+                (self, method, args) -> {
+                    //getGL4() and friends hand out the wrapper again, so nothing escapes the counting
+                    if (method.getName().startsWith("getGL") && method.getParameterCount() == 0
+                            && method.getReturnType().isInstance(self)) {
+                        return self;
+                    }
+                    if (method.getName().startsWith("gl") && method.getDeclaringClass() != Object.class) {
+                        counter.record(method, args);
+                    }
+                    try {
+                        return method.invoke(gl, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * finishes the frame, its counts become getLastFrame
+     */
+    public void endFrame() {
+        last = current;
+        current = new Frame();
+    }
+
+    /**
+     * @return counts of the last finished frame
+     */
+    public Frame getLastFrame() { return last; }
+
+    /**
+     * @return counts of the frame in progress
+     */
+    public Frame getCurrentFrame() { return current; }
+
+    private void record(Method method, Object[] args) {
+        String name = method.getName();
+        Frame frame = current;
+        frame.calls++;
+        frame.byFunction.computeIfAbsent(name, key -> new int[1])[0]++;
+
+        boolean redundant = false;
+        switch (name) {
+            case "glActiveTexture":
+                redundant = same(activeTexture, arg(args, 0));
+                activeTexture = arg(args, 0);
+                break;
+            case "glBindTexture":
+                frame.textureBinds++;
+                if (activeTexture != null) {
+                    long key = ((long) activeTexture << 32) | (arg(args, 0) & 0xffffffffL);
+                    redundant = same(textures.get(key), arg(args, 1));
+                    textures.put(key, arg(args, 1));
+                }
+                break;
+            case "glBindBuffer":
+                frame.bufferBinds++;
+                redundant = same(buffers.get(arg(args, 0)), arg(args, 1));
+                buffers.put(arg(args, 0), arg(args, 1));
+                break;
+            case "glBindBufferBase":
+            case "glBindBufferRange":
+                frame.bufferBinds++;
+                //also bind the generic binding point
+                buffers.put(arg(args, 0), arg(args, 2));
+                break;
+            case "glBindVertexArray":
+                redundant = same(vertexArray, arg(args, 0));
+                vertexArray = arg(args, 0);
+                //the element array binding belongs to the VAO
+                buffers.remove(GL_ELEMENT_ARRAY_BUFFER);
+                break;
+            case "glUseProgram":
+                frame.programSwitches++;
+                redundant = same(program, arg(args, 0));
+                program = arg(args, 0);
+                break;
+            case "glEnable":
+            case "glDisable":
+                boolean enable = name.equals("glEnable");
+                redundant = Boolean.valueOf(enable).equals(capabilities.get(arg(args, 0)));
+                capabilities.put(arg(args, 0), enable);
+                break;
+            case "glDepthFunc":
+                redundant = same(depthFunc, arg(args, 0));
+                depthFunc = arg(args, 0);
+                break;
+            case "glDeleteTextures":
+                textures.clear();
+                break;
+            case "glDeleteBuffers":
+                buffers.clear();
+                break;
+            case "glDeleteVertexArrays":
+                vertexArray = null;
+                break;
+            case "glDeleteProgram":
+                program = null;
+                break;
+            case "glBufferData":
+            case "glBufferSubData":
+            case "glNamedBufferData":
+            case "glNamedBufferSubData":
+                //size is the long after the target or buffer, and after the offset for the sub data calls
+                frame.bytesUploaded += (Long) args[name.endsWith("SubData") ? 2 : 1];
+                break;
+            default:
+                if (isDraw(name)) {
+                    frame.draws++;
+                } else if (name.startsWith("glUniform") && !name.equals("glUniformBlockBinding")
+                        || name.startsWith("glProgramUniform")) {
+                    //glUniformBlockBinding sets program state, it uploads no value
+                    frame.uniformUploads++;
+                } else if (name.startsWith("glTex") && name.contains("Image")
+                        || name.startsWith("glCompressedTex")) {
+                    frame.bytesUploaded += bufferBytes(args);
+                }
+        }
+        if (redundant) {
+            frame.redundant++;
+            frame.redundantByFunction.computeIfAbsent(name, key -> new int[1])[0]++;
+        }
+    }
+
+    /**
+     * @return true for the calls that draw primitives, not for glDrawBuffer(s), which only pick render targets
+     */
+    private static boolean isDraw(String name) {
+        return name.startsWith("glDrawArrays") || name.startsWith("glDrawElements")
+                || name.startsWith("glDrawRangeElements") || name.startsWith("glDrawTransformFeedback")
+                || name.startsWith("glMultiDrawArrays") || name.startsWith("glMultiDrawElements");
+    }
+
+    private static int arg(Object[] args, int index) {
+        return (Integer) args[index];
+    }
+
+    private static boolean same(Integer shadowed, int value) {
+        return shadowed != null && shadowed == value;
+    }
+
+    /**
+     * @return bytes left in the call's NIO buffer argument, 0 if it has none or pixels come from a bound buffer
+     */
+    private static long bufferBytes(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof Buffer) {
+                Buffer buffer = (Buffer) arg;
+                return (long) buffer.remaining() * elementSize(buffer);
+            }
+        }
+        return 0;
+    }
+
+    private static int elementSize(Buffer buffer) {
+        if (buffer instanceof ByteBuffer) return 1;
+        if (buffer instanceof ShortBuffer || buffer instanceof CharBuffer) return 2;
+        if (buffer instanceof IntBuffer || buffer instanceof FloatBuffer) return 4;
+        if (buffer instanceof LongBuffer || buffer instanceof DoubleBuffer) return 8;
+        return 1;
+    }
+
+    /**
+     * the counts of one frame
+     */
+    public static final class Frame {
+
+        private int calls;
+        private int draws;
+        private int bufferBinds;
+        private int textureBinds;
+        private int programSwitches;
+        private int uniformUploads;
+        private long bytesUploaded;
+        private int redundant;
+        private final Map<String, int[]> byFunction = new HashMap<>();
+        private final Map<String, int[]> redundantByFunction = new HashMap<>();
+
+        public int getCalls() { return calls; }
+        public int getDraws() { return draws; }
+        public int getBufferBinds() { return bufferBinds; }
+        public int getTextureBinds() { return textureBinds; }
+        public int getProgramSwitches() { return programSwitches; }
+        public int getUniformUploads() { return uniformUploads; }
+        public long getBytesUploaded() { return bytesUploaded; }
+        public int getRedundant() { return redundant; }
+
+        /**
+         * @param function GL function name, e.g. glBindTexture
+         * @return calls of the function in the frame
+         */
+        public int getCalls(String function) {
+            int[] count = byFunction.get(function);
+            return (count != null) ? count[0] : 0;
+        }
+
+        /**
+         * @param function GL function name, e.g. glEnable
+         * @return calls of the function that changed nothing
+         */
+        public int getRedundant(String function) {
+            int[] count = redundantByFunction.get(function);
+            return (count != null) ? count[0] : 0;
+        }
+
+        /**
+         * @return calls per function, sorted by name
+         */
+        public Map<String, Integer> getCallsByFunction() {
+            Map<String, Integer> sorted = new TreeMap<>();
+            byFunction.forEach((name, count) -> sorted.put(name, count[0]));
+            return sorted;
+        }
+
+        /**
+         * @return the totals on one line, followed by the most called functions
+         */
+        public String summary() {
+            StringBuilder line = new StringBuilder(String.format("%d gl calls (%d redundant), %d draws, "
+                            + "%d buffer binds, %d texture binds, %d program switches, %d uniform uploads, %d bytes uploaded",
+                    calls, redundant, draws, bufferBinds, textureBinds, programSwitches, uniformUploads, bytesUploaded));
+            byFunction.entrySet().stream()
+                    .sorted((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]))
+                    .limit(5)
+                    .forEach(entry -> line.append(String.format("%n  %-28s %6d (%d redundant)", entry.getKey(),
+                            entry.getValue()[0], getRedundant(entry.getKey()))));
+            return line.toString();
+        }
+    }
+}
@@ -0,0 +1,353 @@
+/**
+ * Records every OpenGL call made through a GL it wraps, with its arguments and the contents of the buffers and
+ * arrays it uploads, into a compact binary file that GLFrameReplayer plays back without the scene code. The
+ * recording starts with the first call, so it holds everything init creates, and ends after the frame given as
+ * captureFrame; GLFrameReplayer runs all calls before that frame once and then loops the frame itself.
+ *
+ * The file is gzipped and starts with the magic, the version and the drawable size. Each method is described
+ * once, by its declaring interface, name and parameter types, and later calls refer to it by index; arguments
+ * are written according to the parameter types, and int and long results are kept so the replayer can map the
+ * object names the driver returned when recording to the ones it returns when replaying.
+ *
+ * Calls with arguments that cannot be written, such as PointerBuffers or callbacks, are left out and counted.
+ * Writes through mapped buffer memory never pass through a GL call either, so the recording GL reports
+ * GL_ARB_buffer_storage as unavailable and RingBuffer falls back to uploading with glBufferSubData.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+public class GLFrameRecorder {
+
+    static final int MAGIC = 0x4132474C;
+    static final int VERSION = 1;
+
+    //record types
+    static final int DEFINE = 0;
+    static final int CALL = 1;
+    static final int FRAME_END = 2;
+    static final int END = 3;
+
+    //element types of recorded NIO buffers
+    static final int NULL = 0;
+    static final int BYTES = 1;
+    static final int SHORTS = 2;
+    static final int CHARS = 3;
+    static final int INTS = 4;
+    static final int FLOATS = 5;
+    static final int LONGS = 6;
+    static final int DOUBLES = 7;
+
+    private final File file;
+    private final int captureFrame;
+    private DataOutputStream out;
+    //index of every method seen so far, -1 for the ones left out
+    private final Map<Method, Integer> methods = new HashMap<>();
+    private int nextId;
+    private int frame;
+    private int calls;
+    private int skipped;
+
+    /**
+     * opens the file and writes the header
+     * @param file file to record to
+     * @param captureFrame frame to record last, counted from 0 by endFrame
+     * @param width drawable width the frames are drawn at
+     * @param height drawable height the frames are drawn at
+     * @throws IOException if the file cannot be written
+     */
+    public GLFrameRecorder(File file, int captureFrame, int width, int height) throws IOException {
+        this.file = file;
+        this.captureFrame = captureFrame;
+        out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file), 1 << 16)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+    }
+
+    /**
+     * wraps a GL so that every call through it is recorded until the capture frame has ended
+     * @param gl GL to forward the calls to
+     * @param recorder recorder the calls are written to
+     * @param <T> GL type, such as GL4
+     * @return a GL implementing every GL interface of gl
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends GL> T wrap(T gl, GLFrameRecorder recorder) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> type = gl.getClass(); type != null; type = type.getSuperclass()) {
+            Collections.addAll(interfaces, type.getInterfaces());
+        }
+        return (T) Proxy.newProxyInstance(GLFrameRecorder.class.getClassLoader(), interfaces.toArray(new Class<?>[0]),
+                (self, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("getGL") && method.getParameterCount() == 0
+                            && method.getReturnType().isInstance(self)) {
+                        return self;
+                    }
+                    if (name.equals("isExtensionAvailable") && "GL_ARB_buffer_storage".equals(args[0])) {
+                        return false;
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(gl, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    //recorded after the call, so the names a glGen call returns are in its array
+                    if (name.startsWith("gl") && method.getDeclaringClass() != Object.class) {
+                        recorder.record(method, args, result);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * marks the end of a frame, and finishes the file after the capture frame
+     */
+    public void endFrame() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeByte(FRAME_END);
+            if (frame++ == captureFrame) {
+                out.writeByte(END);
+                out.close();
+                out = null;
+                System.out.printf("recorded %d gl calls in %d frames to %s%s%n", calls, frame, file.getAbsolutePath(),
+                        (skipped > 0) ? ", " + skipped + " calls with unsupported arguments left out" : "");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return true until the capture frame has been written
+     */
+    public boolean isRecording() { return out != null; }
+
+    private void record(Method method, Object[] args, Object result) {
+        if (out == null) {
+            return;
+        }
+        try {
+            Integer id = methods.get(method);
+            if (id == null) {
+                if (!define(method)) {
+                    skipped++;
+                    return;
+                }
+                id = methods.get(method);
+            } else if (id < 0) {
+                skipped++;
+                return;
+            }
+            out.writeByte(CALL);
+            out.writeShort(id);
+            Class<?>[] types = method.getParameterTypes();
+            for (int i = 0; i < types.length; i++) {
+                write(types[i], args[i]);
+            }
+            if (method.getReturnType() == int.class) {
+                out.writeInt((Integer) result);
+            } else if (method.getReturnType() == long.class) {
+                out.writeLong((Long) result);
+            }
+            calls++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * assigns the method an index and describes it in the file, or marks it as unsupported
+     * @return false if the method has a parameter that cannot be written
+     */
+    private boolean define(Method method) throws IOException {
+        Class<?>[] types = method.getParameterTypes();
+        for (Class<?> type : types) {
+            if (!isSupported(type)) {
+                methods.put(method, -1);
+                return false;
+            }
+        }
+        //counted apart from the map, which also holds the methods left out
+        int id = nextId++;
+        methods.put(method, id);
+        out.writeByte(DEFINE);
+        out.writeShort(id);
+        out.writeUTF(method.getDeclaringClass().getName());
+        out.writeUTF(method.getName());
+        out.writeByte(types.length);
+        for (Class<?> type : types) {
+            out.writeUTF(type.getName());
+        }
+        return true;
+    }
+
+    private static boolean isSupported(Class<?> type) {
+        return type.isPrimitive() || type == String.class || type == String[].class
+                || type == byte[].class || type == short[].class || type == int[].class || type == long[].class
+                || type == float[].class || type == double[].class || Buffer.class.isAssignableFrom(type);
+    }
+
+    private void write(Class<?> type, Object value) throws IOException {
+        if (type == int.class) {
+            out.writeInt((Integer) value);
+        } else if (type == float.class) {
+            out.writeFloat((Float) value);
+        } else if (type == long.class) {
+            out.writeLong((Long) value);
+        } else if (type == boolean.class) {
+            out.writeBoolean((Boolean) value);
+        } else if (type == double.class) {
+            out.writeDouble((Double) value);
+        } else if (type == byte.class) {
+            out.writeByte((Byte) value);
+        } else if (type == short.class) {
+            out.writeShort((Short) value);
+        } else if (type == char.class) {
+            out.writeChar((Character) value);
+        } else if (type == String.class) {
+            writeString((String) value);
+        } else if (type == String[].class) {
+            String[] strings = (String[]) value;
+            out.writeInt((strings != null) ? strings.length : -1);
+            if (strings != null) {
+                for (String string : strings) {
+                    writeString(string);
+                }
+            }
+        } else if (type.isArray()) {
+            writeArray(value);
+        } else {
+            writeBuffer((Buffer) value);
+        }
+    }
+
+    private void writeString(String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeArray(Object array) throws IOException {
+        if (array == null) {
+            out.writeInt(-1);
+        } else if (array instanceof byte[]) {
+            out.writeInt(((byte[]) array).length);
+            out.write((byte[]) array);
+        } else if (array instanceof short[]) {
+            out.writeInt(((short[]) array).length);
+            for (short value : (short[]) array) out.writeShort(value);
+        } else if (array instanceof int[]) {
+            out.writeInt(((int[]) array).length);
+            for (int value : (int[]) array) out.writeInt(value);
+        } else if (array instanceof long[]) {
+            out.writeInt(((long[]) array).length);
+            for (long value : (long[]) array) out.writeLong(value);
+        } else if (array instanceof float[]) {
+            out.writeInt(((float[]) array).length);
+            for (float value : (float[]) array) out.writeFloat(value);
+        } else {
+            out.writeInt(((double[]) array).length);
+            for (double value : (double[]) array) out.writeDouble(value);
+        }
+    }
+
+    /**
+     * writes the element type and the bytes between position and limit, in native order
+     */
+    private void writeBuffer(Buffer buffer) throws IOException {
+        if (buffer == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        ByteBuffer bytes;
+        int elementType;
+        if (buffer instanceof ByteBuffer) {
+            elementType = BYTES;
+            bytes = ((ByteBuffer) buffer).duplicate();
+        } else {
+            int remaining = buffer.remaining();
+            if (buffer instanceof ShortBuffer) {
+                elementType = SHORTS;
+                bytes = allocate(remaining * 2);
+                bytes.asShortBuffer().put(((ShortBuffer) buffer).duplicate());
+            } else if (buffer instanceof CharBuffer) {
+                elementType = CHARS;
+                bytes = allocate(remaining * 2);
+                bytes.asCharBuffer().put(((CharBuffer) buffer).duplicate());
+            } else if (buffer instanceof IntBuffer) {
+                elementType = INTS;
+                bytes = allocate(remaining * 4);
+                bytes.asIntBuffer().put(((IntBuffer) buffer).duplicate());
+            } else if (buffer instanceof FloatBuffer) {
+                elementType = FLOATS;
+                bytes = allocate(remaining * 4);
+                bytes.asFloatBuffer().put(((FloatBuffer) buffer).duplicate());
+            } else if (buffer instanceof LongBuffer) {
+                elementType = LONGS;
+                bytes = allocate(remaining * 8);
+                bytes.asLongBuffer().put(((LongBuffer) buffer).duplicate());
+            } else {
+                elementType = DOUBLES;
+                bytes = allocate(remaining * 8);
+                bytes.asDoubleBuffer().put(((DoubleBuffer) buffer).duplicate());
+            }
+        }
+        out.writeByte(elementType);
+        out.writeInt(bytes.remaining());
+        if (bytes.hasArray()) {
+            out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        } else {
+            byte[] chunk = new byte[Math.min(bytes.remaining(), 1 << 16)];
+            while (bytes.hasRemaining()) {
+                int length = Math.min(chunk.length, bytes.remaining());
+                bytes.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+        }
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,488 @@
+/**
+ * Plays back a file written by GLFrameRecorder on an offscreen drawable of the recorded size, so the driver and
+ * GPU cost of a frame can be measured without the scene, animation and camera code that produced it. Every
+ * call before the captured frame runs once to create the resources; the captured frame then runs -Da2.frames
+ * (300) times. Each run is timed twice: until its last call has been issued (submit) and until a glFinish
+ * returns (total).
+ *
+ * The driver may hand out different object names than when recording, so names are mapped: the buffers,
+ * textures, vertex arrays, queries, framebuffers, renderbuffers and samplers a glGen call returns, programs and
+ * shaders from glCreateProgram and glCreateShader, uniform locations per program and sync objects. The calls
+ * listed in USES, glDelete calls and uniform uploads have their names replaced; any other call is replayed with
+ * the recorded values.
+ *
+ * Usage: java -cp ... a2.GLFrameReplayer capture.a2gl
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import com.jogamp.opengl.GLCapabilities;
+import com.jogamp.opengl.GLDrawableFactory;
+import com.jogamp.opengl.GLEventListener;
+import com.jogamp.opengl.GLOffscreenAutoDrawable;
+import com.jogamp.opengl.GLProfile;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static a2.GLFrameRecorder.*;
+
+public class GLFrameReplayer implements GLEventListener {
+
+    //kinds of object names
+    private static final int BUFFER = 0;
+    private static final int TEXTURE = 1;
+    private static final int VERTEX_ARRAY = 2;
+    private static final int PROGRAM = 3;
+    private static final int SHADER = 4;
+    private static final int QUERY = 5;
+    private static final int FRAMEBUFFER = 6;
+    private static final int RENDERBUFFER = 7;
+    private static final int SAMPLER = 8;
+
+    //glGen and glDelete calls by the kind of names they create or delete, in an int[] after the count
+    private static final Map<String, Integer> GENERATES = new HashMap<>();
+    private static final Map<String, Integer> DELETES = new HashMap<>();
+    //calls taking names, as pairs of argument index and kind
+    private static final Map<String, int[]> USES = new HashMap<>();
+
+    static {
+        String[] objects = {"Buffers", "Textures", "VertexArrays", "Queries", "Framebuffers", "Renderbuffers", "Samplers"};
+        int[] kinds = {BUFFER, TEXTURE, VERTEX_ARRAY, QUERY, FRAMEBUFFER, RENDERBUFFER, SAMPLER};
+        for (int i = 0; i < objects.length; i++) {
+            GENERATES.put("glGen" + objects[i], kinds[i]);
+            DELETES.put("glDelete" + objects[i], kinds[i]);
+        }
+        GENERATES.put("glCreateBuffers", BUFFER);
+        GENERATES.put("glCreateVertexArrays", VERTEX_ARRAY);
+
+        USES.put("glBindBuffer", new int[]{1, BUFFER});
+        USES.put("glBindBufferBase", new int[]{2, BUFFER});
+        USES.put("glBindBufferRange", new int[]{2, BUFFER});
+        USES.put("glBindTexture", new int[]{1, TEXTURE});
+        USES.put("glBindImageTexture", new int[]{1, TEXTURE});
+        USES.put("glBindVertexArray", new int[]{0, VERTEX_ARRAY});
+        USES.put("glBindFramebuffer", new int[]{1, FRAMEBUFFER});
+        USES.put("glBindRenderbuffer", new int[]{1, RENDERBUFFER});
+        USES.put("glFramebufferTexture", new int[]{2, TEXTURE});
+        USES.put("glFramebufferTexture2D", new int[]{3, TEXTURE});
+        USES.put("glFramebufferRenderbuffer", new int[]{3, RENDERBUFFER});
+        USES.put("glBindSampler", new int[]{1, SAMPLER});
+        USES.put("glQueryCounter", new int[]{0, QUERY});
+        USES.put("glBeginQuery", new int[]{1, QUERY});
+        for (String suffix : new String[]{"iv", "uiv", "i64v", "ui64v"}) {
+            USES.put("glGetQueryObject" + suffix, new int[]{0, QUERY});
+        }
+        USES.put("glAttachShader", new int[]{0, PROGRAM, 1, SHADER});
+        USES.put("glDetachShader", new int[]{0, PROGRAM, 1, SHADER});
+        for (String call : new String[]{"glUseProgram", "glLinkProgram", "glValidateProgram", "glDeleteProgram",
+                "glGetProgramiv", "glGetProgramInfoLog", "glGetActiveUniform", "glGetActiveAttrib",
+                "glGetAttribLocation", "glGetUniformLocation", "glGetUniformBlockIndex", "glUniformBlockBinding"}) {
+            USES.put(call, new int[]{0, PROGRAM});
+        }
+        for (String call : new String[]{"glShaderSource", "glCompileShader", "glDeleteShader", "glGetShaderiv",
+                "glGetShaderInfoLog"}) {
+            USES.put(call, new int[]{0, SHADER});
+        }
+    }
+
+    private final List<Call> setup;
+    private final List<Call> frame;
+    private final int width;
+    private final int height;
+
+    //recorded name to replayed name, keyed by kind << 32 | recorded name
+    private final Map<Long, Integer> names = new HashMap<>();
+    //uniform locations, keyed by recorded program << 32 | recorded location
+    private final Map<Long, Integer> locations = new HashMap<>();
+    private final Map<Long, Long> syncs = new HashMap<>();
+    //program the recording had in use, for glUniform calls
+    private int program;
+
+    private final FrameTimeHistogram submit = new FrameTimeHistogram();
+    private final FrameTimeHistogram total = new FrameTimeHistogram();
+    private boolean measure;
+
+    /**
+     * reads a recording
+     * @param file file written by GLFrameRecorder
+     * @throws IOException if the file cannot be read or is not a recording
+     */
+    public GLFrameReplayer(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file), 1 << 16)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a gl recording of this version");
+            }
+            width = in.readInt();
+            height = in.readInt();
+            Map<Integer, Method> methods = new HashMap<>();
+            List<Call> calls = new ArrayList<>();
+            int lastFrameStart = 0, frameStart = 0;
+            for (int record = in.readByte(); record != END; record = in.readByte()) {
+                if (record == DEFINE) {
+                    int id = in.readShort();
+                    methods.put(id, readMethod(in));
+                } else if (record == CALL) {
+                    int id = in.readShort();
+                    Method method = methods.get(id);
+                    if (method == null) {
+                        throw new IOException("call to undefined method " + id + " in " + file);
+                    }
+                    calls.add(readCall(in, method));
+                } else if (record == FRAME_END) {
+                    lastFrameStart = frameStart;
+                    frameStart = calls.size();
+                } else {
+                    throw new IOException("unknown record " + record + " in " + file);
+                }
+            }
+            setup = calls.subList(0, lastFrameStart);
+            frame = calls.subList(lastFrameStart, frameStart);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: a2.GLFrameReplayer <recording>");
+            System.exit(2);
+        }
+        new GLFrameReplayer(new File(args[0])).run(Integer.getInteger("a2.frames", 300));
+    }
+
+    /**
+     * creates the resources, then replays the captured frame and prints its timings
+     * @param frames times to replay the frame
+     */
+    public void run(int frames) {
+        GLProfile profile = GLProfile.get(GLProfile.GL4);
+        GLCapabilities capabilities = new GLCapabilities(profile);
+        capabilities.setOnscreen(false);
+        GLOffscreenAutoDrawable drawable = GLDrawableFactory.getFactory(profile)
+                .createOffscreenAutoDrawable(null, capabilities, null, width, height);
+        drawable.addGLEventListener(this);
+        try {
+            //one unmeasured run to warm up the driver
+            drawable.display();
+            measure = true;
+            for (int i = 0; i < frames; i++) {
+                drawable.display();
+            }
+        } finally {
+            drawable.destroy();
+        }
+        System.out.printf("replayed %d calls of setup and %d calls per frame, %d frames at %dx%d%n",
+                setup.size(), frame.size(), frames, width, height);
+        System.out.println("submit: " + submit.summary());
+        System.out.println("total:  " + total.summary());
+    }
+
+    public FrameTimeHistogram getSubmit() { return submit; }
+    public FrameTimeHistogram getTotal() { return total; }
+
+    @Override
+    public void init(GLAutoDrawable drawable) {
+        replay(drawable, setup);
+        drawable.getGL().glFinish();
+    }
+
+    @Override
+    public void display(GLAutoDrawable drawable) {
+        long start = System.nanoTime();
+        replay(drawable, frame);
+        long submitted = System.nanoTime();
+        drawable.getGL().glFinish();
+        long finished = System.nanoTime();
+        if (measure) {
+            submit.record(submitted - start);
+            total.record(finished - start);
+        }
+    }
+
+    @Override
+    public void dispose(GLAutoDrawable drawable) {}
+
+    @Override
+    public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height) {}
+
+    private void replay(GLAutoDrawable drawable, List<Call> calls) {
+        Object gl = drawable.getGL();
+        for (Call call : calls) {
+            remap(call);
+            Object result;
+            try {
+                result = call.method.invoke(gl, call.args);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("replaying " + call.method.getName() + " failed", e.getCause());
+            }
+            created(call, result);
+        }
+    }
+
+    /**
+     * replaces the recorded names in the call's arguments by the replayed ones
+     */
+    private void remap(Call call) {
+        String name = call.method.getName();
+        Object[] args = call.args, recorded = call.recorded;
+        int[] uses = USES.get(name);
+        if (uses != null) {
+            for (int i = 0; i < uses.length; i += 2) {
+                args[uses[i]] = name(uses[i + 1], (Integer) recorded[uses[i]]);
+            }
+        }
+        Integer deleted = DELETES.get(name);
+        if (deleted != null) {
+            //only the n names from the offset, the rest of the array is not the call's
+            int count = (Integer) recorded[0];
+            if (recorded[1] instanceof int[]) {
+                int[] from = (int[]) recorded[1], to = (int[]) args[1];
+                int offset = (Integer) recorded[2];
+                for (int i = offset; i < offset + count; i++) {
+                    to[i] = name(deleted, from[i]);
+                }
+            } else if (recorded[1] instanceof IntBuffer) {
+                IntBuffer from = (IntBuffer) recorded[1], to = (IntBuffer) args[1];
+                for (int i = 0; i < count; i++) {
+                    to.put(to.position() + i, name(deleted, from.get(from.position() + i)));
+                }
+            }
+        }
+        if (name.equals("glUseProgram")) {
+            program = (Integer) recorded[0];
+        } else if (name.startsWith("glUniform") && !name.equals("glUniformBlockBinding")) {
+            args[0] = location(program, (Integer) recorded[0]);
+        } else if (name.startsWith("glProgramUniform")) {
+            args[0] = name(PROGRAM, (Integer) recorded[0]);
+            args[1] = location((Integer) recorded[0], (Integer) recorded[1]);
+        } else if (name.equals("glClientWaitSync") || name.equals("glWaitSync") || name.equals("glDeleteSync")) {
+            args[0] = syncs.getOrDefault((Long) recorded[0], (Long) recorded[0]);
+        }
+    }
+
+    /**
+     * learns the names a call created
+     */
+    private void created(Call call, Object result) {
+        String name = call.method.getName();
+        Integer generated = GENERATES.get(name);
+        if (generated != null) {
+            int count = (Integer) call.recorded[0];
+            if (call.recorded[1] instanceof int[]) {
+                int[] from = (int[]) call.recorded[1], to = (int[]) call.args[1];
+                int offset = (Integer) call.recorded[2];
+                for (int i = offset; i < offset + count; i++) {
+                    names.put(key(generated, from[i]), to[i]);
+                }
+            } else if (call.recorded[1] instanceof IntBuffer) {
+                IntBuffer from = (IntBuffer) call.recorded[1], to = (IntBuffer) call.args[1];
+                for (int i = 0; i < count; i++) {
+                    names.put(key(generated, from.get(from.position() + i)), to.get(to.position() + i));
+                }
+            }
+        } else if (name.equals("glCreateProgram")) {
+            names.put(key(PROGRAM, (Integer) call.result), (Integer) result);
+        } else if (name.equals("glCreateShader")) {
+            names.put(key(SHADER, (Integer) call.result), (Integer) result);
+        } else if (name.equals("glGetUniformLocation")) {
+            locations.put(key((Integer) call.recorded[0], (Integer) call.result), (Integer) result);
+        } else if (name.equals("glFenceSync")) {
+            syncs.put((Long) call.result, (Long) result);
+        }
+    }
+
+    private int name(int kind, int recorded) {
+        return names.getOrDefault(key(kind, recorded), recorded);
+    }
+
+    private int location(int program, int recorded) {
+        return locations.getOrDefault(key(program, recorded), recorded);
+    }
+
+    private static long key(int high, int low) {
+        return ((long) high << 32) | (low & 0xffffffffL);
+    }
+
+    private static Method readMethod(DataInputStream in) throws IOException {
+        String owner = in.readUTF(), name = in.readUTF();
+        Class<?>[] types = new Class<?>[in.readByte()];
+        try {
+            for (int i = 0; i < types.length; i++) {
+                types[i] = type(in.readUTF());
+            }
+            return Class.forName(owner).getMethod(name, types);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("cannot replay " + owner + "." + name, e);
+        }
+    }
+
+    private static Class<?> type(String name) throws ClassNotFoundException {
+        switch (name) {
+            case "int": return int.class;
+            case "long": return long.class;
+            case "float": return float.class;
+            case "double": return double.class;
+            case "boolean": return boolean.class;
+            case "byte": return byte.class;
+            case "short": return short.class;
+            case "char": return char.class;
+            default: return Class.forName(name);
+        }
+    }
+
+    private static Call readCall(DataInputStream in, Method method) throws IOException {
+        Class<?>[] types = method.getParameterTypes();
+        Object[] recorded = new Object[types.length];
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            recorded[i] = read(in, types[i]);
+            //arrays are written to by the call, so it gets copies and the recorded values stay intact
+            args[i] = (recorded[i] instanceof int[]) ? ((int[]) recorded[i]).clone()
+                    : (recorded[i] instanceof IntBuffer) ? copy((IntBuffer) recorded[i]) : recorded[i];
+        }
+        Object result = null;
+        if (method.getReturnType() == int.class) {
+            result = in.readInt();
+        } else if (method.getReturnType() == long.class) {
+            result = in.readLong();
+        }
+        return new Call(method, recorded, args, result);
+    }
+
+    private static Object read(DataInputStream in, Class<?> type) throws IOException {
+        if (type == int.class) return in.readInt();
+        if (type == float.class) return in.readFloat();
+        if (type == long.class) return in.readLong();
+        if (type == boolean.class) return in.readBoolean();
+        if (type == double.class) return in.readDouble();
+        if (type == byte.class) return in.readByte();
+        if (type == short.class) return in.readShort();
+        if (type == char.class) return in.readChar();
+        if (type == String.class) return readString(in);
+        if (type == String[].class) {
+            int count = in.readInt();
+            if (count < 0) {
+                return null;
+            }
+            String[] strings = new String[count];
+            for (int i = 0; i < count; i++) {
+                strings[i] = readString(in);
+            }
+            return strings;
+        }
+        if (type.isArray()) {
+            return readArray(in, type);
+        }
+        return readBuffer(in);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Object readArray(DataInputStream in, Class<?> type) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (type == byte[].class) {
+            byte[] array = new byte[length];
+            in.readFully(array);
+            return array;
+        } else if (type == short[].class) {
+            short[] array = new short[length];
+            for (int i = 0; i < length; i++) array[i] = in.readShort();
+            return array;
+        } else if (type == int[].class) {
+            int[] array = new int[length];
+            for (int i = 0; i < length; i++) array[i] = in.readInt();
+            return array;
+        } else if (type == long[].class) {
+            long[] array = new long[length];
+            for (int i = 0; i < length; i++) array[i] = in.readLong();
+            return array;
+        } else if (type == float[].class) {
+            float[] array = new float[length];
+            for (int i = 0; i < length; i++) array[i] = in.readFloat();
+            return array;
+        } else {
+            double[] array = new double[length];
+            for (int i = 0; i < length; i++) array[i] = in.readDouble();
+            return array;
+        }
+    }
+
+    /**
+     * @return a direct buffer of the recorded element type holding the recorded bytes
+     */
+    private static Buffer readBuffer(DataInputStream in) throws IOException {
+        int elementType = in.readByte();
+        if (elementType == NULL) {
+            return null;
+        }
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.nativeOrder());
+        buffer.put(bytes).flip();
+        switch (elementType) {
+            case SHORTS: return buffer.asShortBuffer();
+            case CHARS: return buffer.asCharBuffer();
+            case INTS: return buffer.asIntBuffer();
+            case FLOATS: return buffer.asFloatBuffer();
+            case LONGS: return buffer.asLongBuffer();
+            case DOUBLES: return buffer.asDoubleBuffer();
+            default: return buffer;
+        }
+    }
+
+    private static IntBuffer copy(IntBuffer buffer) {
+        IntBuffer copy = ByteBuffer.allocateDirect(buffer.remaining() * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+        copy.put(buffer.duplicate()).flip();
+        return copy;
+    }
+
+    /**
+     * a recorded call: the recorded arguments and result, and the arguments it is replayed with
+     */
+    private static final class Call {
+
+        final Method method;
+        final Object[] recorded;
+        final Object[] args;
+        final Object result;
+
+        Call(Method method, Object[] recorded, Object[] args, Object result) {
+            this.method = method;
+            this.recorded = recorded;
+            this.args = args;
+            this.result = result;
+        }
+    }
+}
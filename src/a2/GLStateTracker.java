@@ -0,0 +1,156 @@
+/**
+ * Shadows the GL state the renderer changes (program, VAO, active texture unit, texture bindings, enabled
+ * capabilities and depth function) and only forwards a call to OpenGL when it would actually change that state.
+ * It starts out knowing nothing, so the first request for every piece of state is always issued. Anything that
+ * changes the same state directly on the GL must call invalidate() afterwards.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL4;
+
+import java.util.Arrays;
+
+public class GLStateTracker {
+
+    private static final int UNKNOWN = -1;
+
+    private int program = UNKNOWN;
+    private int vertexArray = UNKNOWN;
+    private int activeTexture = UNKNOWN;
+    private int depthFunc = UNKNOWN;
+    //texture bound per (unit, target) pair and enabled state per capability, searched linearly as there are
+    //only a handful of each; primitive arrays so no request allocates
+    private long[] textureBindings = new long[8];
+    private int[] textures = new int[8];
+    private int textureCount;
+    private int[] capabilities = new int[8];
+    private boolean[] capabilityStates = new boolean[8];
+    private int capabilityCount;
+
+    //state change requests since the last resetCounters, and how many of them reached OpenGL
+    private int requested;
+    private int issued;
+
+    /**
+     * forgets all shadowed state, the next request for anything is issued
+     */
+    public void invalidate() {
+        program = UNKNOWN;
+        vertexArray = UNKNOWN;
+        activeTexture = UNKNOWN;
+        depthFunc = UNKNOWN;
+        textureCount = 0;
+        capabilityCount = 0;
+    }
+
+    /**
+     * @return true if the program was not already in use
+     */
+    public boolean useProgram(GL4 gl, int program) {
+        requested++;
+        if (this.program == program) {
+            return false;
+        }
+        issued++;
+        this.program = program;
+        gl.glUseProgram(program);
+        return true;
+    }
+
+    public void bindVertexArray(GL4 gl, int vertexArray) {
+        requested++;
+        if (this.vertexArray != vertexArray) {
+            issued++;
+            this.vertexArray = vertexArray;
+            gl.glBindVertexArray(vertexArray);
+        }
+    }
+
+    public void activeTexture(GL4 gl, int unit) {
+        requested++;
+        if (activeTexture != unit) {
+            issued++;
+            activeTexture = unit;
+            gl.glActiveTexture(unit);
+        }
+    }
+
+    /**
+     * binds a texture to the active texture unit, activeTexture must have been called first
+     */
+    public void bindTexture(GL4 gl, int target, int texture) {
+        requested++;
+        long binding = (long) activeTexture << 32 | target;
+        int slot = 0;
+        while (slot < textureCount && textureBindings[slot] != binding) {
+            slot++;
+        }
+        if (activeTexture == UNKNOWN || slot == textureCount || textures[slot] != texture) {
+            issued++;
+            if (slot == textureCount) {
+                if (slot == textureBindings.length) {
+                    textureBindings = Arrays.copyOf(textureBindings, slot * 2);
+                    textures = Arrays.copyOf(textures, slot * 2);
+                }
+                textureBindings[slot] = binding;
+                textureCount++;
+            }
+            textures[slot] = texture;
+            gl.glBindTexture(target, texture);
+        }
+    }
+
+    public void enable(GL4 gl, int capability) {
+        setCapability(gl, capability, true);
+    }
+
+    public void disable(GL4 gl, int capability) {
+        setCapability(gl, capability, false);
+    }
+
+    public void depthFunc(GL4 gl, int func) {
+        requested++;
+        if (depthFunc != func) {
+            issued++;
+            depthFunc = func;
+            gl.glDepthFunc(func);
+        }
+    }
+
+    private void setCapability(GL4 gl, int capability, boolean enabled) {
+        requested++;
+        int slot = 0;
+        while (slot < capabilityCount && capabilities[slot] != capability) {
+            slot++;
+        }
+        if (slot == capabilityCount || capabilityStates[slot] != enabled) {
+            issued++;
+            if (slot == capabilityCount) {
+                if (slot == capabilities.length) {
+                    capabilities = Arrays.copyOf(capabilities, slot * 2);
+                    capabilityStates = Arrays.copyOf(capabilityStates, slot * 2);
+                }
+                capabilities[slot] = capability;
+                capabilityCount++;
+            }
+            capabilityStates[slot] = enabled;
+            if (enabled) {
+                gl.glEnable(capability);
+            } else {
+                gl.glDisable(capability);
+            }
+        }
+    }
+
+    public int getRequested() { return requested; }
+    public int getIssued() { return issued; }
+
+    public void resetCounters() {
+        requested = 0;
+        issued = 0;
+    }
+}
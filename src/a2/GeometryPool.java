@@ -0,0 +1,154 @@
+/**
+ * One shared vertex buffer, index buffer and VAO for many static meshes. Every added mesh is appended to both
+ * buffers, with its indices rebased onto its first vertex, and comes back as a Mesh that only knows its index
+ * ranges; non indexed geometry gets a sequential index list. Since all pooled meshes share buffers and vertex
+ * layout, the RenderQueue can draw any mix of them with one multi-draw indirect call.
+ *
+ * Meshes can be added at any time; upload sends everything added so far and must be called before the new
+ * meshes are drawn.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GL4;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jogamp.opengl.GL4.*;
+
+public class GeometryPool {
+
+    private final int vao;
+    private final int vertexBuffer;
+    private final int indexBuffer;
+
+    //interleaved vertex data of every mesh in order, and all their indices rebased onto the shared buffer
+    private final List<ByteBuffer> vertexChunks = new ArrayList<>();
+    private int numVertices;
+    private final IntList indices = new IntList(1024);
+
+    /**
+     * creates the VAO and the two buffers
+     * @param gl current GL
+     */
+    public GeometryPool(GL4 gl) {
+        int[] names = new int[2];
+        gl.glGenVertexArrays(1, names, 0);
+        vao = names[0];
+        gl.glGenBuffers(2, names, 0);
+        vertexBuffer = names[0];
+        indexBuffer = names[1];
+
+        gl.glBindVertexArray(vao);
+        gl.glBindBuffer(GL_ARRAY_BUFFER, vertexBuffer);
+        Mesh.setVertexAttributes(gl);
+        gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
+        gl.glBindVertexArray(0);
+    }
+
+    /**
+     * adds a non indexed triangle mesh, such as Cube, CubeHead or Rectangle
+     * @param positions 3 floats per vertex
+     * @param texCoords 2 floats per vertex
+     * @param normals 3 floats per vertex, or null to use flat face normals
+     * @param bounds bounds of the positions
+     * @return the pooled mesh
+     */
+    public Mesh add(float[] positions, float[] texCoords, float[] normals, Bounds bounds) {
+        if (normals == null) {
+            normals = Mesh.flatNormals(positions);
+        }
+        int count = positions.length / 3;
+        int[] sequential = new int[count];
+        for (int i = 0; i < count; i++) {
+            sequential[i] = i;
+        }
+        return add(Mesh.interleave(positions, texCoords, normals), count, sequential, new int[]{0}, new int[]{count},
+                bounds);
+    }
+
+    /**
+     * adds an imported model with all its levels of detail
+     * @param model loaded model
+     * @return the pooled mesh
+     */
+    public Mesh add(ImportedModel model) {
+        IntBuffer modelIndices = model.getIndexData().asIntBuffer();
+        int[] all = new int[modelIndices.remaining()];
+        modelIndices.get(all);
+        int[] offsets = new int[model.getNumLods()];
+        int[] counts = new int[model.getNumLods()];
+        for (int i = 0; i < counts.length; i++) {
+            offsets[i] = model.getLodOffset(i);
+            counts[i] = model.getLodIndexCount(i);
+        }
+        return add(model.getVertexData(), model.getNumVertices(), all, offsets, counts, model.getBounds());
+    }
+
+    /**
+     * uploads every mesh added so far, replacing the previous contents of both buffers; leaves no VAO bound
+     * @param gl current GL
+     */
+    public void upload(GL4 gl) {
+        ByteBuffer vertexData = Buffers.newDirectByteBuffer(numVertices * Mesh.STRIDE);
+        for (ByteBuffer chunk : vertexChunks) {
+            vertexData.put(chunk.duplicate());
+        }
+        vertexData.flip();
+        ByteBuffer indexData = Buffers.newDirectByteBuffer(indices.size() * 4);
+        indexData.asIntBuffer().put(indices.array(), 0, indices.size());
+
+        gl.glBindVertexArray(vao);
+        gl.glBindBuffer(GL_ARRAY_BUFFER, vertexBuffer);
+        gl.glBufferData(GL_ARRAY_BUFFER, vertexData.remaining(), vertexData, GL_STATIC_DRAW);
+        gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexData.remaining(), indexData, GL_STATIC_DRAW);
+        gl.glBindVertexArray(0);
+    }
+
+    /**
+     * creates another VAO over the pool's buffers, with its per-instance attributes read from a buffer of
+     * Mesh.INSTANCE_STRIDE records; pooled meshes draw through it unchanged
+     * @param gl current GL
+     * @param instanceBuffer buffer holding the instance records
+     * @return the VAO, left unbound
+     */
+    public int createVertexArray(GL4 gl, int instanceBuffer) {
+        int[] names = new int[1];
+        gl.glGenVertexArrays(1, names, 0);
+        gl.glBindVertexArray(names[0]);
+        gl.glBindBuffer(GL_ARRAY_BUFFER, vertexBuffer);
+        Mesh.setVertexAttributes(gl);
+        gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
+        gl.glBindBuffer(GL_ARRAY_BUFFER, instanceBuffer);
+        Mesh.setInstanceAttributes(gl);
+        gl.glBindVertexArray(0);
+        return names[0];
+    }
+
+    public int getVao() { return vao; }
+    public int getNumVertices() { return numVertices; }
+    public int getNumIndices() { return indices.size(); }
+
+    private Mesh add(ByteBuffer vertexData, int count, int[] meshIndices, int[] lodOffsets, int[] lodCounts,
+                     Bounds bounds) {
+        int firstVertex = numVertices;
+        int firstIndex = indices.size();
+        vertexChunks.add(vertexData.duplicate().order(vertexData.order()));
+        numVertices += count;
+        for (int index : meshIndices) {
+            indices.add(index + firstVertex);
+        }
+        int[] offsets = new int[lodOffsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = lodOffsets[i] + firstIndex;
+        }
+        return Mesh.createShared(vao, offsets, lodCounts.clone(), bounds);
+    }
+}
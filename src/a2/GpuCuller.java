@@ -0,0 +1,377 @@
+/**
+ * Frustum culls and draws large numbers of static GeometryPool objects without touching them on the CPU each
+ * frame. Every object's world matrix, model space bounds, mesh and layer are uploaded once to a shader storage
+ * buffer. Each frame a compute shader (cullCompShader.glsl) tests them against the frustum with the same sphere
+ * then box tests as FrustumCuller, picks a level of detail with the RenderQueue's rule and appends the survivors'
+ * model-view matrices and layers to an instance buffer, counting them into one DrawElementsIndirectCommand per
+ * mesh and level of detail. The commands are then drawn straight from the GPU buffer, with
+ * glMultiDrawElementsIndirectCountARB when GL_ARB_indirect_parameters is available and one glDrawElementsIndirect
+ * per command otherwise.
+ *
+ * Each command owns a range of the instance buffer as large as its mesh's object count, so the shader only needs
+ * one atomic counter per command. check compares the GPU's visible counts with a FrustumCuller run on the CPU;
+ * objects touching a plane may go either way on either side, as JOML and the shader round differently, so
+ * differences up to the number of such objects are reported separately and not counted as failures.
+ * The visible counts stay on the GPU, so unlike the CPU culled scene these objects are not counted in
+ * RenderStats' drawn and culled objects; reading them back every frame would stall the pipeline.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GL4;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector4f;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.jogamp.opengl.GL4.*;
+
+public class GpuCuller {
+
+    //std430 CullObject of cullCompShader.glsl: world matrix, sphere, box min and max, command, lods, layer, padding
+    private static final int OBJECT_SIZE = 16 * 4 + 3 * 4 * 4 + 4 * 4;
+    private static final int GROUP_SIZE = 64;
+
+    //objects whose frustum test changes when the planes move by this much, relative to their distance from the
+    //origin and size, are on a plane as far as float rounding is concerned
+    private static final float BOUNDARY_TOLERANCE = 1e-4f;
+
+    //shader storage bindings of the compute shader
+    private static final int OBJECTS = 0, COMMANDS = 1, INSTANCES = 2;
+
+    //pooled meshes are not packed, their positions need no decoding
+    private static final float[] NO_OFFSET = {0.0f, 0.0f, 0.0f};
+    private static final float[] NO_SCALE = {1.0f, 1.0f, 1.0f};
+
+    private final GeometryPool pool;
+    private final ShaderProgram program;
+    private final ShaderProgram drawProgram;
+    private final boolean indirectCount;
+
+    //uniform handles of the compute and the draw program
+    private final int planesLocation;
+    private final ShaderProgram.Uniform viewMatrix;
+    private final ShaderProgram.Uniform lodScale;
+    private final ShaderProgram.Uniform objectCount;
+    private final ShaderProgram.Uniform drawProjection;
+    private final ShaderProgram.Uniform drawPositionOffset;
+    private final ShaderProgram.Uniform drawPositionScale;
+
+    //objects added so far, and the first command and object count of every mesh they use
+    private final List<Mesh> objectMeshes = new ArrayList<>();
+    private final IntList objectLayers = new IntList(1024);
+    private final List<Matrix4f> objectWorlds = new ArrayList<>();
+    private final Map<Mesh, int[]> meshCommands = new LinkedHashMap<>();
+    private int numCommands;
+
+    private int objectBuffer;
+    private int commandBuffer;
+    private int instanceBuffer;
+    private int parameterBuffer;
+    private int vao;
+    private ByteBuffer commandTemplates;
+
+    private final Matrix4f viewProjection = new Matrix4f();
+    private final Vector4f plane = new Vector4f();
+    private final float[] planes = new float[6 * 4];
+
+    /**
+     * constructor
+     * @param gl current GL
+     * @param pool pool holding every mesh that will be added
+     * @param drawProgram instanced program the survivors are drawn with
+     */
+    public GpuCuller(GL4 gl, GeometryPool pool, ShaderProgram drawProgram) {
+        this.pool = pool;
+        this.program = ShaderProgram.loadCompute("a2/cullCompShader.glsl");
+        this.drawProgram = drawProgram;
+        this.indirectCount = gl.isExtensionAvailable("GL_ARB_indirect_parameters");
+        planesLocation = program.uniform("planes").getLocation();
+        viewMatrix = program.uniform("view_matrix");
+        lodScale = program.uniform("lod_scale");
+        objectCount = program.uniform("object_count");
+        drawProjection = drawProgram.uniform("proj_matrix");
+        drawPositionOffset = drawProgram.uniform("pos_offset");
+        drawPositionScale = drawProgram.uniform("pos_scale");
+        program.uniform("lod_full_detail_pixels").set(RenderQueue.LOD_FULL_DETAIL_PIXELS);
+    }
+
+    /**
+     * adds a static object, call before upload
+     * @param mesh mesh created by the pool
+     * @param layer texture array layer
+     * @param world model to world transform
+     */
+    public void add(Mesh mesh, int layer, Matrix4fc world) {
+        objectMeshes.add(mesh);
+        objectLayers.add(layer);
+        objectWorlds.add(new Matrix4f(world));
+        int[] command = meshCommands.get(mesh);
+        if (command == null) {
+            meshCommands.put(mesh, new int[]{numCommands, 1});
+            numCommands += mesh.getNumLods();
+        } else {
+            command[1]++;
+        }
+    }
+
+    /**
+     * uploads every object added, the command templates and the instance buffer; leaves no VAO bound
+     * @param gl current GL
+     */
+    public void upload(GL4 gl) {
+        int numObjects = objectMeshes.size();
+        ByteBuffer objects = Buffers.newDirectByteBuffer(Math.max(1, numObjects) * OBJECT_SIZE);
+        for (int i = 0; i < numObjects; i++) {
+            Mesh mesh = objectMeshes.get(i);
+            Bounds bounds = mesh.getBounds();
+            int offset = i * OBJECT_SIZE;
+            objectWorlds.get(i).get(offset, objects);
+            putVec4(objects, offset + 64, bounds.getCenter(), bounds.getRadius());
+            putVec4(objects, offset + 80, bounds.getMin(), 1.0f);
+            putVec4(objects, offset + 96, bounds.getMax(), 1.0f);
+            objects.putInt(offset + 112, meshCommands.get(mesh)[0]);
+            objects.putInt(offset + 116, mesh.getNumLods());
+            objects.putInt(offset + 120, objectLayers.get(i));
+        }
+
+        //every level of detail of a mesh gets a command and a range of instances as large as the mesh's objects
+        commandTemplates = Buffers.newDirectByteBuffer(Math.max(1, numCommands) * DrawIndirectBuffer.COMMAND_SIZE);
+        int numInstances = 0;
+        for (Map.Entry<Mesh, int[]> entry : meshCommands.entrySet()) {
+            Mesh mesh = entry.getKey();
+            for (int lod = 0; lod < mesh.getNumLods(); lod++) {
+                int offset = (entry.getValue()[0] + lod) * DrawIndirectBuffer.COMMAND_SIZE;
+                commandTemplates.putInt(offset, mesh.getLodCount(lod));
+                commandTemplates.putInt(offset + 4, 0);
+                commandTemplates.putInt(offset + 8, mesh.getLodOffset(lod));
+                commandTemplates.putInt(offset + 12, 0);
+                commandTemplates.putInt(offset + 16, numInstances);
+                numInstances += entry.getValue()[1];
+            }
+        }
+
+        int[] names = new int[4];
+        gl.glGenBuffers(4, names, 0);
+        objectBuffer = names[0];
+        commandBuffer = names[1];
+        instanceBuffer = names[2];
+        parameterBuffer = names[3];
+        gl.glBindBuffer(GL_SHADER_STORAGE_BUFFER, objectBuffer);
+        gl.glBufferData(GL_SHADER_STORAGE_BUFFER, objects.capacity(), objects, GL_STATIC_DRAW);
+        gl.glBindBuffer(GL_SHADER_STORAGE_BUFFER, instanceBuffer);
+        gl.glBufferData(GL_SHADER_STORAGE_BUFFER, (long) Math.max(1, numInstances) * Mesh.INSTANCE_STRIDE, null,
+                GL_DYNAMIC_COPY);
+        gl.glBindBuffer(GL_DRAW_INDIRECT_BUFFER, commandBuffer);
+        gl.glBufferData(GL_DRAW_INDIRECT_BUFFER, commandTemplates.capacity(), commandTemplates, GL_DYNAMIC_COPY);
+        if (indirectCount) {
+            ByteBuffer count = Buffers.newDirectByteBuffer(4);
+            count.putInt(0, numCommands);
+            gl.glBindBuffer(GL_PARAMETER_BUFFER_ARB, parameterBuffer);
+            gl.glBufferData(GL_PARAMETER_BUFFER_ARB, 4, count, GL_STATIC_DRAW);
+        }
+        vao = pool.createVertexArray(gl, instanceBuffer);
+        objectCount.set(numObjects);
+    }
+
+    /**
+     * runs the culling compute shader, the following draw call sees its results
+     * @param gl current GL
+     * @param state tracker of the render queue, the compute program is made current through it
+     * @param projection projection matrix
+     * @param view view matrix
+     * @param viewportHeight viewport height in pixels, for the level of detail choice
+     */
+    public void cull(GL4 gl, GLStateTracker state, Matrix4fc projection, Matrix4fc view, int viewportHeight) {
+        //the templates reset every instance count to 0
+        gl.glBindBuffer(GL_DRAW_INDIRECT_BUFFER, commandBuffer);
+        gl.glBufferSubData(GL_DRAW_INDIRECT_BUFFER, 0, commandTemplates.capacity(), commandTemplates);
+
+        setPlanes(projection, view);
+        gl.glProgramUniform4fv(program.getId(), planesLocation, 6, planes, 0);
+        viewMatrix.set(view);
+        lodScale.set(projection.m11() * viewportHeight);
+
+        state.useProgram(gl, program.getId());
+        gl.glBindBufferBase(GL_SHADER_STORAGE_BUFFER, OBJECTS, objectBuffer);
+        gl.glBindBufferBase(GL_SHADER_STORAGE_BUFFER, COMMANDS, commandBuffer);
+        gl.glBindBufferBase(GL_SHADER_STORAGE_BUFFER, INSTANCES, instanceBuffer);
+        gl.glDispatchCompute((objectMeshes.size() + GROUP_SIZE - 1) / GROUP_SIZE, 1, 1);
+        gl.glMemoryBarrier(GL_COMMAND_BARRIER_BIT | GL_VERTEX_ATTRIB_ARRAY_BARRIER_BIT);
+    }
+
+    /**
+     * draws the objects that survived the last cull
+     * @param gl current GL
+     * @param state tracker of the render queue, whose program and VAO bindings this changes
+     * @param texture array texture
+     * @param projection projection matrix
+     */
+    public void draw(GL4 gl, GLStateTracker state, int texture, Matrix4fc projection) {
+        if (numCommands == 0) {
+            return;
+        }
+        state.enable(gl, GL_DEPTH_TEST);
+        state.enable(gl, GL_CULL_FACE);
+        state.depthFunc(gl, GL_LEQUAL);
+        state.useProgram(gl, drawProgram.getId());
+        state.activeTexture(gl, GL_TEXTURE0);
+        state.bindTexture(gl, GL_TEXTURE_2D_ARRAY, texture);
+        state.bindVertexArray(gl, vao);
+        drawProjection.set(projection);
+        drawPositionOffset.set3(NO_OFFSET);
+        drawPositionScale.set3(NO_SCALE);
+        gl.glBindBuffer(GL_DRAW_INDIRECT_BUFFER, commandBuffer);
+        if (indirectCount) {
+            gl.glBindBuffer(GL_PARAMETER_BUFFER_ARB, parameterBuffer);
+            gl.glMultiDrawElementsIndirectCountARB(GL_TRIANGLES, GL_UNSIGNED_INT, 0, 0, numCommands,
+                    DrawIndirectBuffer.COMMAND_SIZE);
+        } else {
+            for (int i = 0; i < numCommands; i++) {
+                gl.glDrawElementsIndirect(GL_TRIANGLES, GL_UNSIGNED_INT, (long) i * DrawIndirectBuffer.COMMAND_SIZE);
+            }
+        }
+    }
+
+    /**
+     * reads back the last cull's commands and compares each mesh's visible objects with a FrustumCuller pass over
+     * the same objects; stalls until the GPU has finished, so only for checking
+     * @param gl current GL
+     * @param projection projection matrix of the last cull
+     * @param view view matrix of the last cull
+     * @return whether the GPU and CPU agree on every mesh, apart from objects on a frustum plane
+     */
+    public boolean check(GL4 gl, Matrix4fc projection, Matrix4fc view) {
+        gl.glMemoryBarrier(GL_BUFFER_UPDATE_BARRIER_BIT);
+        ByteBuffer commands = Buffers.newDirectByteBuffer(commandTemplates.capacity());
+        gl.glBindBuffer(GL_DRAW_INDIRECT_BUFFER, commandBuffer);
+        gl.glGetBufferSubData(GL_DRAW_INDIRECT_BUFFER, 0, commands.capacity(), commands);
+
+        FrustumCuller reference = new FrustumCuller();
+        reference.update(projection, view);
+        setPlanes(projection, view);
+        Map<Mesh, Integer> cpuVisible = new LinkedHashMap<>();
+        Map<Mesh, Integer> onPlane = new LinkedHashMap<>();
+        for (int i = 0; i < objectMeshes.size(); i++) {
+            Mesh mesh = objectMeshes.get(i);
+            Matrix4f world = objectWorlds.get(i);
+            if (reference.isVisible(mesh.getBounds(), world)) {
+                cpuVisible.merge(mesh, 1, Integer::sum);
+            }
+            if (isOnPlane(planes, mesh.getBounds(), world)) {
+                onPlane.merge(mesh, 1, Integer::sum);
+            }
+        }
+
+        boolean agree = true;
+        for (Map.Entry<Mesh, int[]> entry : meshCommands.entrySet()) {
+            Mesh mesh = entry.getKey();
+            int gpu = 0;
+            for (int lod = 0; lod < mesh.getNumLods(); lod++) {
+                gpu += commands.getInt((entry.getValue()[0] + lod) * DrawIndirectBuffer.COMMAND_SIZE + 4);
+            }
+            int cpu = cpuVisible.getOrDefault(mesh, 0);
+            int boundary = onPlane.getOrDefault(mesh, 0);
+            agree &= Math.abs(gpu - cpu) <= boundary;
+            System.out.println("gpu culling, mesh " + mesh.getId() + ": " + gpu + " visible on the GPU, "
+                    + cpu + " on the CPU, of " + entry.getValue()[1] + ", " + boundary + " on a frustum plane"
+                    + ((gpu != cpu && Math.abs(gpu - cpu) <= boundary) ? " (the difference is within those)" : ""));
+        }
+        return agree;
+    }
+
+    /**
+     * the sphere then box test of cullCompShader.glsl, with the planes moved outwards by shift
+     * @param planes six normalized planes as four floats each, pointing inwards
+     * @return whether the shader would find the object visible
+     */
+    static boolean isVisible(float[] planes, Bounds bounds, Matrix4fc world, float shift) {
+        float[] c = bounds.getCenter();
+        float cx = world.m00() * c[0] + world.m10() * c[1] + world.m20() * c[2] + world.m30();
+        float cy = world.m01() * c[0] + world.m11() * c[1] + world.m21() * c[2] + world.m31();
+        float cz = world.m02() * c[0] + world.m12() * c[1] + world.m22() * c[2] + world.m32();
+        float radius = bounds.getRadius() * maxScale(world);
+        boolean inside = true;
+        for (int i = 0; i < 24; i += 4) {
+            float d = planes[i] * cx + planes[i + 1] * cy + planes[i + 2] * cz + planes[i + 3] + shift;
+            if (d < -radius) {
+                return false;
+            }
+            inside &= d >= radius;
+        }
+        if (inside) {
+            return true;
+        }
+        float[] min = bounds.getMin(), max = bounds.getMax();
+        float bx = (min[0] + max[0]) * 0.5f, by = (min[1] + max[1]) * 0.5f, bz = (min[2] + max[2]) * 0.5f;
+        float hx = (max[0] - min[0]) * 0.5f, hy = (max[1] - min[1]) * 0.5f, hz = (max[2] - min[2]) * 0.5f;
+        float boxX = world.m00() * bx + world.m10() * by + world.m20() * bz + world.m30();
+        float boxY = world.m01() * bx + world.m11() * by + world.m21() * bz + world.m31();
+        float boxZ = world.m02() * bx + world.m12() * by + world.m22() * bz + world.m32();
+        float extentX = Math.abs(world.m00()) * hx + Math.abs(world.m10()) * hy + Math.abs(world.m20()) * hz;
+        float extentY = Math.abs(world.m01()) * hx + Math.abs(world.m11()) * hy + Math.abs(world.m21()) * hz;
+        float extentZ = Math.abs(world.m02()) * hx + Math.abs(world.m12()) * hy + Math.abs(world.m22()) * hz;
+        for (int i = 0; i < 24; i += 4) {
+            float nearest = planes[i] * boxX + planes[i + 1] * boxY + planes[i + 2] * boxZ
+                    + Math.abs(planes[i]) * extentX + Math.abs(planes[i + 1]) * extentY + Math.abs(planes[i + 2]) * extentZ;
+            if (nearest < -(planes[i + 3] + shift)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether rounding alone could decide the object's frustum test either way, so FrustumCuller and the
+     * shader may disagree on it
+     */
+    static boolean isOnPlane(float[] planes, Bounds bounds, Matrix4fc world) {
+        float[] c = bounds.getCenter();
+        float size = (bounds.getRadius() + Math.abs(c[0]) + Math.abs(c[1]) + Math.abs(c[2])) * maxScale(world);
+        float tolerance = BOUNDARY_TOLERANCE
+                * (1.0f + Math.abs(world.m30()) + Math.abs(world.m31()) + Math.abs(world.m32()) + size);
+        return isVisible(planes, bounds, world, tolerance) != isVisible(planes, bounds, world, -tolerance);
+    }
+
+    /**
+     * @return the largest scale of the world matrix' axes, as the shader scales the bounding sphere
+     */
+    private static float maxScale(Matrix4fc world) {
+        return Math.max(length(world.m00(), world.m01(), world.m02()),
+                Math.max(length(world.m10(), world.m11(), world.m12()), length(world.m20(), world.m21(), world.m22())));
+    }
+
+    private static float length(float x, float y, float z) {
+        return (float) Math.sqrt(x * x + y * y + z * z);
+    }
+
+    private void setPlanes(Matrix4fc projection, Matrix4fc view) {
+        projection.mul(view, viewProjection);
+        for (int i = 0; i < 6; i++) {
+            viewProjection.frustumPlane(i, plane);
+            planes[i * 4] = plane.x;
+            planes[i * 4 + 1] = plane.y;
+            planes[i * 4 + 2] = plane.z;
+            planes[i * 4 + 3] = plane.w;
+        }
+    }
+
+    public int getNumObjects() { return objectMeshes.size(); }
+    public int getNumCommands() { return numCommands; }
+
+    private static void putVec4(ByteBuffer buffer, int offset, float[] xyz, float w) {
+        buffer.putFloat(offset, xyz[0]);
+        buffer.putFloat(offset + 4, xyz[1]);
+        buffer.putFloat(offset + 8, xyz[2]);
+        buffer.putFloat(offset + 12, w);
+    }
+}
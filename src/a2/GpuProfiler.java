@@ -0,0 +1,267 @@
+/**
+ * Times named sections of a frame on both the CPU and the GPU. Every begin and end records System.nanoTime and
+ * issues a glQueryCounter(GL_TIMESTAMP) query; sections may nest. The queries of a frame are only read back
+ * FRAMES frames later, when the GPU has long finished them, so profiling never stalls the pipeline; a frame
+ * whose queries are still not available by then is dropped rather than waited for.
+ *
+ * Timestamp pairs are used instead of GL_TIME_ELAPSED queries because those cannot nest or overlap, and
+ * timestamps also place every section on a common GPU timeline for the trace.
+ *
+ * Read back sections are averaged per name for getReport, and with a trace file set every section is also kept
+ * as a CPU and a GPU event for a Chrome trace (chrome://tracing or Perfetto), written by writeTrace. GPU times
+ * are moved onto the CPU clock with an offset measured once through glGetInteger64v(GL_TIMESTAMP).
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL4;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.jogamp.opengl.GL4.*;
+
+public class GpuProfiler {
+
+    //frames between issuing queries and reading them back
+    private static final int FRAMES = 4;
+    //events kept for the trace, about a minute of frames with a handful of sections each
+    private static final int MAX_TRACE_EVENTS = 200_000;
+
+    private final boolean enabled;
+    private final File traceFile;
+
+    //the sections of each in-flight frame, and their query objects; slots are reused FRAMES frames later
+    private final Frame[] frames = new Frame[FRAMES];
+    private int frame;
+    private int frameNumber;
+    private final IntList open = new IntList(8);
+
+    private long gpuToCpuOffset;
+    private boolean calibrated;
+    private int dropped;
+
+    //averages of the read back sections since the last report, by name in first-seen order
+    private final Map<String, double[]> totals = new LinkedHashMap<>();
+    private int reportFrames;
+
+    private final List<String> traceEvents = new ArrayList<>();
+
+    /**
+     * constructor
+     * @param enabled whether to time anything; a disabled profiler ignores every call
+     * @param traceFile file writeTrace writes to, or null to keep no trace
+     */
+    public GpuProfiler(boolean enabled, File traceFile) {
+        this.enabled = enabled;
+        this.traceFile = traceFile;
+        for (int i = 0; i < FRAMES; i++) {
+            frames[i] = new Frame();
+        }
+    }
+
+    /**
+     * @return a profiler enabled by -Da2.profile, tracing to -Da2.trace if set
+     */
+    public static GpuProfiler fromProperties() {
+        String trace = System.getProperty("a2.trace");
+        return new GpuProfiler(Boolean.getBoolean("a2.profile") || trace != null,
+                (trace != null) ? new File(trace) : null);
+    }
+
+    /**
+     * starts a section, ended by the matching end
+     * @param gl current GL
+     * @param name section name
+     */
+    public void begin(GL4 gl, String name) {
+        if (!enabled) {
+            return;
+        }
+        Frame current = frames[frame];
+        int section = current.names.size();
+        current.names.add(name);
+        current.depth.add(open.size());
+        current.setCpu(section * 2, System.nanoTime());
+        current.last = current.query(gl, section * 2);
+        gl.glQueryCounter(current.last, GL_TIMESTAMP);
+        open.add(section);
+    }
+
+    /**
+     * ends the innermost open section
+     * @param gl current GL
+     */
+    public void end(GL4 gl) {
+        if (!enabled) {
+            return;
+        }
+        Frame current = frames[frame];
+        int section = open.removeLast();
+        current.setCpu(section * 2 + 1, System.nanoTime());
+        current.last = current.query(gl, section * 2 + 1);
+        gl.glQueryCounter(current.last, GL_TIMESTAMP);
+    }
+
+    /**
+     * closes the frame and reads back the one issued FRAMES frames ago, whose slot it reuses
+     * @param gl current GL
+     */
+    public void endFrame(GL4 gl) {
+        if (!enabled) {
+            return;
+        }
+        if (!calibrated) {
+            long[] gpuNow = new long[1];
+            gl.glGetInteger64v(GL_TIMESTAMP, gpuNow, 0);
+            gpuToCpuOffset = System.nanoTime() - gpuNow[0];
+            calibrated = true;
+        }
+        frame = (frame + 1) % FRAMES;
+        frameNumber++;
+        Frame oldest = frames[frame];
+        if (!oldest.names.isEmpty()) {
+            readBack(gl, oldest);
+            oldest.clear();
+        }
+    }
+
+    /**
+     * @return one line per section with its average CPU and GPU milliseconds per frame since the last call,
+     * nested sections indented; empty until the first frames have been read back
+     */
+    public List<String> getReport() {
+        List<String> lines = new ArrayList<>();
+        if (reportFrames == 0) {
+            return lines;
+        }
+        lines.add(String.format("%-20s %8s %8s", "section", "cpu ms", "gpu ms"));
+        for (Map.Entry<String, double[]> entry : totals.entrySet()) {
+            double[] total = entry.getValue();
+            lines.add(String.format("%-20s %8.3f %8.3f", "  ".repeat((int) total[2]) + entry.getKey(),
+                    total[0] / reportFrames / 1e6, total[1] / reportFrames / 1e6));
+            total[0] = 0;
+            total[1] = 0;
+        }
+        if (dropped > 0) {
+            lines.add(dropped + " frames dropped, queries not ready");
+        }
+        reportFrames = 0;
+        return lines;
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * writes every recorded section as a Chrome trace, CPU sections on one track and GPU sections on another;
+     * does nothing without a trace file
+     */
+    public void writeTrace() {
+        if (traceFile == null) {
+            return;
+        }
+        synchronized (traceEvents) {
+            try (PrintWriter out = new PrintWriter(traceFile, "UTF-8")) {
+                out.println("{\"traceEvents\":[");
+                out.println("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":1,\"args\":{\"name\":\"CPU\"}},");
+                out.print("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":2,\"args\":{\"name\":\"GPU\"}}");
+                for (String event : traceEvents) {
+                    out.println(",");
+                    out.print(event);
+                }
+                out.println();
+                out.println("],\"displayTimeUnit\":\"ms\"}");
+            } catch (IOException e) {
+                System.err.println("could not write trace " + traceFile + ": " + e.getMessage());
+                return;
+            }
+        }
+        System.out.println("trace written to " + traceFile.getAbsolutePath());
+    }
+
+    private void readBack(GL4 gl, Frame old) {
+        int queries = old.names.size() * 2;
+        int[] available = new int[1];
+        //queries finish in order, once the last one issued is available they all are
+        gl.glGetQueryObjectiv(old.last, GL_QUERY_RESULT_AVAILABLE, available, 0);
+        if (available[0] == 0) {
+            dropped++;
+            return;
+        }
+        long[] gpu = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            gl.glGetQueryObjectui64v(old.queries.get(i), GL_QUERY_RESULT, gpu, i);
+        }
+        for (int section = 0; section < old.names.size(); section++) {
+            String name = old.names.get(section);
+            long cpuStart = old.cpu[section * 2], cpuEnd = old.cpu[section * 2 + 1];
+            long gpuStart = gpu[section * 2], gpuEnd = gpu[section * 2 + 1];
+            double[] total = totals.computeIfAbsent(name, key -> new double[3]);
+            total[0] += cpuEnd - cpuStart;
+            total[1] += gpuEnd - gpuStart;
+            total[2] = old.depth.get(section);
+            if (traceFile != null) {
+                trace(name, 1, cpuStart, cpuEnd);
+                trace(name, 2, gpuStart + gpuToCpuOffset, gpuEnd + gpuToCpuOffset);
+            }
+        }
+        reportFrames++;
+    }
+
+    private void trace(String name, int track, long start, long end) {
+        synchronized (traceEvents) {
+            if (traceEvents.size() < MAX_TRACE_EVENTS) {
+                traceEvents.add(String.format(Locale.ROOT, "{\"name\":\"%s\",\"ph\":\"X\",\"pid\":1,\"tid\":%d,\"ts\":%.3f,"
+                        + "\"dur\":%.3f,\"args\":{\"frame\":%d}}", name, track, start / 1e3, (end - start) / 1e3,
+                        frameNumber - FRAMES));
+            }
+        }
+    }
+
+    /**
+     * the sections of one frame: names, nesting depth, CPU begin and end times, two query objects each and the
+     * query issued last
+     */
+    private static final class Frame {
+
+        final List<String> names = new ArrayList<>();
+        final IntList depth = new IntList(8);
+        final IntList queries = new IntList(16);
+        long[] cpu = new long[16];
+        int last;
+
+        void setCpu(int index, long time) {
+            if (index >= cpu.length) {
+                cpu = Arrays.copyOf(cpu, Math.max(index + 1, cpu.length * 2));
+            }
+            cpu[index] = time;
+        }
+
+        /**
+         * @return the frame's query object at the index, generated on first use and reused afterwards
+         */
+        int query(GL4 gl, int index) {
+            while (queries.size() <= index) {
+                int[] name = new int[1];
+                gl.glGenQueries(1, name, 0);
+                queries.add(name[0]);
+            }
+            return queries.get(index);
+        }
+
+        void clear() {
+            names.clear();
+            depth.clear();
+        }
+    }
+}
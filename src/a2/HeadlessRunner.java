@@ -0,0 +1,141 @@
+/**
+ * Renders the scene without a window for automated benchmarks and image comparisons. Starter draws into a JOGL
+ * offscreen drawable (an FBO or pbuffer, whatever the driver offers; Mesa's llvmpipe works without any display
+ * hardware) for a fixed number of frames. Time comes from a FixedStepClock advanced by one frame period before
+ * every frame, so the same build always draws the same frames however long they take.
+ *
+ * Each frame is timed from the start of display to the end of a glFinish, so the time includes the GPU work.
+ * The times are written to frames.csv in the output directory and summarized with a FrameTimeHistogram.
+ * Every captureEvery frames the color buffer is also saved as frame_NNNNN.png.
+ *
+ * Configured by -Da2.frames (300), -Da2.width and -Da2.height (600), -Da2.fps (60, the clock step),
+ * -Da2.captureEvery (0, no captures) and -Da2.output (headless-output).
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GLAutoDrawable;
+import com.jogamp.opengl.GLCapabilities;
+import com.jogamp.opengl.GLDrawableFactory;
+import com.jogamp.opengl.GLEventListener;
+import com.jogamp.opengl.GLOffscreenAutoDrawable;
+import com.jogamp.opengl.GLProfile;
+import com.jogamp.opengl.util.GLReadBufferUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+
+public class HeadlessRunner implements GLEventListener {
+
+    private final int frames;
+    private final int width;
+    private final int height;
+    private final int captureEvery;
+    private final File output;
+    private final FixedStepClock clock;
+
+    private final FrameTimeHistogram histogram = new FrameTimeHistogram();
+    private final GLReadBufferUtil screenshot = new GLReadBufferUtil(false, false);
+    private int frame;
+    private long frameEnd;
+
+    /**
+     * constructor
+     * @param frames frames to draw after the first one, which also loads everything
+     * @param width drawable width
+     * @param height drawable height
+     * @param fps frames per second of simulated time
+     * @param captureEvery save every captureEvery-th frame as a PNG, 0 for none
+     * @param output directory for frames.csv and the captures
+     */
+    public HeadlessRunner(int frames, int width, int height, int fps, int captureEvery, File output) {
+        this.frames = frames;
+        this.width = width;
+        this.height = height;
+        this.captureEvery = captureEvery;
+        this.output = output;
+        this.clock = new FixedStepClock(1_000_000_000L / fps);
+    }
+
+    /**
+     * @return a runner configured by the -Da2 properties listed above
+     */
+    public static HeadlessRunner fromProperties() {
+        return new HeadlessRunner(Integer.getInteger("a2.frames", 300), Integer.getInteger("a2.width", 600),
+                Integer.getInteger("a2.height", 600), Integer.getInteger("a2.fps", 60),
+                Integer.getInteger("a2.captureEvery", 0), new File(System.getProperty("a2.output", "headless-output")));
+    }
+
+    /**
+     * draws every frame and writes the results
+     */
+    public void run() {
+        if (!output.isDirectory() && !output.mkdirs()) {
+            throw new UncheckedIOException(new IOException("cannot create " + output));
+        }
+        GLProfile profile = GLProfile.get(GLProfile.GL4);
+        GLCapabilities capabilities = new GLCapabilities(profile);
+        capabilities.setOnscreen(false);
+        GLOffscreenAutoDrawable drawable = GLDrawableFactory.getFactory(profile)
+                .createOffscreenAutoDrawable(null, capabilities, null, width, height);
+        Starter starter = new Starter(clock);
+        drawable.addGLEventListener(starter);
+        //added after the scene, so its display runs once the frame has been drawn
+        drawable.addGLEventListener(this);
+
+        //the first frame loads the assets, it is drawn but not measured
+        drawable.display();
+        try (PrintWriter csv = new PrintWriter(new File(output, "frames.csv"), "UTF-8")) {
+            csv.println("frame,ms");
+            for (frame = 1; frame <= frames; frame++) {
+                clock.advance();
+                long start = System.nanoTime();
+                drawable.display();
+                long frameTime = frameEnd - start;
+                histogram.record(frameTime);
+                csv.printf("%d,%.3f%n", frame, frameTime / 1e6);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            drawable.destroy();
+        }
+        System.out.println("headless " + width + "x" + height + ": " + histogram.summary());
+        System.out.println("frame times written to " + new File(output, "frames.csv").getAbsolutePath());
+    }
+
+    public FrameTimeHistogram getHistogram() { return histogram; }
+
+    @Override
+    public void init(GLAutoDrawable drawable) {
+        System.out.println("headless drawable: " + drawable.getChosenGLCapabilities() + ", "
+                + drawable.getGL().glGetString(GL.GL_RENDERER));
+    }
+
+    @Override
+    public void dispose(GLAutoDrawable drawable) {
+        screenshot.dispose(drawable.getGL());
+    }
+
+    /**
+     * ends the frame's timing once the GPU is done, then captures it if it is due
+     */
+    @Override
+    public void display(GLAutoDrawable drawable) {
+        GL gl = drawable.getGL();
+        gl.glFinish();
+        frameEnd = System.nanoTime();
+        if (captureEvery > 0 && frame > 0 && frame % captureEvery == 0 && screenshot.readPixels(gl, false)) {
+            screenshot.write(new File(output, String.format("frame_%05d.png", frame)));
+        }
+    }
+
+    @Override
+    public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height) {}
+}
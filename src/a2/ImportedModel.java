@@ -1,157 +1,244 @@
 package a2;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32C;
+import com.jogamp.common.nio.Buffers;
 import org.joml.*;
 
 public class ImportedModel
 {
+	// OBJ files at least this large are parsed in parallel chunks
+	private static final int PARALLEL_PARSE_SIZE = 8 * 1024 * 1024;
+
+	// triangle count of each simplified level relative to the full mesh, level 0 is the full mesh
+	private static final float[] LOD_RATIOS = { 0.5f, 0.25f, 0.125f };
+
 	private Vector3f[] vertices;
 	private Vector2f[] texCoords;
 	private Vector3f[] normals;
 	private int numVertices;
+	private int numIndices;
+
+	// first index and index count of every level of detail within indexData
+	private int[] lodOffsets;
+	private int[] lodCounts;
 
 	float[] pValues;
 	float[] tValues;
 	float[] nValues;
+	int[] indices;
+
+	// interleaved vertex data and index data as handed to glBufferData, either direct buffers or slices of a
+	// mapped cache file; the index data holds every level of detail one after the other
+	private ByteBuffer vertexData;
+	private ByteBuffer indexData;
+	private Bounds bounds;
 
 
 
 
 	public ImportedModel(String filename)
-	{	ModelImporter modelImporter = new ModelImporter();
-		try
-		{	modelImporter.parseOBJ(filename);
-			numVertices   = modelImporter.getNumVertices();
-			float[] verts = modelImporter.getVertices();
-			float[] tcs   = modelImporter.getTextureCoordinates();
-			float[] norm  = modelImporter.getNormals();
+	{	try
+		{	InputStream input = ImportedModel.class.getResourceAsStream(filename);
+			if (input == null) throw new IOException("model not found: " + filename);
+			byte[] source;
+			try (InputStream in = input) { source = in.readAllBytes(); }
+			CRC32C crc = new CRC32C();
+			crc.update(source, 0, source.length);
+			int sourceCrc = (int) crc.getValue();
+
+			File cacheFile = MeshCache.cacheFile(filename);
+			MeshCache.Entry cached = null;
+			if (MeshCache.isEnabled())
+			{	try
+				{	cached = MeshCache.read(cacheFile, source.length, sourceCrc);
+				} catch (IOException e)
+				{	System.err.println("could not read mesh cache " + cacheFile + ", parsing instead: " + e);
+				}
+			}
+			if (cached != null)
+			{	setupFromCache(cached);
+				return;
+			}
 
-			vertices = new Vector3f[numVertices];
-			texCoords = new Vector2f[numVertices];
-			normals = new Vector3f[numVertices];
-			
-			for(int i=0; i<vertices.length; i++)
-			{	vertices[i] = new Vector3f();
-				vertices[i].set(verts[i*3], verts[i*3+1], verts[i*3+2]);
-				texCoords[i] = new Vector2f();
-				texCoords[i].set(tcs[i*2], tcs[i*2+1]);
-				normals[i] = new Vector3f();
-				normals[i].set(norm[i*3], norm[i*3+1], norm[i*3+2]);
+			ObjParser parser;
+			if (source.length >= PARALLEL_PARSE_SIZE)
+			{	ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+				parser = ObjParser.parseParallel(source, pool);
+			}
+			else
+			{	parser = new ObjParser();
+				parser.parse(source);
+			}
+			setupFloatBuffers(parser);
+			setupDirectBuffers();
+			if (MeshCache.isEnabled())
+			{	try
+				{	MeshCache.write(cacheFile, source.length, sourceCrc, new MeshCache.Entry(numVertices, lodCounts,
+							vertexData, indexData));
+				} catch (IOException e)
+				{	System.err.println("could not write mesh cache " + cacheFile + ": " + e);
+				}
 			}
 		} catch (IOException e)
 		{ e.printStackTrace();
+		}
 	}
-	setupFloatBuffers();
 
+	private void setupFromCache(MeshCache.Entry mesh)
+	{	numVertices = mesh.numVertices;
+		lodCounts   = mesh.lodCounts;
+		numIndices  = lodCounts[0];
+		vertexData  = mesh.vertices;
+		indexData   = mesh.indices;
+		bounds      = Bounds.fromVertexData(vertexData);
+		setupLodOffsets();
+	}
 
+	private void setupDirectBuffers()
+	{	vertexData = Mesh.interleave(pValues, tValues, nValues);
+		bounds = Bounds.fromPositions(pValues);
+		int[][] lods = buildLods();
+		lodCounts = new int[lods.length + 1];
+		lodCounts[0] = indices.length;
+		for (int i = 0; i < lods.length; i++) lodCounts[i + 1] = lods[i].length;
+		setupLodOffsets();
+
+		int total = lodOffsets[lods.length] + lodCounts[lods.length];
+		indexData = Buffers.newDirectByteBuffer(total*4);
+		IntBuffer ints = indexData.asIntBuffer();
+		ints.put(indices);
+		for (int[] lod : lods) ints.put(lod);
 	}
 
-	private void setupFloatBuffers(){
-		pValues = new float[numVertices*3];
-		tValues = new float[numVertices*2];
-		nValues = new float[numVertices*3];
-
-		for (int i = 0; i < numVertices; i++){
-			pValues[i*3] = (float) (vertices[i]).x();
-			pValues[i*3+1] = (float) (vertices[i]).y();
-			pValues[i*3+2] = (float) (vertices[i]).z();
-			tValues[i*2] = (float) (texCoords[i]).x();
-			tValues[i*2+1] = (float) (texCoords[i]).y();
-			nValues[i*3] = (float) (normals[i]).x();
-			nValues[i*+1] = (float) (normals[i]).y();
-			nValues[i*3+2] = (float) (normals[i]).z();
+	private void setupLodOffsets()
+	{	lodOffsets = new int[lodCounts.length];
+		for (int i = 1; i < lodCounts.length; i++) lodOffsets[i] = lodOffsets[i - 1] + lodCounts[i - 1];
+	}
+
+	// simplifies the deduplicated mesh into the levels of LOD_RATIOS, all sharing its vertices
+	private int[][] buildLods()
+	{	float[] interleaved = Mesh.deinterleave(vertexData, 0, Mesh.FLOATS_PER_VERTEX);
+		return new MeshSimplifier(interleaved, indices).buildLevels(LOD_RATIOS);
+	}
+
+	// builds one vertex per unique (v, vt, vn) triple and an index per triangle corner
+	private void setupFloatBuffers(ObjParser parser){
+		float[] verts = parser.getPositions().array();
+		float[] tcs   = parser.getTexCoords().array();
+		float[] norm  = parser.getNormals().array();
+		int[] corners = parser.getCorners().array();
+		numIndices    = parser.getNumCorners();
+
+		VertexIndexMap uniqueVertices = new VertexIndexMap(numIndices / 2);
+		FloatList p = new FloatList(numIndices*3);
+		FloatList t = new FloatList(numIndices*2);
+		FloatList n = new FloatList(numIndices*3);
+		indices = new int[numIndices];
+
+		for (int i = 0; i < numIndices; i++){
+			int vertRef = corners[i*3];
+			int tcRef   = corners[i*3+1];
+			int normRef = corners[i*3+2];
+
+			int index = uniqueVertices.getOrAdd(vertRef, tcRef, normRef);
+			if (index < 0)
+			{	index = -(index + 1);
+				p.add(verts[vertRef*3]);
+				p.add(verts[vertRef*3+1]);
+				p.add(verts[vertRef*3+2]);
+				t.add(tcRef >= 0 ? tcs[tcRef*2] : 0.0f);
+				t.add(tcRef >= 0 ? tcs[tcRef*2+1] : 0.0f);
+				n.add(normRef >= 0 ? norm[normRef*3] : 0.0f);
+				n.add(normRef >= 0 ? norm[normRef*3+1] : 0.0f);
+				n.add(normRef >= 0 ? norm[normRef*3+2] : 0.0f);
+			}
+			indices[i] = index;
 		}
+
+		numVertices = uniqueVertices.size();
+		pValues = p.toArray();
+		tValues = t.toArray();
+		nValues = n.toArray();
 	}
 
 
 	public int getNumVertices() { return numVertices; }
-	public Vector3f[] getVertices() { return vertices; }
-	public Vector2f[] getTexCoords() { return texCoords; }	
-	public Vector3f[] getNormals() { return normals; }
-	public float[] getPValues() {return pValues;}
-	public float[] getTValues() {return tValues;}
-	public float[] getNValues() {return nValues;}
-
-	private class ModelImporter
-	{	// values as read from OBJ file
-		private ArrayList<Float> vertVals = new ArrayList<Float>();
-		private ArrayList<Float> triangleVerts = new ArrayList<Float>(); 
-		private ArrayList<Float> textureCoords = new ArrayList<Float>();
-
-		// values stored for later use as vertex attributes
-		private ArrayList<Float> stVals = new ArrayList<Float>();
-		private ArrayList<Float> normals = new ArrayList<Float>();
-		private ArrayList<Float> normVals = new ArrayList<Float>();
-
-		public void parseOBJ(String filename) throws IOException
-		{	InputStream input = ModelImporter.class.getResourceAsStream(filename);
-			BufferedReader br = new BufferedReader(new InputStreamReader(input));
-			String line;
-			while ((line = br.readLine()) != null)
-			{	if(line.startsWith("v "))			// vertex position ("v" case)
-				{	for(String s : (line.substring(2)).split(" "))
-					{	vertVals.add(Float.valueOf(s));
-				}	}
-				else if(line.startsWith("vt"))			// texture coordinates ("vt" case)
-				{	for(String s : (line.substring(3)).split(" "))
-					{	stVals.add(Float.valueOf(s));
-				}	}
-				else if(line.startsWith("vn"))			// vertex normals ("vn" case)
-				{	for(String s : (line.substring(3)).split(" "))
-					{	normVals.add(Float.valueOf(s));
-				}	}
-				else if(line.startsWith("f"))			// triangle faces ("f" case)
-				{	for(String s : (line.substring(2)).split(" "))
-					{	String v = s.split("/")[0];
-						String vt = s.split("/")[1];
-						String vn = s.split("/")[2];
-	
-						int vertRef = (Integer.valueOf(v)-1)*3;
-						int tcRef   = (Integer.valueOf(vt)-1)*2;
-						int normRef = (Integer.valueOf(vn)-1)*3;
-	
-						triangleVerts.add(vertVals.get(vertRef));
-						triangleVerts.add(vertVals.get((vertRef)+1));
-						triangleVerts.add(vertVals.get((vertRef)+2));
-
-						textureCoords.add(stVals.get(tcRef));
-						textureCoords.add(stVals.get(tcRef+1));
-	
-						normals.add(normVals.get(normRef));
-						normals.add(normVals.get(normRef+1));
-						normals.add(normVals.get(normRef+2));
-			}	}	}
-			input.close();
+	public int getNumIndices() { return numIndices; }
+	public int getNumLods() { return lodCounts.length; }
+	public int getLodOffset(int lod) { return lodOffsets[lod]; }
+	public int getLodIndexCount(int lod) { return lodCounts[lod]; }
+	public ByteBuffer getVertexData() { return vertexData.duplicate().order(vertexData.order()); }
+	public ByteBuffer getIndexData() { return indexData.duplicate().order(indexData.order()); }
+	public Bounds getBounds() { return bounds; }
+
+	// the arrays are copied out of the buffers on first use when the model came from the cache
+	public int[] getIndices()
+	{	if (indices == null)
+		{	indices = new int[numIndices];
+			getIndexData().asIntBuffer().get(indices);
 		}
+		return indices;
+	}
 
-		public int getNumVertices() { return (triangleVerts.size()/3); }
+	public float[] getPValues()
+	{	if (pValues == null)
+		{	pValues = Mesh.deinterleave(vertexData, 0, 3);
+		}
+		return pValues;
+	}
 
-		public float[] getVertices()
-		{	float[] p = new float[triangleVerts.size()];
-			for(int i = 0; i < triangleVerts.size(); i++)
-			{	p[i] = triangleVerts.get(i);
+	public float[] getTValues()
+	{	if (tValues == null)
+		{	tValues = Mesh.deinterleave(vertexData, 3, 2);
+		}
+		return tValues;
+	}
+
+	public float[] getNValues()
+	{	if (nValues == null)
+		{	nValues = Mesh.deinterleave(vertexData, 5, 3);
+		}
+		return nValues;
+	}
+
+	// the vector views are only built when asked for, loading a model never needs them
+	public Vector3f[] getVertices()
+	{	if (vertices == null)
+		{	float[] p = getPValues();
+			vertices = new Vector3f[numVertices];
+			for (int i = 0; i < numVertices; i++)
+			{	vertices[i] = new Vector3f(p[i*3], p[i*3+1], p[i*3+2]);
 			}
-			return p;
 		}
+		return vertices;
+	}
 
-		public float[] getTextureCoordinates()
-		{	float[] t = new float[(textureCoords.size())];
-			for(int i = 0; i < textureCoords.size(); i++)
-			{	t[i] = textureCoords.get(i);
+	public Vector2f[] getTexCoords()
+	{	if (texCoords == null)
+		{	float[] t = getTValues();
+			texCoords = new Vector2f[numVertices];
+			for (int i = 0; i < numVertices; i++)
+			{	texCoords[i] = new Vector2f(t[i*2], t[i*2+1]);
 			}
-			return t;
 		}
-	
-		public float[] getNormals()
-		{	float[] n = new float[(normals.size())];
-			for(int i = 0; i < normals.size(); i++)
-			{	n[i] = normals.get(i);
+		return texCoords;
+	}
+
+	public Vector3f[] getNormals()
+	{	if (normals == null)
+		{	float[] n = getNValues();
+			normals = new Vector3f[numVertices];
+			for (int i = 0; i < numVertices; i++)
+			{	normals[i] = new Vector3f(n[i*3], n[i*3+1], n[i*3+2]);
 			}
-			return n;
-		}	
+		}
+		return normals;
 	}
 }
@@ -0,0 +1,66 @@
+/**
+ * Growable list of primitive ints, used for face indices and other index data so values are never boxed
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import java.util.Arrays;
+
+public class IntList {
+
+    private int[] values;
+    private int size;
+
+    /**
+     * constructor
+     * @param initialCapacity number of ints the list can hold before growing
+     */
+    public IntList(int initialCapacity) {
+        values = new int[Math.max(initialCapacity, 4)];
+    }
+
+    /**
+     * constructor, takes ownership of an already filled array
+     * @param values backing array, all of it counts as content
+     */
+    public IntList(int[] values) {
+        this.values = values;
+        this.size = values.length;
+    }
+
+    /**
+     * appends a value, doubling the backing array when it is full
+     * @param value value to append
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(size * 2, 4));
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * removes the last value
+     * @return the value removed
+     */
+    public int removeLast() {
+        return values[--size];
+    }
+
+    public int get(int index) { return values[index]; }
+    public int size() { return size; }
+    public void clear() { size = 0; }
+
+    /**
+     * @return the backing array, valid up to size(), without copying it
+     */
+    public int[] array() { return values; }
+
+    /**
+     * @return a copy of the values trimmed to size()
+     */
+    public int[] toArray() { return Arrays.copyOf(values, size); }
+}
@@ -0,0 +1,300 @@
+/**
+ * A drawable mesh: index ranges into the interleaved position/texture coordinate/normal buffers and VAO a
+ * GeometryPool shares between its meshes, an imported model uploaded in the smaller PackedVertices format with
+ * buffers and a VAO of its own, or a procedural mesh whose vertices the shader generates. All attribute state is recorded in the VAO at
+ * load time, so drawing is a single VAO bind followed by the draw call. Packed positions are decoded by the
+ * vertex shader with the mesh's offset and scale.
+ * Imported models carry their simplified levels of detail as further index ranges in the same index buffer.
+ * For instanced drawing the VAO can also be given per-instance model-view matrix and layer attributes.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GL4;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jogamp.opengl.GL4.*;
+
+public class Mesh {
+
+    //attribute locations shared by the vertex shaders
+    public static final int POSITION = 0;
+    public static final int TEX_COORD = 1;
+    public static final int NORMAL = 2;
+
+    //interleaved layout: 3 position, 2 texture coordinate and 3 normal floats per vertex
+    public static final int FLOATS_PER_VERTEX = 8;
+    public static final int STRIDE = FLOATS_PER_VERTEX * 4;
+
+    //per-instance attributes: a model-view matrix in locations 3 to 6 and an int texture layer
+    public static final int INSTANCE_MODEL_VIEW = 3;
+    public static final int INSTANCE_LAYER = 7;
+    public static final int INSTANCE_STRIDE = 16 * 4 + 4;
+
+    private static final float[] NO_OFFSET = {0.0f, 0.0f, 0.0f};
+    private static final float[] NO_SCALE = {1.0f, 1.0f, 1.0f};
+
+    //ids tell apart meshes that share a VAO
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final int id = NEXT_ID.incrementAndGet();
+    private final int vao;
+    private final int mode;
+    private final int count;
+    private final boolean indexed;
+
+    //position decoding for the vertex shader, pos_offset + pos * pos_scale
+    private float[] positionOffset = NO_OFFSET;
+    private float[] positionScale = NO_SCALE;
+
+    //first index and index count of each level of detail, level 0 is the whole mesh
+    private int[] lodOffsets;
+    private int[] lodCounts;
+
+    //model space bounding box and sphere
+    private Bounds bounds;
+
+    private Mesh(int vao, int mode, int count, boolean indexed) {
+        this.vao = vao;
+        this.mode = mode;
+        this.count = count;
+        this.indexed = indexed;
+        lodOffsets = new int[]{0};
+        lodCounts = new int[]{count};
+    }
+
+    /**
+     * uploads an imported model in the 16 byte packed vertex format and prints the quantization error
+     * @param gl current GL
+     * @param model loaded model
+     * @param name name used in the error report
+     * @return the uploaded mesh
+     */
+    public static Mesh createPacked(GL4 gl, ImportedModel model, String name) {
+        PackedVertices packed = new PackedVertices(model.getVertexData());
+        System.out.println(packed.report(name));
+
+        int[] vao = new int[1];
+        int[] buffers = new int[2];
+        gl.glGenVertexArrays(1, vao, 0);
+        gl.glGenBuffers(2, buffers, 0);
+        gl.glBindVertexArray(vao[0]);
+
+        ByteBuffer vertexData = packed.getData();
+        gl.glBindBuffer(GL_ARRAY_BUFFER, buffers[0]);
+        gl.glBufferData(GL_ARRAY_BUFFER, vertexData.remaining(), vertexData, GL_STATIC_DRAW);
+        gl.glVertexAttribPointer(POSITION, 3, GL_UNSIGNED_SHORT, true, PackedVertices.STRIDE, 0);
+        gl.glEnableVertexAttribArray(POSITION);
+        if (packed.hasHalfFloatTexCoords()) {
+            gl.glVertexAttribPointer(TEX_COORD, 2, GL_HALF_FLOAT, false, PackedVertices.STRIDE,
+                    PackedVertices.TEX_COORD_OFFSET);
+        } else {
+            gl.glVertexAttribPointer(TEX_COORD, 2, GL_UNSIGNED_SHORT, true, PackedVertices.STRIDE,
+                    PackedVertices.TEX_COORD_OFFSET);
+        }
+        gl.glEnableVertexAttribArray(TEX_COORD);
+        gl.glVertexAttribPointer(NORMAL, 4, GL_INT_2_10_10_10_REV, true, PackedVertices.STRIDE,
+                PackedVertices.NORMAL_OFFSET);
+        gl.glEnableVertexAttribArray(NORMAL);
+
+        ByteBuffer indexData = model.getIndexData();
+        gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, buffers[1]);
+        gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexData.remaining(), indexData, GL_STATIC_DRAW);
+        gl.glBindVertexArray(0);
+
+        Mesh mesh = new Mesh(vao[0], GL_TRIANGLES, model.getNumIndices(), true);
+        mesh.positionOffset = packed.getPositionOffset();
+        mesh.positionScale = packed.getPositionScale();
+        mesh.setLods(model);
+        mesh.bounds = model.getBounds();
+        return mesh;
+    }
+
+    /**
+     * creates a mesh drawing index ranges of buffers it shares with other meshes, see GeometryPool
+     * @param vao shared VAO with the interleaved layout and an index buffer
+     * @param lodOffsets first index of each level of detail
+     * @param lodCounts index count of each level of detail
+     * @param bounds model space bounds
+     * @return the mesh
+     */
+    static Mesh createShared(int vao, int[] lodOffsets, int[] lodCounts, Bounds bounds) {
+        Mesh mesh = new Mesh(vao, GL_TRIANGLES, lodCounts[0], true);
+        mesh.lodOffsets = lodOffsets;
+        mesh.lodCounts = lodCounts;
+        mesh.bounds = bounds;
+        return mesh;
+    }
+
+    /**
+     * points the attributes of the bound VAO at the interleaved layout in the bound GL_ARRAY_BUFFER
+     */
+    static void setVertexAttributes(GL4 gl) {
+        gl.glVertexAttribPointer(POSITION, 3, GL_FLOAT, false, STRIDE, 0);
+        gl.glEnableVertexAttribArray(POSITION);
+        gl.glVertexAttribPointer(TEX_COORD, 2, GL_FLOAT, false, STRIDE, 3 * 4);
+        gl.glEnableVertexAttribArray(TEX_COORD);
+        gl.glVertexAttribPointer(NORMAL, 3, GL_FLOAT, false, STRIDE, 5 * 4);
+        gl.glEnableVertexAttribArray(NORMAL);
+    }
+
+    /**
+     * creates a mesh without vertex buffers for shaders that generate their vertices from gl_VertexID,
+     * like the axes shader
+     * @param gl current GL
+     * @param mode primitive type, e.g. GL_LINES
+     * @param count number of vertices to draw
+     * @return the mesh
+     */
+    public static Mesh createProcedural(GL4 gl, int mode, int count) {
+        int[] vao = new int[1];
+        gl.glGenVertexArrays(1, vao, 0);
+        Mesh mesh = new Mesh(vao[0], mode, count, false);
+        mesh.bounds = Bounds.fromPositions(new float[0]);
+        return mesh;
+    }
+
+    /**
+     * draws one level of detail, the mesh's VAO must already be bound
+     * @param gl current GL
+     * @param lod level of detail, 0 to getNumLods() - 1
+     */
+    public void drawBound(GL4 gl, int lod) {
+        if (indexed) {
+            gl.glDrawElements(mode, lodCounts[lod], GL_UNSIGNED_INT, 4L * lodOffsets[lod]);
+        } else {
+            gl.glDrawArrays(mode, 0, count);
+        }
+    }
+
+    /**
+     * draws several instances of one level of detail, the mesh's VAO must already be bound
+     * @param gl current GL
+     * @param lod level of detail, 0 to getNumLods() - 1
+     * @param instances number of instances
+     * @param baseInstance first instance record in the instance buffer
+     */
+    public void drawInstancedBound(GL4 gl, int lod, int instances, int baseInstance) {
+        if (indexed) {
+            gl.glDrawElementsInstancedBaseInstance(mode, lodCounts[lod], GL_UNSIGNED_INT, 4L * lodOffsets[lod],
+                    instances, baseInstance);
+        } else {
+            gl.glDrawArraysInstancedBaseInstance(mode, 0, count, instances, baseInstance);
+        }
+    }
+
+    /**
+     * points the per-instance attributes of this mesh's VAO at an instance buffer of INSTANCE_STRIDE records
+     * @param gl current GL
+     * @param instanceBuffer buffer object holding the records
+     */
+    public void attachInstanceBuffer(GL4 gl, int instanceBuffer) {
+        gl.glBindVertexArray(vao);
+        gl.glBindBuffer(GL_ARRAY_BUFFER, instanceBuffer);
+        setInstanceAttributes(gl);
+    }
+
+    /**
+     * points the per-instance attributes of the bound VAO at INSTANCE_STRIDE records in the bound GL_ARRAY_BUFFER
+     */
+    static void setInstanceAttributes(GL4 gl) {
+        for (int column = 0; column < 4; column++) {
+            gl.glVertexAttribPointer(INSTANCE_MODEL_VIEW + column, 4, GL_FLOAT, false, INSTANCE_STRIDE, column * 16L);
+            gl.glVertexAttribDivisor(INSTANCE_MODEL_VIEW + column, 1);
+            gl.glEnableVertexAttribArray(INSTANCE_MODEL_VIEW + column);
+        }
+        gl.glVertexAttribIPointer(INSTANCE_LAYER, 1, GL_INT, INSTANCE_STRIDE, 64);
+        gl.glVertexAttribDivisor(INSTANCE_LAYER, 1);
+        gl.glEnableVertexAttribArray(INSTANCE_LAYER);
+    }
+
+    /**
+     * @param lod level of detail
+     * @return number of triangles draw(gl, lod) submits, 0 for meshes that are not triangle lists
+     */
+    public int getTriangleCount(int lod) {
+        return (mode == GL_TRIANGLES) ? lodCounts[lod] / 3 : 0;
+    }
+
+    public int getId() { return id; }
+    public int getVao() { return vao; }
+    public int getNumLods() { return lodCounts.length; }
+    public int getLodOffset(int lod) { return lodOffsets[lod]; }
+    public int getLodCount(int lod) { return lodCounts[lod]; }
+    public int getMode() { return mode; }
+    public Bounds getBounds() { return bounds; }
+    public float[] getPositionOffset() { return positionOffset; }
+    public float[] getPositionScale() { return positionScale; }
+    public int getCount() { return count; }
+    public boolean isIndexed() { return indexed; }
+
+    private void setLods(ImportedModel model) {
+        lodOffsets = new int[model.getNumLods()];
+        lodCounts = new int[model.getNumLods()];
+        for (int i = 0; i < lodCounts.length; i++) {
+            lodOffsets[i] = model.getLodOffset(i);
+            lodCounts[i] = model.getLodIndexCount(i);
+        }
+    }
+
+    /**
+     * packs separate attribute arrays into one direct buffer with the interleaved layout
+     */
+    public static ByteBuffer interleave(float[] positions, float[] texCoords, float[] normals) {
+        int numVertices = positions.length / 3;
+        ByteBuffer data = Buffers.newDirectByteBuffer(numVertices * STRIDE);
+        FloatBuffer floats = data.asFloatBuffer();
+        for (int i = 0; i < numVertices; i++) {
+            floats.put(positions, i * 3, 3);
+            floats.put(texCoords, i * 2, 2);
+            floats.put(normals, i * 3, 3);
+        }
+        return data;
+    }
+
+    /**
+     * copies one attribute back out of interleaved vertex data
+     * @param vertexData interleaved vertices
+     * @param offset float offset of the attribute within a vertex
+     * @param components number of floats in the attribute
+     */
+    public static float[] deinterleave(ByteBuffer vertexData, int offset, int components) {
+        FloatBuffer floats = vertexData.duplicate().order(vertexData.order()).asFloatBuffer();
+        int numVertices = floats.remaining() / FLOATS_PER_VERTEX;
+        float[] values = new float[numVertices * components];
+        for (int i = 0; i < numVertices; i++) {
+            floats.position(i * FLOATS_PER_VERTEX + offset);
+            floats.get(values, i * components, components);
+        }
+        return values;
+    }
+
+    /**
+     * gives every vertex of a triangle list the normal of its triangle
+     */
+    static float[] flatNormals(float[] positions) {
+        float[] normals = new float[positions.length];
+        for (int t = 0; t + 9 <= positions.length; t += 9) {
+            float ux = positions[t + 3] - positions[t], uy = positions[t + 4] - positions[t + 1], uz = positions[t + 5] - positions[t + 2];
+            float vx = positions[t + 6] - positions[t], vy = positions[t + 7] - positions[t + 1], vz = positions[t + 8] - positions[t + 2];
+            float nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+            float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length > 0) {
+                nx /= length; ny /= length; nz /= length;
+            }
+            for (int v = 0; v < 9; v += 3) {
+                normals[t + v] = nx;
+                normals[t + v + 1] = ny;
+                normals[t + v + 2] = nz;
+            }
+        }
+        return normals;
+    }
+}
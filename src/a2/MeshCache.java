@@ -0,0 +1,163 @@
+/**
+ * Binary cache for imported meshes. The first load of an OBJ file writes its vertex and index data to a
+ * cache file, later loads memory-map that file so the payload can go straight to glBufferData without any
+ * text parsing. A cache file is only used while the length and CRC32C of the OBJ source still match.
+ *
+ * File layout, in native byte order:
+ *   int magic, int version, long source length, int source crc,
+ *   int vertex count, int level of detail count, int attribute count, int components per attribute...,
+ *   int index count per level of detail..., interleaved float vertex data (see Mesh), int indices of every level
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public class MeshCache {
+
+    private static final int MAGIC = 0x434D3241; // "A2MC"
+    private static final int VERSION = 3;
+
+    //position, texture coordinate and normal components, interleaved as in Mesh
+    private static final int[] LAYOUT = {3, 2, 3};
+
+    /**
+     * mesh data as stored in or loaded from a cache file
+     */
+    public static class Entry {
+        final int numVertices;
+        final int[] lodCounts;
+        final ByteBuffer vertices;
+        final ByteBuffer indices;
+
+        Entry(int numVertices, int[] lodCounts, ByteBuffer vertices, ByteBuffer indices) {
+            this.numVertices = numVertices;
+            this.lodCounts = lodCounts;
+            this.vertices = vertices;
+            this.indices = indices;
+        }
+    }
+
+    /**
+     * @return false if the cache was turned off with -Da2.meshCache=false
+     */
+    public static boolean isEnabled() {
+        return !"false".equals(System.getProperty("a2.meshCache"));
+    }
+
+    /**
+     * @param modelName name the model was loaded with, e.g. shuttle.obj
+     * @return the cache file for the model, inside -Da2.cacheDir (default .a2cache)
+     */
+    public static File cacheFile(String modelName) {
+        File dir = new File(System.getProperty("a2.cacheDir", ".a2cache"));
+        return new File(dir, modelName.replace('/', '_').replace('\\', '_') + ".mesh");
+    }
+
+    /**
+     * memory-maps a cache file
+     * @param file cache file
+     * @param sourceLength length of the OBJ source the caller is about to load
+     * @param sourceCrc CRC32C of that source
+     * @return the cached mesh, or null if there is no cache file or it was written for different source data
+     * @throws IOException if an existing cache file cannot be read
+     */
+    public static Entry read(File file, long sourceLength, int sourceCrc) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        ByteBuffer map;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.nativeOrder());
+        }
+        if (map.remaining() < 32 || map.getInt() != MAGIC || map.getInt() != VERSION
+                || map.getLong() != sourceLength || map.getInt() != sourceCrc) {
+            return null;
+        }
+        int numVertices = map.getInt();
+        int numLods = map.getInt();
+        int numAttributes = map.getInt();
+        if (numAttributes != LAYOUT.length || numLods < 1 || map.remaining() < 4L * (numAttributes + numLods)) {
+            return null;
+        }
+        for (int components : LAYOUT) {
+            if (map.getInt() != components) {
+                return null;
+            }
+        }
+        int[] lodCounts = new int[numLods];
+        long numIndices = 0;
+        for (int i = 0; i < numLods; i++) {
+            lodCounts[i] = map.getInt();
+            if (lodCounts[i] < 0) {
+                return null;
+            }
+            numIndices += lodCounts[i];
+        }
+        long expected = map.position() + (long) numVertices * Mesh.STRIDE + 4L * numIndices;
+        if (numVertices < 0 || expected != map.limit()) {
+            return null;
+        }
+        ByteBuffer vertices = slice(map, numVertices * Mesh.STRIDE);
+        ByteBuffer indices = slice(map, (int) numIndices * 4);
+        return new Entry(numVertices, lodCounts, vertices, indices);
+    }
+
+    /**
+     * writes a cache file, going through a temporary file so a reader never sees a half written cache
+     * @param file cache file
+     * @param sourceLength length of the OBJ source the mesh was built from
+     * @param sourceCrc CRC32C of that source
+     * @param mesh mesh to store
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(File file, long sourceLength, int sourceCrc, Entry mesh) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(32 + 4 * (LAYOUT.length + mesh.lodCounts.length))
+                .order(ByteOrder.nativeOrder());
+        header.putInt(MAGIC).putInt(VERSION).putLong(sourceLength).putInt(sourceCrc);
+        header.putInt(mesh.numVertices).putInt(mesh.lodCounts.length).putInt(LAYOUT.length);
+        for (int components : LAYOUT) {
+            header.putInt(components);
+        }
+        for (int count : mesh.lodCounts) {
+            header.putInt(count);
+        }
+        header.flip();
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories(dir.toPath());
+        File temp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+                ByteBuffer[] parts = {header, mesh.vertices.duplicate(), mesh.indices.duplicate()};
+                long remaining = 0;
+                for (ByteBuffer part : parts) {
+                    remaining += part.remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= channel.write(parts);
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer map, int length) {
+        ByteBuffer slice = map.slice();
+        slice.limit(length);
+        map.position(map.position() + length);
+        return slice.order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,437 @@
+/**
+ * Builds levels of detail for an indexed triangle mesh with quadric error edge collapse (Garland and Heckbert).
+ * Vertices that share a position are welded first, so seams in the texture coordinates or normals do not tear
+ * the mesh apart. Every collapse moves one welded vertex onto a neighbour, which keeps the original vertex
+ * buffer valid: each level is just a new index list into it, and a moved corner takes the vertex at its new
+ * position whose texture coordinate and normal are closest to the ones it had.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import java.util.Arrays;
+
+public class MeshSimplifier {
+
+    //boundary edges get a strong plane quadric so open borders keep their shape
+    private static final double BOUNDARY_WEIGHT = 10.0;
+
+    //a collapse is rejected if it turns any remaining triangle by more than about 80 degrees
+    private static final double MIN_NORMAL_DOT = 0.2;
+
+    private final float[] vertices;     //interleaved, Mesh.FLOATS_PER_VERTEX per vertex
+    private final int numClasses;
+    private final int[] vertexClass;    //welded position class of every vertex
+    private final int[] memberStart;    //vertices of class c are members[memberStart[c] .. memberStart[c + 1])
+    private final int[] members;
+    private final float[] classPosition;
+
+    private final int numTriangles;
+    private final int[] triangleClass;  //three classes per triangle
+    private final int[] triangleVertex; //three vertices per triangle
+    private final boolean[] triangleAlive;
+    private int liveTriangles;
+
+    private final double[] quadrics;    //10 doubles per class, the upper triangle of a symmetric 4x4 matrix
+    private final IntList[] classTriangles;
+    private final int[] classVersion;
+    private final boolean[] classAlive;
+
+    //binary min heap of candidate collapses from -> to
+    private double[] heapCost = new double[64];
+    private int[] heapFrom = new int[64];
+    private int[] heapTo = new int[64];
+    private int[] heapFromVersion = new int[64];
+    private int[] heapToVersion = new int[64];
+    private int heapSize;
+
+    //scratch normals for the flip test
+    private final double[] before = new double[3];
+    private final double[] after = new double[3];
+
+    /**
+     * constructor, welds the vertices and computes the initial quadrics
+     * @param vertexData interleaved vertices in the Mesh float layout
+     * @param indices triangle list indices
+     */
+    public MeshSimplifier(float[] vertexData, int[] indices) {
+        vertices = vertexData;
+        int numVertices = vertexData.length / Mesh.FLOATS_PER_VERTEX;
+
+        //weld vertices with bit identical positions
+        VertexIndexMap positions = new VertexIndexMap(numVertices);
+        vertexClass = new int[numVertices];
+        for (int i = 0; i < numVertices; i++) {
+            int v = i * Mesh.FLOATS_PER_VERTEX;
+            int c = positions.getOrAdd(Float.floatToIntBits(vertexData[v]), Float.floatToIntBits(vertexData[v + 1]),
+                    Float.floatToIntBits(vertexData[v + 2]));
+            vertexClass[i] = (c < 0) ? -(c + 1) : c;
+        }
+        numClasses = positions.size();
+        memberStart = new int[numClasses + 1];
+        members = new int[numVertices];
+        classPosition = new float[numClasses * 3];
+        for (int i = 0; i < numVertices; i++) {
+            memberStart[vertexClass[i] + 1]++;
+        }
+        for (int c = 0; c < numClasses; c++) {
+            memberStart[c + 1] += memberStart[c];
+        }
+        int[] fill = Arrays.copyOf(memberStart, numClasses);
+        for (int i = 0; i < numVertices; i++) {
+            int c = vertexClass[i];
+            members[fill[c]++] = i;
+            System.arraycopy(vertexData, i * Mesh.FLOATS_PER_VERTEX, classPosition, c * 3, 3);
+        }
+
+        numTriangles = indices.length / 3;
+        triangleClass = new int[numTriangles * 3];
+        triangleVertex = Arrays.copyOf(indices, numTriangles * 3);
+        triangleAlive = new boolean[numTriangles];
+        quadrics = new double[numClasses * 10];
+        classTriangles = new IntList[numClasses];
+        classVersion = new int[numClasses];
+        classAlive = new boolean[numClasses];
+        Arrays.fill(classAlive, true);
+        for (int c = 0; c < numClasses; c++) {
+            classTriangles[c] = new IntList(8);
+        }
+
+        for (int t = 0; t < numTriangles; t++) {
+            int a = vertexClass[indices[t * 3]], b = vertexClass[indices[t * 3 + 1]], c = vertexClass[indices[t * 3 + 2]];
+            triangleClass[t * 3] = a;
+            triangleClass[t * 3 + 1] = b;
+            triangleClass[t * 3 + 2] = c;
+            if (a == b || b == c || a == c) {
+                continue;
+            }
+            triangleAlive[t] = true;
+            liveTriangles++;
+            classTriangles[a].add(t);
+            classTriangles[b].add(t);
+            classTriangles[c].add(t);
+            addTriangleQuadric(a, b, c);
+        }
+        addBoundaryQuadrics();
+
+        for (int t = 0; t < numTriangles; t++) {
+            if (triangleAlive[t]) {
+                for (int k = 0; k < 3; k++) {
+                    int a = triangleClass[t * 3 + k], b = triangleClass[t * 3 + (k + 1) % 3];
+                    push(a, b);
+                    push(b, a);
+                }
+            }
+        }
+    }
+
+    /**
+     * simplifies the mesh step by step, taking a snapshot of the index list each time the triangle count
+     * drops to the next target
+     * @param ratios triangle count of each level relative to the original, descending, e.g. 0.5, 0.25, 0.125
+     * @return one index list per ratio; a level that could not be reduced that far holds the best reached
+     */
+    public int[][] buildLevels(float[] ratios) {
+        int[][] levels = new int[ratios.length][];
+        int level = 0;
+        while (level < ratios.length) {
+            int target = (int) (numTriangles * ratios[level]);
+            if (liveTriangles <= target || !collapseCheapest()) {
+                levels[level++] = snapshot();
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * pops candidates until one can be collapsed
+     * @return false when no candidate is left
+     */
+    private boolean collapseCheapest() {
+        while (heapSize > 0) {
+            int from = heapFrom[0], to = heapTo[0];
+            boolean current = classAlive[from] && classAlive[to]
+                    && heapFromVersion[0] == classVersion[from] && heapToVersion[0] == classVersion[to];
+            pop();
+            if (current && !flips(from, to)) {
+                collapse(from, to);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void collapse(int from, int to) {
+        for (int q = 0; q < 10; q++) {
+            quadrics[to * 10 + q] += quadrics[from * 10 + q];
+        }
+        IntList fromTriangles = classTriangles[from];
+        for (int i = 0; i < fromTriangles.size(); i++) {
+            int t = fromTriangles.get(i);
+            if (!triangleAlive[t]) {
+                continue;
+            }
+            if (triangleClass[t * 3] == to || triangleClass[t * 3 + 1] == to || triangleClass[t * 3 + 2] == to) {
+                triangleAlive[t] = false;
+                liveTriangles--;
+                continue;
+            }
+            for (int k = 0; k < 3; k++) {
+                if (triangleClass[t * 3 + k] == from) {
+                    triangleClass[t * 3 + k] = to;
+                    triangleVertex[t * 3 + k] = closestMember(to, triangleVertex[t * 3 + k]);
+                }
+            }
+            classTriangles[to].add(t);
+        }
+        classAlive[from] = false;
+        classTriangles[from] = null;
+        classVersion[to]++;
+
+        IntList toTriangles = classTriangles[to];
+        for (int i = 0; i < toTriangles.size(); i++) {
+            int t = toTriangles.get(i);
+            if (triangleAlive[t]) {
+                for (int k = 0; k < 3; k++) {
+                    int other = triangleClass[t * 3 + k];
+                    if (other != to) {
+                        push(to, other);
+                        push(other, to);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if moving class from onto class to would flip or collapse one of the triangles that stay
+     */
+    private boolean flips(int from, int to) {
+        IntList triangles = classTriangles[from];
+        for (int i = 0; i < triangles.size(); i++) {
+            int t = triangles.get(i);
+            if (!triangleAlive[t]) {
+                continue;
+            }
+            int a = triangleClass[t * 3], b = triangleClass[t * 3 + 1], c = triangleClass[t * 3 + 2];
+            if (a == to || b == to || c == to) {
+                continue;
+            }
+            normal(a, b, c, -1, -1, before);
+            normal(a, b, c, from, to, after);
+            double lengths = Math.sqrt(dot(before, before) * dot(after, after));
+            if (lengths == 0.0 || dot(before, after) < MIN_NORMAL_DOT * lengths) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * unnormalized normal of triangle abc, with class from replaced by class to
+     */
+    private double[] normal(int a, int b, int c, int from, int to, double[] n) {
+        if (a == from) a = to;
+        if (b == from) b = to;
+        if (c == from) c = to;
+        double ux = classPosition[b * 3] - classPosition[a * 3];
+        double uy = classPosition[b * 3 + 1] - classPosition[a * 3 + 1];
+        double uz = classPosition[b * 3 + 2] - classPosition[a * 3 + 2];
+        double vx = classPosition[c * 3] - classPosition[a * 3];
+        double vy = classPosition[c * 3 + 1] - classPosition[a * 3 + 1];
+        double vz = classPosition[c * 3 + 2] - classPosition[a * 3 + 2];
+        n[0] = uy * vz - uz * vy;
+        n[1] = uz * vx - ux * vz;
+        n[2] = ux * vy - uy * vx;
+        return n;
+    }
+
+    private static double dot(double[] u, double[] v) {
+        return u[0] * v[0] + u[1] * v[1] + u[2] * v[2];
+    }
+
+    /**
+     * picks the vertex of a class whose texture coordinate and normal best match the given vertex
+     */
+    private int closestMember(int c, int vertex) {
+        int best = members[memberStart[c]];
+        float bestDistance = Float.MAX_VALUE;
+        int v = vertex * Mesh.FLOATS_PER_VERTEX;
+        for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+            int w = members[m] * Mesh.FLOATS_PER_VERTEX;
+            float distance = 0.0f;
+            for (int k = 3; k < Mesh.FLOATS_PER_VERTEX; k++) {
+                float d = vertices[v + k] - vertices[w + k];
+                distance += d * d;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = members[m];
+            }
+        }
+        return best;
+    }
+
+    private int[] snapshot() {
+        int[] indices = new int[liveTriangles * 3];
+        int n = 0;
+        for (int t = 0; t < numTriangles; t++) {
+            if (triangleAlive[t]) {
+                indices[n++] = triangleVertex[t * 3];
+                indices[n++] = triangleVertex[t * 3 + 1];
+                indices[n++] = triangleVertex[t * 3 + 2];
+            }
+        }
+        return indices;
+    }
+
+    private void addTriangleQuadric(int a, int b, int c) {
+        double[] n = normal(a, b, c, -1, -1, new double[3]);
+        double length = Math.sqrt(dot(n, n));
+        if (length == 0.0) {
+            return;
+        }
+        //weighted by area, the unnormalized normal is twice the area
+        double area = length * 0.5;
+        double nx = n[0] / length, ny = n[1] / length, nz = n[2] / length;
+        double d = -(nx * classPosition[a * 3] + ny * classPosition[a * 3 + 1] + nz * classPosition[a * 3 + 2]);
+        addPlane(a, nx, ny, nz, d, area);
+        addPlane(b, nx, ny, nz, d, area);
+        addPlane(c, nx, ny, nz, d, area);
+    }
+
+    /**
+     * finds the edges used by exactly one triangle and adds a plane through each one, perpendicular to its triangle
+     */
+    private void addBoundaryQuadrics() {
+        long[] edges = new long[liveTriangles * 3];
+        int[] edgeTriangle = new int[liveTriangles * 3];
+        int n = 0;
+        for (int t = 0; t < numTriangles; t++) {
+            if (triangleAlive[t]) {
+                for (int k = 0; k < 3; k++) {
+                    int a = triangleClass[t * 3 + k], b = triangleClass[t * 3 + (k + 1) % 3];
+                    edges[n++] = (long) Math.min(a, b) << 32 | Math.max(a, b);
+                }
+            }
+        }
+        long[] sorted = edges.clone();
+        Arrays.sort(sorted);
+        int e = 0;
+        for (int t = 0; t < numTriangles; t++) {
+            if (!triangleAlive[t]) {
+                continue;
+            }
+            for (int k = 0; k < 3; k++, e++) {
+                int first = Arrays.binarySearch(sorted, edges[e]);
+                boolean shared = (first > 0 && sorted[first - 1] == edges[e])
+                        || (first + 1 < sorted.length && sorted[first + 1] == edges[e]);
+                if (!shared) {
+                    addBoundaryPlane(t, triangleClass[t * 3 + k], triangleClass[t * 3 + (k + 1) % 3]);
+                }
+            }
+        }
+    }
+
+    private void addBoundaryPlane(int t, int a, int b) {
+        double[] n = normal(triangleClass[t * 3], triangleClass[t * 3 + 1], triangleClass[t * 3 + 2], -1, -1,
+                new double[3]);
+        double ex = classPosition[b * 3] - classPosition[a * 3];
+        double ey = classPosition[b * 3 + 1] - classPosition[a * 3 + 1];
+        double ez = classPosition[b * 3 + 2] - classPosition[a * 3 + 2];
+        double px = ey * n[2] - ez * n[1], py = ez * n[0] - ex * n[2], pz = ex * n[1] - ey * n[0];
+        double length = Math.sqrt(px * px + py * py + pz * pz);
+        if (length == 0.0) {
+            return;
+        }
+        px /= length; py /= length; pz /= length;
+        double d = -(px * classPosition[a * 3] + py * classPosition[a * 3 + 1] + pz * classPosition[a * 3 + 2]);
+        double weight = BOUNDARY_WEIGHT * (ex * ex + ey * ey + ez * ez);
+        addPlane(a, px, py, pz, d, weight);
+        addPlane(b, px, py, pz, d, weight);
+    }
+
+    private void addPlane(int c, double a, double b, double cc, double d, double weight) {
+        int q = c * 10;
+        quadrics[q] += weight * a * a;
+        quadrics[q + 1] += weight * a * b;
+        quadrics[q + 2] += weight * a * cc;
+        quadrics[q + 3] += weight * a * d;
+        quadrics[q + 4] += weight * b * b;
+        quadrics[q + 5] += weight * b * cc;
+        quadrics[q + 6] += weight * b * d;
+        quadrics[q + 7] += weight * cc * cc;
+        quadrics[q + 8] += weight * cc * d;
+        quadrics[q + 9] += weight * d * d;
+    }
+
+    /**
+     * error of moving class from onto the position of class to, measured with their combined quadric
+     */
+    private double cost(int from, int to) {
+        double x = classPosition[to * 3], y = classPosition[to * 3 + 1], z = classPosition[to * 3 + 2];
+        int f = from * 10, t = to * 10;
+        double q0 = quadrics[f] + quadrics[t], q1 = quadrics[f + 1] + quadrics[t + 1];
+        double q2 = quadrics[f + 2] + quadrics[t + 2], q3 = quadrics[f + 3] + quadrics[t + 3];
+        double q4 = quadrics[f + 4] + quadrics[t + 4], q5 = quadrics[f + 5] + quadrics[t + 5];
+        double q6 = quadrics[f + 6] + quadrics[t + 6], q7 = quadrics[f + 7] + quadrics[t + 7];
+        double q8 = quadrics[f + 8] + quadrics[t + 8], q9 = quadrics[f + 9] + quadrics[t + 9];
+        return q0 * x * x + 2 * q1 * x * y + 2 * q2 * x * z + 2 * q3 * x
+                + q4 * y * y + 2 * q5 * y * z + 2 * q6 * y
+                + q7 * z * z + 2 * q8 * z + q9;
+    }
+
+    private void push(int from, int to) {
+        if (heapSize == heapCost.length) {
+            int capacity = heapSize * 2;
+            heapCost = Arrays.copyOf(heapCost, capacity);
+            heapFrom = Arrays.copyOf(heapFrom, capacity);
+            heapTo = Arrays.copyOf(heapTo, capacity);
+            heapFromVersion = Arrays.copyOf(heapFromVersion, capacity);
+            heapToVersion = Arrays.copyOf(heapToVersion, capacity);
+        }
+        int i = heapSize++;
+        set(i, cost(from, to), from, to, classVersion[from], classVersion[to]);
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapCost[parent] <= heapCost[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void pop() {
+        heapSize--;
+        swap(0, heapSize);
+        int i = 0;
+        while (true) {
+            int left = i * 2 + 1, right = left + 1, smallest = i;
+            if (left < heapSize && heapCost[left] < heapCost[smallest]) smallest = left;
+            if (right < heapSize && heapCost[right] < heapCost[smallest]) smallest = right;
+            if (smallest == i) {
+                break;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void set(int i, double cost, int from, int to, int fromVersion, int toVersion) {
+        heapCost[i] = cost;
+        heapFrom[i] = from;
+        heapTo[i] = to;
+        heapFromVersion[i] = fromVersion;
+        heapToVersion[i] = toVersion;
+    }
+
+    private void swap(int i, int j) {
+        double cost = heapCost[i];
+        int from = heapFrom[i], to = heapTo[i], fromVersion = heapFromVersion[i], toVersion = heapToVersion[i];
+        set(i, heapCost[j], heapFrom[j], heapTo[j], heapFromVersion[j], heapToVersion[j]);
+        set(j, cost, from, to, fromVersion, toVersion);
+    }
+}
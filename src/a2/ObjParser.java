@@ -0,0 +1,439 @@
+/**
+ * Streaming parser for Wavefront OBJ files. Lines are scanned straight out of a reusable byte buffer with a
+ * hand-written tokenizer, and positions, texture coordinates, normals and face corners are appended to
+ * primitive lists, so no String or boxed value is created per token.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+public class ObjParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //exact powers of ten for the float fast path, 10^10 is the largest one a float holds exactly
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    //files smaller than this are parsed as a single chunk
+    private static final int MIN_CHUNK_SIZE = 1024 * 1024;
+
+    //attribute tables as read from the file
+    private final FloatList positions;
+    private final FloatList texCoords;
+    private final FloatList normals;
+
+    //one (v, vt, vn) triple per triangle corner, zero based, -1 when the corner has no vt or vn
+    private final IntList corners;
+
+    //slots in corners that came from negative OBJ indices and were resolved against this parser's tables only
+    private final IntList relativeCorners = new IntList(16);
+
+    //scratch space for the corners of the polygon currently being read, (v, vt, vn, relative flags) per corner
+    private int[] polygon = new int[4 * 8];
+
+    /**
+     * constructor for an empty parser
+     */
+    public ObjParser() {
+        this(new FloatList(3 * 1024), new FloatList(2 * 1024), new FloatList(3 * 1024), new IntList(3 * 3 * 1024));
+    }
+
+    private ObjParser(FloatList positions, FloatList texCoords, FloatList normals, IntList corners) {
+        this.positions = positions;
+        this.texCoords = texCoords;
+        this.normals = normals;
+        this.corners = corners;
+    }
+
+    /**
+     * reads an OBJ stream to the end and closes it
+     * @param input stream holding the OBJ text
+     * @throws IOException if the stream cannot be read
+     */
+    public void parse(InputStream input) throws IOException {
+        if (input == null) {
+            throw new IOException("OBJ input not found");
+        }
+        try (InputStream in = input) {
+            byte[] buf = new byte[BUFFER_SIZE];
+            int length = 0;
+            int read;
+            while ((read = in.read(buf, length, buf.length - length)) != -1) {
+                length += read;
+                int consumed = parseLines(buf, 0, length, false);
+                length -= consumed;
+                System.arraycopy(buf, consumed, buf, 0, length);
+                if (length == buf.length) {
+                    //a single line is longer than the buffer
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                }
+            }
+            parseLines(buf, 0, length, true);
+        }
+    }
+
+    /**
+     * parses an OBJ file that has already been read into memory
+     * @param data bytes of the OBJ text
+     */
+    public void parse(byte[] data) {
+        parseLines(data, 0, data.length, true);
+    }
+
+    /**
+     * parses an OBJ file in parallel. The data is split into byte ranges that end on line boundaries, each
+     * range is parsed into its own tables with fork-join, and the tables are then concatenated. Positive OBJ
+     * indices are absolute so they already refer to the merged tables, negative ones are shifted by the number
+     * of entries in the ranges before them.
+     * @param data bytes of the OBJ text
+     * @param pool pool to parse on
+     * @return a parser holding the merged tables
+     */
+    public static ObjParser parseParallel(byte[] data, ForkJoinPool pool) {
+        return parseParallel(data, pool, MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * parseParallel with a smaller minimum chunk size, so tests can split small files into many chunks
+     */
+    static ObjParser parseParallel(byte[] data, ForkJoinPool pool, int minChunkSize) {
+        int numChunks = Math.max(1, Math.min(pool.getParallelism() * 4, data.length / minChunkSize));
+        int[] bounds = new int[numChunks + 1];
+        for (int i = 1; i < numChunks; i++) {
+            int bound = Math.max(bounds[i - 1], (int) ((long) data.length * i / numChunks));
+            while (bound < data.length && data[bound - 1] != '\n') {
+                bound++;
+            }
+            bounds[i] = bound;
+        }
+        bounds[numChunks] = data.length;
+
+        ObjParser[] chunks = new ObjParser[numChunks];
+        pool.invoke(new ChunkTask(data, bounds, chunks, 0, numChunks));
+        return merge(chunks, pool);
+    }
+
+    /**
+     * parses the chunks in [from, to) by splitting the range in half until a single chunk is left
+     */
+    @SuppressWarnings("serial")
+    private static class ChunkTask extends RecursiveAction {
+        private final byte[] data;
+        private final int[] bounds;
+        private final ObjParser[] chunks;
+        private final int from;
+        private final int to;
+
+        ChunkTask(byte[] data, int[] bounds, ObjParser[] chunks, int from, int to) {
+            this.data = data;
+            this.bounds = bounds;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                int size = bounds[from + 1] - bounds[from];
+                //rough capacity guesses for a mixed chunk, the lists still grow if a chunk needs more
+                ObjParser chunk = new ObjParser(new FloatList(size / 16), new FloatList(size / 32),
+                        new FloatList(size / 16), new IntList(size / 8));
+                chunk.parseLines(data, bounds[from], bounds[from + 1], true);
+                chunks[from] = chunk;
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(data, bounds, chunks, from, middle),
+                        new ChunkTask(data, bounds, chunks, middle, to));
+            }
+        }
+    }
+
+    /**
+     * concatenates the tables of parsed chunks, copying each chunk on the pool
+     */
+    private static ObjParser merge(ObjParser[] chunks, ForkJoinPool pool) {
+        if (chunks.length == 1) {
+            return chunks[0];
+        }
+        int n = chunks.length;
+        int[] positionBase = new int[n + 1];
+        int[] texCoordBase = new int[n + 1];
+        int[] normalBase = new int[n + 1];
+        int[] cornerBase = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            positionBase[i + 1] = positionBase[i] + chunks[i].positions.size();
+            texCoordBase[i + 1] = texCoordBase[i] + chunks[i].texCoords.size();
+            normalBase[i + 1] = normalBase[i] + chunks[i].normals.size();
+            cornerBase[i + 1] = cornerBase[i] + chunks[i].corners.size();
+        }
+        float[] positions = new float[positionBase[n]];
+        float[] texCoords = new float[texCoordBase[n]];
+        float[] normals = new float[normalBase[n]];
+        int[] corners = new int[cornerBase[n]];
+
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+            ObjParser chunk = chunks[i];
+            System.arraycopy(chunk.positions.array(), 0, positions, positionBase[i], chunk.positions.size());
+            System.arraycopy(chunk.texCoords.array(), 0, texCoords, texCoordBase[i], chunk.texCoords.size());
+            System.arraycopy(chunk.normals.array(), 0, normals, normalBase[i], chunk.normals.size());
+            System.arraycopy(chunk.corners.array(), 0, corners, cornerBase[i], chunk.corners.size());
+            int[] tableBase = {positionBase[i] / 3, texCoordBase[i] / 2, normalBase[i] / 3};
+            for (int r = 0; r < chunk.relativeCorners.size(); r++) {
+                int slot = chunk.relativeCorners.get(r);
+                corners[cornerBase[i] + slot] += tableBase[slot % 3];
+            }
+        })).join();
+
+        return new ObjParser(new FloatList(positions), new FloatList(texCoords), new FloatList(normals),
+                new IntList(corners));
+    }
+
+    /**
+     * parses the complete lines in buf[start, end)
+     * @param buf bytes of the file
+     * @param start first byte to parse
+     * @param end one past the last byte to parse
+     * @param endOfInput true if a trailing line without a newline should be parsed as well
+     * @return the number of bytes consumed
+     */
+    int parseLines(byte[] buf, int start, int end, boolean endOfInput) {
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && buf[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd == end && !endOfInput) {
+                break;
+            }
+            parseLine(buf, lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+        }
+        return Math.min(lineStart, end) - start;
+    }
+
+    private void parseLine(byte[] buf, int pos, int end) {
+        pos = skipSpaces(buf, pos, end);
+        if (pos + 1 >= end) {
+            return;
+        }
+        byte c0 = buf[pos];
+        byte c1 = buf[pos + 1];
+        if (c0 == 'v' && isSpace(c1)) {             // vertex position ("v" case)
+            readFloats(buf, pos + 2, end, positions, 3);
+        } else if (c0 == 'v' && c1 == 't') {         // texture coordinates ("vt" case)
+            readFloats(buf, pos + 2, end, texCoords, 2);
+        } else if (c0 == 'v' && c1 == 'n') {         // vertex normals ("vn" case)
+            readFloats(buf, pos + 2, end, normals, 3);
+        } else if (c0 == 'f' && isSpace(c1)) {       // polygon faces ("f" case)
+            readFace(buf, pos + 2, end);
+        }
+    }
+
+    /**
+     * reads exactly count floats into target, missing trailing values are stored as 0
+     */
+    private void readFloats(byte[] buf, int pos, int end, FloatList target, int count) {
+        for (int i = 0; i < count; i++) {
+            pos = skipSpaces(buf, pos, end);
+            int tokenEnd = tokenEnd(buf, pos, end);
+            target.add(pos < tokenEnd ? parseFloat(buf, pos, tokenEnd) : 0.0f);
+            pos = tokenEnd;
+        }
+    }
+
+    /**
+     * reads the corners of one polygon and fans it into triangles
+     */
+    private void readFace(byte[] buf, int pos, int end) {
+        int numCorners = 0;
+        while ((pos = skipSpaces(buf, pos, end)) < end) {
+            if (numCorners * 4 == polygon.length) {
+                polygon = Arrays.copyOf(polygon, polygon.length * 2);
+            }
+            int corner = numCorners * 4;
+            polygon[corner + 1] = -1;
+            polygon[corner + 2] = -1;
+            polygon[corner + 3] = 0;
+            int fieldEnd = fieldEnd(buf, pos, end);
+            readIndex(buf, pos, fieldEnd, positions.size() / 3, corner, 0);
+            pos = fieldEnd;
+            if (pos < end && buf[pos] == '/') {
+                fieldEnd = fieldEnd(buf, ++pos, end);
+                if (pos < fieldEnd) {
+                    readIndex(buf, pos, fieldEnd, texCoords.size() / 2, corner, 1);
+                }
+                pos = fieldEnd;
+                if (pos < end && buf[pos] == '/') {
+                    fieldEnd = fieldEnd(buf, ++pos, end);
+                    if (pos < fieldEnd) {
+                        readIndex(buf, pos, fieldEnd, normals.size() / 3, corner, 2);
+                    }
+                    pos = fieldEnd;
+                }
+            }
+            numCorners++;
+            pos = tokenEnd(buf, pos, end);
+        }
+        for (int i = 1; i + 1 < numCorners; i++) {
+            addCorner(0);
+            addCorner(i);
+            addCorner(i + 1);
+        }
+    }
+
+    /**
+     * converts a one based OBJ index to a zero based one and stores it in the polygon scratch space. A negative
+     * index counts back from the end of the table read so far, so it is flagged for fixing up when chunks are merged.
+     */
+    private void readIndex(byte[] buf, int start, int end, int tableSize, int corner, int attribute) {
+        int objIndex = parseInt(buf, start, end);
+        if (objIndex < 0) {
+            polygon[corner + attribute] = tableSize + objIndex;
+            polygon[corner + 3] |= 1 << attribute;
+        } else {
+            polygon[corner + attribute] = objIndex - 1;
+        }
+    }
+
+    private void addCorner(int corner) {
+        int relative = polygon[corner * 4 + 3];
+        for (int i = 0; i < 3; i++) {
+            if ((relative & (1 << i)) != 0) {
+                relativeCorners.add(corners.size());
+            }
+            corners.add(polygon[corner * 4 + i]);
+        }
+    }
+
+    /**
+     * parses a decimal float without creating a String. Values whose digits fit in a float mantissa and
+     * whose decimal exponent is small are computed with one correctly rounded float division, which gives
+     * the same bits as Float.parseFloat. Anything else falls back to Float.parseFloat.
+     */
+    static float parseFloat(byte[] buf, int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        if (buf[pos] == '-' || buf[pos] == '+') {
+            negative = buf[pos] == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean sawDigit = false;
+        for (; pos < end && isDigit(buf[pos]); pos++) {
+            sawDigit = true;
+            if (mantissa != 0 || buf[pos] != '0') {
+                if (++digits > 18) {
+                    return slowParseFloat(buf, start, end);
+                }
+                mantissa = mantissa * 10 + (buf[pos] - '0');
+            }
+        }
+        if (pos < end && buf[pos] == '.') {
+            for (pos++; pos < end && isDigit(buf[pos]); pos++) {
+                sawDigit = true;
+                if (mantissa != 0 || buf[pos] != '0') {
+                    if (++digits > 18) {
+                        return slowParseFloat(buf, start, end);
+                    }
+                    mantissa = mantissa * 10 + (buf[pos] - '0');
+                }
+                exponent--;
+            }
+        }
+        if (pos < end && (buf[pos] == 'e' || buf[pos] == 'E')) {
+            int exponentStart = ++pos;
+            if (pos < end && (buf[pos] == '-' || buf[pos] == '+')) {
+                pos++;
+            }
+            int exponentDigits = pos;
+            while (pos < end && isDigit(buf[pos])) {
+                pos++;
+            }
+            if (pos == exponentDigits || pos - exponentDigits > 4) {
+                return slowParseFloat(buf, start, end);
+            }
+            exponent += parseInt(buf, exponentStart, pos);
+        }
+        if (!sawDigit || pos != end) {
+            return slowParseFloat(buf, start, end);
+        }
+        float value;
+        if (mantissa == 0) {
+            value = 0.0f;
+        } else if (mantissa < (1 << 24) && exponent >= -10 && exponent <= 10) {
+            value = (exponent < 0)
+                    ? mantissa / FLOAT_POWERS_OF_TEN[-exponent]
+                    : mantissa * FLOAT_POWERS_OF_TEN[exponent];
+        } else {
+            return slowParseFloat(buf, start, end);
+        }
+        return negative ? -value : value;
+    }
+
+    private static float slowParseFloat(byte[] buf, int start, int end) {
+        return Float.parseFloat(new String(buf, start, end - start, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * parses a signed decimal int, stopping at the first non digit
+     */
+    static int parseInt(byte[] buf, int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && (buf[pos] == '-' || buf[pos] == '+')) {
+            negative = buf[pos] == '-';
+            pos++;
+        }
+        int value = 0;
+        for (; pos < end && isDigit(buf[pos]); pos++) {
+            value = value * 10 + (buf[pos] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean isDigit(byte c) { return c >= '0' && c <= '9'; }
+    private static boolean isSpace(byte c) { return c == ' ' || c == '\t' || c == '\r'; }
+
+    private static int skipSpaces(byte[] buf, int pos, int end) {
+        while (pos < end && isSpace(buf[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int tokenEnd(byte[] buf, int pos, int end) {
+        while (pos < end && !isSpace(buf[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int fieldEnd(byte[] buf, int pos, int end) {
+        while (pos < end && buf[pos] != '/' && !isSpace(buf[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    public FloatList getPositions() { return positions; }
+    public FloatList getTexCoords() { return texCoords; }
+    public FloatList getNormals() { return normals; }
+    public IntList getCorners() { return corners; }
+    public int getNumCorners() { return corners.size() / 3; }
+}
@@ -0,0 +1,201 @@
+/**
+ * Packs interleaved float vertices (see Mesh) into a 16 byte vertex, half the size of the float layout:
+ *   position: 3 x unorm16 relative to the mesh bounding box, plus 2 bytes of padding
+ *   texture coordinate: 2 x unorm16 when every coordinate lies in [0, 1], otherwise 2 x half float
+ *   normal: GL_INT_2_10_10_10_REV, signed normalized
+ * Positions are decoded in the vertex shader as pos_offset + pos * pos_scale. Packing also measures the error
+ * of every attribute against the source data, decoded the way OpenGL decodes it.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.common.nio.Buffers;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+public class PackedVertices {
+
+    public static final int STRIDE = 16;
+    public static final int TEX_COORD_OFFSET = 8;
+    public static final int NORMAL_OFFSET = 12;
+
+    private final ByteBuffer data;
+    private final int numVertices;
+    private final float[] positionOffset = new float[3];
+    private final float[] positionScale = new float[3];
+    private final boolean halfFloatTexCoords;
+
+    //largest and mean absolute errors against the float data
+    private double maxPositionError, meanPositionError;
+    private double maxTexCoordError, meanTexCoordError;
+    private double maxNormalDegrees, meanNormalDegrees;
+
+    /**
+     * packs interleaved float vertices
+     * @param vertexData vertices in the Mesh float layout
+     */
+    public PackedVertices(ByteBuffer vertexData) {
+        FloatBuffer floats = vertexData.duplicate().order(vertexData.order()).asFloatBuffer();
+        numVertices = floats.remaining() / Mesh.FLOATS_PER_VERTEX;
+
+        //bounding box and texture coordinate range
+        float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+        float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        boolean unitTexCoords = true;
+        for (int i = 0; i < numVertices; i++) {
+            int v = i * Mesh.FLOATS_PER_VERTEX;
+            for (int c = 0; c < 3; c++) {
+                min[c] = Math.min(min[c], floats.get(v + c));
+                max[c] = Math.max(max[c], floats.get(v + c));
+            }
+            float s = floats.get(v + 3), t = floats.get(v + 4);
+            unitTexCoords &= s >= 0.0f && s <= 1.0f && t >= 0.0f && t <= 1.0f;
+        }
+        for (int c = 0; c < 3; c++) {
+            positionOffset[c] = (numVertices > 0) ? min[c] : 0.0f;
+            positionScale[c] = (numVertices > 0 && max[c] > min[c]) ? max[c] - min[c] : 1.0f;
+        }
+        halfFloatTexCoords = !unitTexCoords;
+
+        data = Buffers.newDirectByteBuffer(numVertices * STRIDE);
+        for (int i = 0; i < numVertices; i++) {
+            int v = i * Mesh.FLOATS_PER_VERTEX;
+            int out = i * STRIDE;
+            for (int c = 0; c < 3; c++) {
+                float p = floats.get(v + c);
+                int q = toUnorm16((p - positionOffset[c]) / positionScale[c]);
+                data.putShort(out + c * 2, (short) q);
+                float decoded = positionOffset[c] + (q / 65535.0f) * positionScale[c];
+                recordPosition(Math.abs(decoded - p));
+            }
+            for (int c = 0; c < 2; c++) {
+                float t = floats.get(v + 3 + c);
+                int q = halfFloatTexCoords ? toHalf(t) : toUnorm16(t);
+                data.putShort(out + TEX_COORD_OFFSET + c * 2, (short) q);
+                float decoded = halfFloatTexCoords ? fromHalf(q) : q / 65535.0f;
+                recordTexCoord(Math.abs(decoded - t));
+            }
+            float nx = floats.get(v + 5), ny = floats.get(v + 6), nz = floats.get(v + 7);
+            int qx = toSnorm10(nx), qy = toSnorm10(ny), qz = toSnorm10(nz);
+            data.putInt(out + NORMAL_OFFSET, (qx & 0x3FF) | (qy & 0x3FF) << 10 | (qz & 0x3FF) << 20);
+            recordNormal(nx, ny, nz, fromSnorm10(qx), fromSnorm10(qy), fromSnorm10(qz));
+        }
+        if (numVertices > 0) {
+            meanPositionError /= numVertices * 3;
+            meanTexCoordError /= numVertices * 2;
+            meanNormalDegrees /= numVertices;
+        }
+    }
+
+    public ByteBuffer getData() { return data.duplicate().order(data.order()); }
+    public int getNumVertices() { return numVertices; }
+    public float[] getPositionOffset() { return positionOffset; }
+    public float[] getPositionScale() { return positionScale; }
+    public boolean hasHalfFloatTexCoords() { return halfFloatTexCoords; }
+
+    /**
+     * @param name name of the packed model
+     * @return a one line summary of the memory saved and the quantization error
+     */
+    public String report(String name) {
+        float extent = Math.max(positionScale[0], Math.max(positionScale[1], positionScale[2]));
+        return String.format("%s packed: %d -> %d bytes, position error max %.3g (%.4f%% of extent) mean %.3g, "
+                        + "%s uv error max %.3g mean %.3g, normal error max %.3f deg mean %.3f deg",
+                name, numVertices * Mesh.STRIDE, numVertices * STRIDE,
+                maxPositionError, 100.0 * maxPositionError / extent, meanPositionError,
+                halfFloatTexCoords ? "half float" : "unorm16", maxTexCoordError, meanTexCoordError,
+                maxNormalDegrees, meanNormalDegrees);
+    }
+
+    private void recordPosition(double error) {
+        maxPositionError = Math.max(maxPositionError, error);
+        meanPositionError += error;
+    }
+
+    private void recordTexCoord(double error) {
+        maxTexCoordError = Math.max(maxTexCoordError, error);
+        meanTexCoordError += error;
+    }
+
+    private void recordNormal(float x, float y, float z, float qx, float qy, float qz) {
+        double length = Math.sqrt(x * x + y * y + z * z) * Math.sqrt(qx * qx + qy * qy + qz * qz);
+        if (length == 0.0) {
+            return;
+        }
+        double cos = Math.max(-1.0, Math.min(1.0, (x * qx + y * qy + z * qz) / length));
+        double degrees = Math.toDegrees(Math.acos(cos));
+        maxNormalDegrees = Math.max(maxNormalDegrees, degrees);
+        meanNormalDegrees += degrees;
+    }
+
+    static int toUnorm16(float value) {
+        return Math.round(Math.max(0.0f, Math.min(1.0f, value)) * 65535.0f);
+    }
+
+    static int toSnorm10(float value) {
+        return Math.round(Math.max(-1.0f, Math.min(1.0f, value)) * 511.0f);
+    }
+
+    /**
+     * decodes a signed normalized 10 bit value the way OpenGL 4.2 and later do
+     */
+    static float fromSnorm10(int value) {
+        return Math.max(value / 511.0f, -1.0f);
+    }
+
+    /**
+     * converts a float to IEEE half precision bits, rounding to nearest even
+     */
+    static int toHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = ((bits >>> 23) & 0xFF) - 127 + 15;
+        int mantissa = bits & 0x7FFFFF;
+        if (((bits >>> 23) & 0xFF) == 0xFF) {
+            return sign | 0x7C00 | (mantissa != 0 ? 0x200 : 0);
+        }
+        if (exponent >= 0x1F) {
+            return sign | 0x7C00;
+        }
+        if (exponent <= 0) {
+            if (exponent < -10) {
+                return sign;
+            }
+            mantissa |= 0x800000;
+            int shift = 14 - exponent;
+            int half = mantissa >> shift;
+            int remainder = mantissa & ((1 << shift) - 1);
+            int halfway = 1 << (shift - 1);
+            if (remainder > halfway || (remainder == halfway && (half & 1) != 0)) {
+                half++;
+            }
+            return sign | half;
+        }
+        int half = (exponent << 10) | (mantissa >> 13);
+        int remainder = mantissa & 0x1FFF;
+        if (remainder > 0x1000 || (remainder == 0x1000 && (half & 1) != 0)) {
+            half++;
+        }
+        return sign | half;
+    }
+
+    /**
+     * converts IEEE half precision bits to a float
+     */
+    static float fromHalf(int half) {
+        int sign = (half & 0x8000) << 16;
+        int exponent = (half >>> 10) & 0x1F;
+        int mantissa = half & 0x3FF;
+        if (exponent == 0) {
+            return (sign != 0 ? -1.0f : 1.0f) * mantissa * 0x1p-24f;
+        }
+        if (exponent == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+}
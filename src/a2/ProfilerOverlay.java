@@ -0,0 +1,124 @@
+/**
+ * Draws lines of text, such as the GpuProfiler report, in the top left corner of the viewport. The text is
+ * drawn with Java2D into an RGBA image whose bytes are uploaded to a texture only when the text changes; each
+ * frame then costs one blended four vertex triangle strip whose corners the vertex shader generates.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL4;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static com.jogamp.opengl.GL4.*;
+
+public class ProfilerOverlay {
+
+    private static final int WIDTH = 512;
+    private static final int HEIGHT = 256;
+    private static final int LINE_HEIGHT = 14;
+
+    private final ShaderProgram program;
+    private final ShaderProgram.Uniform rectUniform;
+    private final Mesh quad;
+    private final int texture;
+
+    //RGBA bytes top row first, the layout glTexSubImage2D takes
+    private final BufferedImage image;
+    private final ByteBuffer pixels;
+    private final float[] rect = new float[4];
+
+    /**
+     * creates the program, the quad and the texture
+     * @param gl current GL
+     */
+    public ProfilerOverlay(GL4 gl) {
+        program = ShaderProgram.load("a2/overlayVertShader.glsl", "a2/overlayFragShader.glsl");
+        rectUniform = program.uniform("rect");
+        quad = Mesh.createProcedural(gl, GL_TRIANGLE_STRIP, 4);
+
+        WritableRaster raster = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, WIDTH, HEIGHT, 4, null);
+        ComponentColorModel colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB),
+                new int[]{8, 8, 8, 8}, true, false, ComponentColorModel.TRANSLUCENT, DataBuffer.TYPE_BYTE);
+        image = new BufferedImage(colorModel, raster, false, null);
+        pixels = ByteBuffer.wrap(((DataBufferByte) raster.getDataBuffer()).getData());
+
+        int[] names = new int[1];
+        gl.glGenTextures(1, names, 0);
+        texture = names[0];
+        gl.glBindTexture(GL_TEXTURE_2D, texture);
+        gl.glTexStorage2D(GL_TEXTURE_2D, 1, GL_RGBA8, WIDTH, HEIGHT);
+        gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+    }
+
+    /**
+     * replaces the text
+     * @param gl current GL
+     * @param state tracker the texture binding goes through
+     * @param lines lines to show, those that do not fit are cut off
+     */
+    public void setText(GL4 gl, GLStateTracker state, List<String> lines) {
+        Graphics2D g = image.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+        g.setComposite(AlphaComposite.SrcOver);
+        if (!lines.isEmpty()) {
+            g.setColor(new Color(0, 0, 0, 160));
+            g.fillRect(0, 0, WIDTH, Math.min(HEIGHT, lines.size() * LINE_HEIGHT + 6));
+        }
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < lines.size(); i++) {
+            g.drawString(lines.get(i), 4, (i + 1) * LINE_HEIGHT);
+        }
+        g.dispose();
+
+        state.activeTexture(gl, GL_TEXTURE0);
+        state.bindTexture(gl, GL_TEXTURE_2D, texture);
+        gl.glTexSubImage2D(GL_TEXTURE_2D, 0, 0, 0, WIDTH, HEIGHT, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+    }
+
+    /**
+     * draws the text over whatever the frame holds
+     * @param gl current GL
+     * @param state tracker the program, texture and VAO bindings go through
+     * @param viewportWidth viewport width in pixels
+     * @param viewportHeight viewport height in pixels
+     */
+    public void draw(GL4 gl, GLStateTracker state, int viewportWidth, int viewportHeight) {
+        rect[0] = -1.0f;
+        rect[1] = 1.0f - 2.0f * HEIGHT / viewportHeight;
+        rect[2] = -1.0f + 2.0f * WIDTH / viewportWidth;
+        rect[3] = 1.0f;
+        rectUniform.set4(rect);
+
+        state.disable(gl, GL_DEPTH_TEST);
+        state.disable(gl, GL_CULL_FACE);
+        state.enable(gl, GL_BLEND);
+        gl.glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        state.useProgram(gl, program.getId());
+        state.activeTexture(gl, GL_TEXTURE0);
+        state.bindTexture(gl, GL_TEXTURE_2D, texture);
+        state.bindVertexArray(gl, quad.getVao());
+        quad.drawBound(gl, 0);
+        state.disable(gl, GL_BLEND);
+    }
+}
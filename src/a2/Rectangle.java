@@ -42,6 +42,8 @@ public class Rectangle {
 
             };
 
+    private Bounds bounds = Bounds.fromPositions(rectanglePositions);
+
     public Rectangle(){
 
     }
@@ -51,5 +53,6 @@ public class Rectangle {
         return rectanglePositions;
     }
     public float[] getTextureCoordinates(){ return textureCoordinates;}
+    public Bounds getBounds(){ return bounds;}
 
 }
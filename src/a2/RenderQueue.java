@@ -0,0 +1,385 @@
+/**
+ * Collects the frame's draws and executes them sorted by a packed state key, so draws sharing a program,
+ * texture and VAO end up next to each other. Every GL state change goes through a GLStateTracker, which drops
+ * the requests that would not change anything. Uniforms go through the programs' cached ShaderProgram setters,
+ * which skip values that did not change. State changes and uniform uploads are reported per frame through
+ * RenderStats.
+ * Programs with an instance_mv attribute are drawn instanced: every draw's model-view matrix and layer are
+ * written in sorted order into the frame's section of a persistently mapped RingBuffer, and each run of draws
+ * sharing program, texture, mesh and level of detail becomes a single instanced draw call whose base instance
+ * points into that section. With multi-draw (the default, -Da2.multiDraw=false turns it off) those runs become
+ * DrawElementsIndirectCommand records instead, and all indexed draws sharing program, texture and VAO, such as
+ * every mesh of a GeometryPool, go out as one glMultiDrawElementsIndirect.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL4;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector3f;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.jogamp.opengl.GL4.*;
+
+public class RenderQueue {
+
+    //objects whose bounding sphere covers fewer pixels drop one level of detail per halving
+    static final float LOD_FULL_DETAIL_PIXELS = 300.0f;
+
+    //the sort works on state key << INDEX_BITS | item index, so a frame holds at most 1 << INDEX_BITS draws
+    private static final int INDEX_BITS = 20;
+    private static final int MAX_DRAWS = 1 << INDEX_BITS;
+
+    private static final boolean MULTI_DRAW = Boolean.parseBoolean(System.getProperty("a2.multiDraw", "true"));
+
+    //uniform handles cached per program
+    private static final int MV = 0, PROJ = 1, POS_OFFSET = 2, POS_SCALE = 3, LAYER = 4;
+    private static final String[] UNIFORM_NAMES = {"mv_matrix", "proj_matrix", "pos_offset", "pos_scale", "layer"};
+
+    private final GLStateTracker state = new GLStateTracker();
+    private final RenderStats stats;
+    private final Map<ShaderProgram, ProgramState> programStates = new IdentityHashMap<>();
+    private final List<ShaderProgram> programs = new ArrayList<>();
+
+    private DrawItem[] items = new DrawItem[0];
+    private int count;
+    //sort keys and the items in sorted order, reused every frame
+    private long[] order = new long[0];
+    private DrawItem[] sorted = new DrawItem[0];
+
+    //per-instance model-view matrices and layers of the frame, in sorted order
+    private static final int INITIAL_INSTANCES = 1024;
+    private RingBuffer instances;
+    private int instanceBuffer;
+    private int firstInstance;
+    //VAOs whose instance attributes point at the instance buffer, searched linearly as there are only a few
+    private final IntList instancedVaos = new IntList(16);
+    private DrawIndirectBuffer indirect;
+
+    private final Matrix4f projection = new Matrix4f();
+    private int viewportHeight;
+    private final Vector3f lodCenter = new Vector3f();
+    private final Vector3f lodScale = new Vector3f();
+
+    /**
+     * constructor
+     * @param stats receives the draws, triangles, state changes and uniform uploads of every flushed frame
+     */
+    public RenderQueue(RenderStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * starts a frame
+     * @param projection projection matrix for every draw of the frame
+     * @param viewportHeight viewport height in pixels, used for level of detail selection
+     */
+    public void begin(Matrix4fc projection, int viewportHeight) {
+        this.projection.set(projection);
+        this.viewportHeight = viewportHeight;
+        count = 0;
+    }
+
+    /**
+     * queues a draw; the level of detail is chosen here from the mesh's size on screen
+     * @param program shader program
+     * @param texture texture array bound to unit 0, or 0 if the program samples no texture
+     * @param mesh mesh to draw
+     * @param layer texture array layer for the program's layer uniform
+     * @param modelView model-view matrix, copied
+     */
+    public void submit(ShaderProgram program, int texture, Mesh mesh, int layer, Matrix4fc modelView) {
+        if (count == items.length) {
+            if (count == MAX_DRAWS) {
+                throw new IllegalStateException("more than " + MAX_DRAWS + " draws queued in one frame");
+            }
+            items = Arrays.copyOf(items, Math.min(Math.max(count * 2, 16), MAX_DRAWS));
+            for (int i = count; i < items.length; i++) {
+                items[i] = new DrawItem();
+            }
+        }
+        DrawItem item = items[count++];
+        item.program = program;
+        item.texture = texture;
+        item.mesh = mesh;
+        item.layer = layer;
+        item.modelView.set(modelView);
+        item.lod = selectLod(mesh, modelView);
+        item.key = stateKey(program.getId(), texture, mesh.getVao(), mesh.getId(), item.lod, layer);
+        item.batchDraws = 0;
+    }
+
+    /**
+     * sorts and draws everything submitted since begin
+     * @param gl current GL
+     */
+    public void flush(GL4 gl) {
+        sort();
+        uploadInstances(gl);
+        if (MULTI_DRAW) {
+            buildBatches(gl);
+        }
+        ShaderProgram program = null;
+        ShaderProgram.Uniform[] uniforms = null;
+        boolean instanced = false;
+        //the same for every draw of the queue
+        state.enable(gl, GL_DEPTH_TEST);
+        state.enable(gl, GL_CULL_FACE);
+        state.depthFunc(gl, GL_LEQUAL);
+        for (int i = 0; i < count; i++) {
+            DrawItem item = items[i];
+            state.useProgram(gl, item.program.getId());
+            if (item.program != program) {
+                program = item.program;
+                ProgramState programState = programState(program);
+                uniforms = programState.uniforms;
+                uniforms[PROJ].set(projection);
+                instanced = programState.instanced;
+            }
+            if (item.texture != 0) {
+                state.activeTexture(gl, GL_TEXTURE0);
+                state.bindTexture(gl, GL_TEXTURE_2D_ARRAY, item.texture);
+            }
+            state.bindVertexArray(gl, item.mesh.getVao());
+            uniforms[POS_OFFSET].set3(item.mesh.getPositionOffset());
+            uniforms[POS_SCALE].set3(item.mesh.getPositionScale());
+            if (instanced) {
+                if (!isInstanced(item.mesh.getVao())) {
+                    instancedVaos.add(item.mesh.getVao());
+                    item.mesh.attachInstanceBuffer(gl, instanceBuffer);
+                }
+                int end;
+                if (item.batchDraws > 0) {
+                    int commands = indirect.draw(gl, item.mesh.getMode(), item.batch);
+                    //without GL_ARB_indirect_parameters every command is a draw call of its own
+                    stats.addDraws(indirect.isMultiDraw() ? 1 : commands, item.batchTriangles, item.batchFullTriangles);
+                    end = item.batchEnd;
+                } else {
+                    end = runEnd(i, count, true);
+                    int instances = end - i;
+                    item.mesh.drawInstancedBound(gl, item.lod, instances, firstInstance + i);
+                    stats.addDraw(item.mesh.getTriangleCount(item.lod) * instances,
+                            item.mesh.getTriangleCount(0) * instances);
+                }
+                for (int j = i; j < end; j++) {
+                    items[j].mesh = null;
+                    items[j].program = null;
+                }
+                i = end - 1;
+                continue;
+            }
+            uniforms[LAYER].set(item.layer);
+            uniforms[MV].set(item.modelView);
+            item.mesh.drawBound(gl, item.lod);
+            stats.addDraw(item.mesh.getTriangleCount(item.lod), item.mesh.getTriangleCount(0));
+            item.mesh = null;
+            item.program = null;
+        }
+        if (instances != null) {
+            instances.fence(gl);
+        }
+        if (indirect != null) {
+            indirect.fence(gl);
+        }
+        stats.addStateChanges(state.getRequested(), state.getIssued());
+        state.resetCounters();
+        for (int i = 0; i < programs.size(); i++) {
+            ShaderProgram used = programs.get(i);
+            stats.addUniformUploads(used.getUploads(), used.getSkipped());
+            used.resetCounters();
+        }
+        count = 0;
+    }
+
+    /**
+     * orders the queued items by state key, sorting the keys with their item index in a primitive array, which
+     * unlike sorting the items with a Comparator allocates nothing
+     */
+    private void sort() {
+        if (order.length < count) {
+            order = new long[items.length];
+            sorted = new DrawItem[items.length];
+        }
+        for (int i = 0; i < count; i++) {
+            order[i] = items[i].key << INDEX_BITS | i;
+        }
+        Arrays.sort(order, 0, count);
+        for (int i = 0; i < count; i++) {
+            sorted[i] = items[(int) (order[i] & (MAX_DRAWS - 1))];
+        }
+        //the pooled items past count stay in place for later frames
+        System.arraycopy(sorted, 0, items, 0, count);
+    }
+
+    /**
+     * @return the tracker all state changes go through, for code that draws outside the queue
+     */
+    public GLStateTracker getState() { return state; }
+
+    /**
+     * writes every queued draw's model-view matrix and layer as one Mesh.INSTANCE_STRIDE record, in sorted order,
+     * into the frame's section of the instance ring buffer
+     */
+    private void uploadInstances(GL4 gl) {
+        if (instances == null) {
+            instances = new RingBuffer(gl, GL_ARRAY_BUFFER, Mesh.INSTANCE_STRIDE, INITIAL_INSTANCES);
+        }
+        ByteBuffer data = instances.begin(gl, count);
+        for (int i = 0; i < count; i++) {
+            int offset = i * Mesh.INSTANCE_STRIDE;
+            items[i].modelView.get(offset, data);
+            data.putInt(offset + 64, items[i].layer);
+        }
+        instances.end(gl);
+        firstInstance = instances.getFirstRecord();
+        //a grown ring is a new buffer object, every VAO has to point at it again
+        if (instances.getBuffer() != instanceBuffer) {
+            instanceBuffer = instances.getBuffer();
+            instancedVaos.clear();
+        }
+    }
+
+    /**
+     * turns the sorted draws of instanced programs with indexed meshes into indirect commands, one per run of
+     * equal mesh and level of detail, and one batch per run of equal program, texture and VAO; the batch is
+     * recorded on its first item
+     */
+    private void buildBatches(GL4 gl) {
+        if (indirect == null) {
+            indirect = new DrawIndirectBuffer(gl, INITIAL_INSTANCES);
+        }
+        indirect.begin(gl, count);
+        ShaderProgram program = null;
+        boolean instanced = false;
+        for (int i = 0; i < count; ) {
+            DrawItem item = items[i];
+            if (item.program != program) {
+                program = item.program;
+                instanced = programState(program).instanced;
+            }
+            if (!instanced || !item.mesh.isIndexed()) {
+                i++;
+                continue;
+            }
+            int batchEnd = runEnd(i, count, false);
+            int batch = indirect.beginBatch();
+            int triangles = 0, fullTriangles = 0;
+            for (int run = i; run < batchEnd; ) {
+                int end = runEnd(run, batchEnd, true);
+                Mesh mesh = items[run].mesh;
+                int lod = items[run].lod;
+                indirect.addCommand(batch, mesh.getLodCount(lod), end - run, mesh.getLodOffset(lod), 0,
+                        firstInstance + run);
+                triangles += mesh.getTriangleCount(lod) * (end - run);
+                fullTriangles += mesh.getTriangleCount(0) * (end - run);
+                run = end;
+            }
+            item.batch = batch;
+            item.batchEnd = batchEnd;
+            item.batchDraws = batchEnd - i;
+            item.batchTriangles = triangles;
+            item.batchFullTriangles = fullTriangles;
+            i = batchEnd;
+        }
+        indirect.end(gl);
+    }
+
+    /**
+     * @param sameMesh true for a run of one mesh and level of detail, false for a batch sharing program, texture
+     * and VAO
+     * @return the end of the run of sorted draws starting at start; compares the draws' state itself, as the
+     * truncated sort keys of different state can be equal
+     */
+    private int runEnd(int start, int limit, boolean sameMesh) {
+        DrawItem first = items[start];
+        int end = start + 1;
+        while (end < limit) {
+            DrawItem item = items[end];
+            if (item.program != first.program || item.texture != first.texture
+                    || item.mesh.getVao() != first.mesh.getVao()
+                    || sameMesh && (item.mesh != first.mesh || item.lod != first.lod)) {
+                break;
+            }
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * packs the draw state from the most to the least expensive to change into the 64 - INDEX_BITS bits left
+     * for the key: 8 bits each for the program and texture names, 10 bits each for the VAO name and the mesh id,
+     * which tells apart meshes sharing a VAO, and 4 bits each for the level of detail and the layer; only the
+     * draw order depends on the key, so values that overflow their bits can only split runs and batches, never
+     * merge them
+     */
+    static long stateKey(int program, int texture, int vao, int mesh, int lod, int layer) {
+        return (long) (program & 0xFF) << 36 | (long) (texture & 0xFF) << 28 | (long) (vao & 0x3FF) << 18
+                | (long) (mesh & 0x3FF) << 8 | (lod & 0xF) << 4 | (layer & 0xF);
+    }
+
+    /**
+     * picks a level of detail from the projected diameter of the mesh's bounding sphere in pixels
+     */
+    private int selectLod(Mesh mesh, Matrix4fc modelView) {
+        float[] center = mesh.getBounds().getCenter();
+        modelView.transformPosition(center[0], center[1], center[2], lodCenter);
+        modelView.getScale(lodScale);
+        float radius = mesh.getBounds().getRadius() * Math.max(lodScale.x, Math.max(lodScale.y, lodScale.z));
+        float distance = -lodCenter.z;
+        if (distance <= radius) {
+            return 0;
+        }
+        float pixels = radius / distance * projection.m11() * viewportHeight;
+        int lod = 0;
+        while (lod < mesh.getNumLods() - 1 && pixels < LOD_FULL_DETAIL_PIXELS) {
+            pixels *= 2.0f;
+            lod++;
+        }
+        return lod;
+    }
+
+    private boolean isInstanced(int vao) {
+        for (int i = 0; i < instancedVaos.size(); i++) {
+            if (instancedVaos.get(i) == vao) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ProgramState programState(ShaderProgram program) {
+        ProgramState programState = programStates.get(program);
+        if (programState == null) {
+            programState = new ProgramState(program);
+            programStates.put(program, programState);
+            programs.add(program);
+        }
+        return programState;
+    }
+
+    /**
+     * what the queue looks up once per program: its uniform handles and whether it is drawn instanced
+     */
+    private static final class ProgramState {
+
+        final ShaderProgram.Uniform[] uniforms = new ShaderProgram.Uniform[UNIFORM_NAMES.length];
+        final boolean instanced;
+
+        ProgramState(ShaderProgram program) {
+            for (int i = 0; i < uniforms.length; i++) {
+                uniforms[i] = program.uniform(UNIFORM_NAMES[i]);
+            }
+            instanced = program.getAttributeLocation("instance_mv") >= 0;
+        }
+    }
+}
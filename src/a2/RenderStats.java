@@ -0,0 +1,139 @@
+/**
+ * Counts the draw calls, triangles, GL state changes, uniform uploads, world transform updates and frustum culled
+ * objects of each frame and, if asked to report, prints their
+ * averages about once a second, together with how many triangles full detail drawing would have submitted and
+ * how many state changes and uniform sets were dropped as redundant.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+public class RenderStats {
+
+    private static final long REPORT_INTERVAL = 1_000_000_000L;
+
+    private final boolean report;
+    private long intervalStart = System.nanoTime();
+    private int frames;
+    private long draws;
+    private long triangles;
+    private long fullDetailTriangles;
+    private long stateChangesRequested;
+    private long stateChangesIssued;
+    private long uniformUploads;
+    private long uniformSkipped;
+    private long transformUpdates;
+    private long objectsDrawn;
+    private long objectsCulled;
+
+    //totals of the frame in progress
+    private int frameDraws;
+    private int frameTriangles;
+
+    /**
+     * constructor
+     * @param report whether endFrame prints the averages, Starter sets it with -Da2.stats
+     */
+    public RenderStats(boolean report) {
+        this.report = report;
+    }
+
+    /**
+     * records one draw call
+     * @param triangles triangles submitted by the draw
+     * @param fullDetailTriangles triangles the draw would have submitted at level of detail 0
+     */
+    public void addDraw(int triangles, int fullDetailTriangles) {
+        addDraws(1, triangles, fullDetailTriangles);
+    }
+
+    /**
+     * records several draw calls at once, such as the glDrawElementsIndirect calls of an indirect batch
+     * @param draws draw calls issued
+     * @param triangles triangles submitted by all of them
+     * @param fullDetailTriangles triangles they would have submitted at level of detail 0
+     */
+    public void addDraws(int draws, int triangles, int fullDetailTriangles) {
+        frameDraws += draws;
+        frameTriangles += triangles;
+        this.fullDetailTriangles += fullDetailTriangles;
+    }
+
+    /**
+     * records the GL state changes of a frame
+     * @param requested state changes the renderer asked for
+     * @param issued state changes that actually reached OpenGL
+     */
+    public void addStateChanges(int requested, int issued) {
+        stateChangesRequested += requested;
+        stateChangesIssued += issued;
+    }
+
+    /**
+     * records the uniform uploads of a frame
+     * @param uploads uniform values sent to OpenGL
+     * @param skipped uniform sets dropped because the value had not changed
+     */
+    public void addUniformUploads(int uploads, int skipped) {
+        uniformUploads += uploads;
+        uniformSkipped += skipped;
+    }
+
+    /**
+     * records the scene graph update of a frame
+     * @param updated world matrices recomputed
+     */
+    public void addTransformUpdates(int updated) {
+        transformUpdates += updated;
+    }
+
+    /**
+     * records the frustum culling of a frame
+     * @param drawn objects inside the frustum
+     * @param culled objects skipped as outside the frustum
+     */
+    public void addCulling(int drawn, int culled) {
+        objectsDrawn += drawn;
+        objectsCulled += culled;
+    }
+
+    /**
+     * closes the current frame and, when reporting, prints the averages once a second has passed
+     */
+    public void endFrame() {
+        frames++;
+        draws += frameDraws;
+        triangles += frameTriangles;
+        frameDraws = 0;
+        frameTriangles = 0;
+
+        long now = System.nanoTime();
+        if (now - intervalStart >= REPORT_INTERVAL) {
+            if (report) {
+                System.out.printf("%d fps, %.0f draws/frame, %.0f triangles/frame (%.0f at full detail), "
+                                + "%.0f state changes/frame (%.0f requested), %.0f uniform uploads/frame (%.0f skipped), "
+                                + "%.0f transforms updated/frame, %.0f objects drawn/frame (%.0f culled)%n",
+                        Math.round(frames * 1e9 / (now - intervalStart)), (double) draws / frames,
+                        (double) triangles / frames, (double) fullDetailTriangles / frames,
+                        (double) stateChangesIssued / frames, (double) stateChangesRequested / frames,
+                        (double) uniformUploads / frames, (double) uniformSkipped / frames,
+                        (double) transformUpdates / frames, (double) objectsDrawn / frames,
+                        (double) objectsCulled / frames);
+            }
+            intervalStart = now;
+            frames = 0;
+            draws = 0;
+            triangles = 0;
+            fullDetailTriangles = 0;
+            stateChangesRequested = 0;
+            stateChangesIssued = 0;
+            uniformUploads = 0;
+            uniformSkipped = 0;
+            transformUpdates = 0;
+            objectsDrawn = 0;
+            objectsCulled = 0;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * A per-frame stream buffer of fixed size records, split into FRAMES sections that are used in turn. With
+ * GL_ARB_buffer_storage the whole buffer is created with glBufferStorage and mapped once, persistently and
+ * coherently, so a frame writes its records straight into buffer memory and needs no upload call. A fence after
+ * each frame's draws guards its section; the CPU only waits if it comes back to a section the GPU is still
+ * reading, three frames later. Without buffer storage, or with -Da2.persistentMapping=false, the records are
+ * written to a client buffer and uploaded with one orphaning glBufferData per frame.
+ *
+ * The mapped sections are plain memory, so records can be written from any thread between begin and end.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL4;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static com.jogamp.opengl.GL4.*;
+
+public class RingBuffer {
+
+    public static final int FRAMES = 3;
+
+    private static final long WAIT_TIMEOUT = 1_000_000_000L;
+
+    private final int target;
+    private final int recordSize;
+    private final boolean persistent;
+
+    private int buffer;
+    private int sectionRecords;
+    private ByteBuffer[] sections = new ByteBuffer[FRAMES];
+    private final long[] fences = new long[FRAMES];
+    private int frame;
+
+    /**
+     * creates the buffer
+     * @param gl current GL
+     * @param target buffer binding the records are read through, e.g. GL_ARRAY_BUFFER
+     * @param recordSize bytes per record
+     * @param records initial records per frame, the buffer grows when a frame needs more
+     */
+    public RingBuffer(GL4 gl, int target, int recordSize, int records) {
+        this.target = target;
+        this.recordSize = recordSize;
+        this.persistent = gl.isExtensionAvailable("GL_ARB_buffer_storage")
+                && Boolean.parseBoolean(System.getProperty("a2.persistentMapping", "true"));
+        allocate(gl, Math.max(1, records));
+    }
+
+    /**
+     * starts writing a frame's records, waiting for the GPU to finish with the section if needed
+     * @param gl current GL
+     * @param records number of records the frame writes
+     * @return memory for the records in native byte order, position 0 and limit records * recordSize
+     */
+    public ByteBuffer begin(GL4 gl, int records) {
+        if (records > sectionRecords) {
+            for (int i = 0; i < FRAMES; i++) {
+                waitFor(gl, i);
+            }
+            release(gl);
+            allocate(gl, Math.max(records, sectionRecords * 2));
+        }
+        waitFor(gl, frame);
+        ByteBuffer section = sections[frame];
+        section.clear().limit(records * recordSize);
+        return section;
+    }
+
+    /**
+     * finishes writing, uploading the records if the buffer is not persistently mapped
+     * @param gl current GL
+     */
+    public void end(GL4 gl) {
+        if (!persistent) {
+            //records are written with absolute puts, the limit set by begin marks the end of the frame's records
+            ByteBuffer section = sections[frame];
+            section.rewind();
+            gl.glBindBuffer(target, buffer);
+            gl.glBufferData(target, (long) sectionRecords * recordSize, null, GL_STREAM_DRAW);
+            gl.glBufferSubData(target, 0, section.remaining(), section);
+        }
+    }
+
+    /**
+     * fences the frame's section behind the draws that read it and moves on to the next section; call after
+     * the last draw of the frame
+     * @param gl current GL
+     */
+    public void fence(GL4 gl) {
+        if (persistent) {
+            fences[frame] = gl.glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+            frame = (frame + 1) % FRAMES;
+        }
+    }
+
+    public int getBuffer() { return buffer; }
+    public boolean isPersistent() { return persistent; }
+
+    /**
+     * @return index of the frame's first record in the buffer, the base instance of its draws
+     */
+    public int getFirstRecord() {
+        return frame * sectionRecords;
+    }
+
+    private void allocate(GL4 gl, int records) {
+        sectionRecords = records;
+        int sectionSize = records * recordSize;
+        int[] buffers = new int[1];
+        gl.glGenBuffers(1, buffers, 0);
+        buffer = buffers[0];
+        gl.glBindBuffer(target, buffer);
+        if (persistent) {
+            int flags = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+            gl.glBufferStorage(target, (long) sectionSize * FRAMES, null, flags);
+            ByteBuffer mapped = gl.glMapBufferRange(target, 0, (long) sectionSize * FRAMES, flags);
+            for (int i = 0; i < FRAMES; i++) {
+                mapped.limit((i + 1) * sectionSize).position(i * sectionSize);
+                sections[i] = mapped.slice().order(ByteOrder.nativeOrder());
+            }
+        } else {
+            ByteBuffer client = ByteBuffer.allocateDirect(sectionSize).order(ByteOrder.nativeOrder());
+            for (int i = 0; i < FRAMES; i++) {
+                sections[i] = client;
+            }
+            gl.glBufferData(target, sectionSize, null, GL_STREAM_DRAW);
+        }
+        frame = 0;
+    }
+
+    private void release(GL4 gl) {
+        if (persistent) {
+            gl.glBindBuffer(target, buffer);
+            gl.glUnmapBuffer(target);
+        }
+        gl.glDeleteBuffers(1, new int[]{buffer}, 0);
+        sections = new ByteBuffer[FRAMES];
+    }
+
+    private void waitFor(GL4 gl, int section) {
+        long fence = fences[section];
+        if (fence == 0) {
+            return;
+        }
+        int result;
+        do {
+            result = gl.glClientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, WAIT_TIMEOUT);
+        } while (result == GL_TIMEOUT_EXPIRED);
+        if (result == GL_WAIT_FAILED) {
+            System.err.println("waiting for a ring buffer fence failed");
+        }
+        gl.glDeleteSync(fence);
+        fences[section] = 0;
+    }
+}
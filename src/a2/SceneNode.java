@@ -0,0 +1,225 @@
+/**
+ * A node of the scene graph: a local transform relative to the parent, a cached world transform and optionally
+ * a mesh to draw with it. Changing a local transform marks the node dirty and queues it, and each ancestor not
+ * yet queued, in its parent's list of pending children, so updateWorld only walks the paths that lead to
+ * changes and only recomputes the world matrices of changed nodes and their descendants. Static subtrees are
+ * never visited, not even to test a flag. When the children to update hold at least PARALLEL_THRESHOLD nodes
+ * they are updated as fork/join tasks.
+ *
+ * Local transforms must not be changed while an update is running.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+public class SceneNode {
+
+    //subtrees with fewer nodes than this are updated on the calling thread
+    static final int PARALLEL_THRESHOLD = 512;
+
+    private final Matrix4f local = new Matrix4f();
+    private final Matrix4f world = new Matrix4f();
+    private SceneNode parent;
+    private final List<SceneNode> children = new ArrayList<>();
+    private int subtreeSize = 1;
+
+    //the world matrix is stale; the node is in its parent's pending list
+    private boolean dirty = true;
+    private boolean queued;
+    //children that are dirty or have dirty descendants
+    private final List<SceneNode> pending = new ArrayList<>();
+
+    private Mesh mesh;
+    private int layer;
+
+    /**
+     * creates a node with an identity local transform and nothing to draw
+     */
+    public SceneNode() {}
+
+    /**
+     * creates a node that draws a mesh
+     * @param mesh mesh drawn with the node's world transform
+     * @param layer texture array layer of the mesh
+     */
+    public SceneNode(Mesh mesh, int layer) {
+        this.mesh = mesh;
+        this.layer = layer;
+    }
+
+    /**
+     * attaches a child, which must not have a parent yet
+     * @param child node to attach
+     * @return the child
+     */
+    public SceneNode addChild(SceneNode child) {
+        if (child.parent != null) {
+            throw new IllegalArgumentException("node already has a parent");
+        }
+        child.parent = this;
+        children.add(child);
+        for (SceneNode node = this; node != null; node = node.parent) {
+            node.subtreeSize += child.subtreeSize;
+        }
+        child.markDirty();
+        return child;
+    }
+
+    /**
+     * replaces the local transform
+     * @param transform transform relative to the parent, copied
+     */
+    public void setLocal(Matrix4fc transform) {
+        editLocal().set(transform);
+    }
+
+    /**
+     * marks the node dirty and returns its local transform for changing in place
+     * @return the local transform
+     */
+    public Matrix4f editLocal() {
+        markDirty();
+        return local;
+    }
+
+    public Matrix4fc getLocal() { return local; }
+
+    /**
+     * @return the world transform as of the last updateWorld
+     */
+    public Matrix4fc getWorld() { return world; }
+
+    public SceneNode getParent() { return parent; }
+    public List<SceneNode> getChildren() { return Collections.unmodifiableList(children); }
+    public int getSubtreeSize() { return subtreeSize; }
+    public Mesh getMesh() { return mesh; }
+    public int getLayer() { return layer; }
+
+    /**
+     * recomputes the world matrices of every changed node and its descendants, large subtrees in parallel on
+     * the common fork/join pool if it has more than one thread; call on the root
+     * @return number of world matrices recomputed
+     */
+    public int updateWorld() {
+        return updateWorld(ForkJoinPool.getCommonPoolParallelism() > 1 ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * recomputes the world matrices of every changed node and its descendants; call on the root
+     * @param pool pool for large subtrees, or null to update everything on the calling thread
+     * @return number of world matrices recomputed
+     */
+    public int updateWorld(ForkJoinPool pool) {
+        if (pool == null || subtreeSize < PARALLEL_THRESHOLD) {
+            return update(false, false);
+        }
+        return pool.invoke(new UpdateTask(this, false));
+    }
+
+    private void markDirty() {
+        dirty = true;
+        for (SceneNode node = this; node.parent != null && !node.queued; node = node.parent) {
+            node.queued = true;
+            node.parent.pending.add(node);
+        }
+    }
+
+    /**
+     * @param parentChanged whether the parent's world matrix was recomputed in this update
+     * @param parallel whether large child lists may be split into fork/join tasks
+     */
+    private int update(boolean parentChanged, boolean parallel) {
+        boolean changed = parentChanged || dirty;
+        int updated = 0;
+        if (changed) {
+            if (parent == null) {
+                world.set(local);
+            } else {
+                parent.world.mul(local, world);
+            }
+            dirty = false;
+            updated = 1;
+        }
+        queued = false;
+        //a recomputed world matrix moves every child, otherwise only the pending ones need a visit
+        List<SceneNode> visit = changed ? children : pending;
+        if (parallel && visit.size() > 1) {
+            updated += new ChildrenTask(visit, 0, visit.size(), changed).compute();
+        } else {
+            for (int i = 0; i < visit.size(); i++) {
+                updated += visit.get(i).update(changed, parallel);
+            }
+        }
+        pending.clear();
+        return updated;
+    }
+
+    /**
+     * updates one node's subtree inside the pool
+     */
+    @SuppressWarnings("serial")
+    private static final class UpdateTask extends RecursiveTask<Integer> {
+        private final SceneNode node;
+        private final boolean parentChanged;
+
+        UpdateTask(SceneNode node, boolean parentChanged) {
+            this.node = node;
+            this.parentChanged = parentChanged;
+        }
+
+        @Override
+        protected Integer compute() {
+            return node.update(parentChanged, true);
+        }
+    }
+
+    /**
+     * updates a range of children, halving the range while its subtrees still hold at least PARALLEL_THRESHOLD
+     * nodes
+     */
+    @SuppressWarnings("serial")
+    private static final class ChildrenTask extends RecursiveTask<Integer> {
+        private final List<SceneNode> nodes;
+        private final int from;
+        private final int to;
+        private final boolean parentChanged;
+
+        ChildrenTask(List<SceneNode> nodes, int from, int to, boolean parentChanged) {
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+            this.parentChanged = parentChanged;
+        }
+
+        @Override
+        protected Integer compute() {
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                size += nodes.get(i).subtreeSize;
+            }
+            if (to - from > 1 && size >= PARALLEL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                ForkJoinTask<Integer> left = new ChildrenTask(nodes, from, middle, parentChanged).fork();
+                int right = new ChildrenTask(nodes, middle, to, parentChanged).compute();
+                return left.join() + right;
+            }
+            int updated = 0;
+            for (int i = from; i < to; i++) {
+                updated += nodes.get(i).update(parentChanged, true);
+            }
+            return updated;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ * A linked shader program with every active uniform and attribute looked up once, right after linking.
+ * Uniforms are reached through Uniform handles whose typed setters remember the last value they uploaded and
+ * skip the upload when the value has not changed. Uploads use glProgramUniform, so a setter works whether or
+ * not the program is current. Uniforms the program does not use get a handle that ignores every set.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL4;
+import com.jogamp.opengl.GLContext;
+import org.joml.Matrix4fc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.jogamp.opengl.GL4.*;
+
+public class ShaderProgram {
+
+    private final int id;
+    private final Map<String, Uniform> uniforms = new HashMap<>();
+    private final Map<String, Integer> attributes = new HashMap<>();
+
+    //uniform uploads since the last resetCounters, and how many sets were skipped as unchanged
+    private int uploads;
+    private int skipped;
+
+    /**
+     * compiles and links a vertex and fragment shader, see Utils.createShaderProgram
+     * @param vertexShader vertex shader file
+     * @param fragmentShader fragment shader file
+     * @return the introspected program
+     */
+    public static ShaderProgram load(String vertexShader, String fragmentShader) {
+        return new ShaderProgram(Utils.createShaderProgram(vertexShader, fragmentShader));
+    }
+
+    /**
+     * compiles and links a compute shader
+     * @param computeShader compute shader file
+     * @return the introspected program
+     */
+    public static ShaderProgram loadCompute(String computeShader) {
+        return new ShaderProgram(Utils.createShaderProgram(computeShader));
+    }
+
+    /**
+     * introspects an already linked program
+     * @param id program object
+     */
+    public ShaderProgram(int id) {
+        this.id = id;
+        GL4 gl = (GL4) GLContext.getCurrentGL();
+        int[] value = new int[1];
+
+        gl.glGetProgramiv(id, GL_ACTIVE_UNIFORM_MAX_LENGTH, value, 0);
+        byte[] name = new byte[Math.max(1, value[0])];
+        gl.glGetProgramiv(id, GL_ACTIVE_UNIFORMS, value, 0);
+        int[] length = new int[1], size = new int[1], type = new int[1];
+        for (int i = 0; i < value[0]; i++) {
+            gl.glGetActiveUniform(id, i, name.length, length, 0, size, 0, type, 0, name, 0);
+            String uniformName = baseName(name, length[0]);
+            int location = gl.glGetUniformLocation(id, uniformName);
+            if (location >= 0) {
+                uniforms.put(uniformName, new Uniform(this, uniformName, location, type[0], size[0]));
+            }
+        }
+
+        gl.glGetProgramiv(id, GL_ACTIVE_ATTRIBUTE_MAX_LENGTH, value, 0);
+        name = new byte[Math.max(1, value[0])];
+        gl.glGetProgramiv(id, GL_ACTIVE_ATTRIBUTES, value, 0);
+        for (int i = 0; i < value[0]; i++) {
+            gl.glGetActiveAttrib(id, i, name.length, length, 0, size, 0, type, 0, name, 0);
+            String attributeName = baseName(name, length[0]);
+            attributes.put(attributeName, gl.glGetAttribLocation(id, attributeName));
+        }
+    }
+
+    public int getId() { return id; }
+
+    /**
+     * @param name uniform name, without [0] for arrays
+     * @return the uniform's handle, one that ignores every set if the program has no such active uniform
+     */
+    public Uniform uniform(String name) {
+        Uniform uniform = uniforms.get(name);
+        return (uniform != null) ? uniform : new Uniform(this, name, -1, 0, 0);
+    }
+
+    /**
+     * @return every active uniform by name
+     */
+    public Map<String, Uniform> getUniforms() { return Collections.unmodifiableMap(uniforms); }
+
+    /**
+     * @param name attribute name
+     * @return the attribute's location, or -1 if the program has no such active attribute
+     */
+    public int getAttributeLocation(String name) {
+        return attributes.getOrDefault(name, -1);
+    }
+
+    public int getUploads() { return uploads; }
+    public int getSkipped() { return skipped; }
+
+    public void resetCounters() {
+        uploads = 0;
+        skipped = 0;
+    }
+
+    /**
+     * strips the [0] glGetActiveUniform appends to array names
+     */
+    private static String baseName(byte[] name, int length) {
+        String s = new String(name, 0, length, StandardCharsets.US_ASCII);
+        return s.endsWith("[0]") ? s.substring(0, s.length() - 3) : s;
+    }
+
+    /**
+     * one active uniform of a program, with the value last uploaded to it
+     */
+    public static class Uniform {
+        private final ShaderProgram program;
+        private final String name;
+        private final int location;
+        private final int type;
+        private final int size;
+
+        //last uploaded value, null until the first upload
+        private float[] floats;
+        private int intValue;
+        private boolean intSet;
+        private final float[] scratch = new float[16];
+
+        Uniform(ShaderProgram program, String name, int location, int type, int size) {
+            this.program = program;
+            this.name = name;
+            this.location = location;
+            this.type = type;
+            this.size = size;
+        }
+
+        public String getName() { return name; }
+        public int getLocation() { return location; }
+        public int getType() { return type; }
+        public int getSize() { return size; }
+
+        /**
+         * sets an int, bool or sampler uniform
+         */
+        public void set(int value) {
+            if (location < 0) {
+                return;
+            }
+            if (intSet && intValue == value) {
+                program.skipped++;
+                return;
+            }
+            intSet = true;
+            intValue = value;
+            program.uploads++;
+            gl().glProgramUniform1i(program.id, location, value);
+        }
+
+        /**
+         * sets a float uniform
+         */
+        public void set(float value) {
+            scratch[0] = value;
+            if (changed(1)) {
+                gl().glProgramUniform1f(program.id, location, value);
+            }
+        }
+
+        /**
+         * sets a vec3 uniform
+         * @param value at least three floats
+         */
+        public void set3(float[] value) {
+            System.arraycopy(value, 0, scratch, 0, 3);
+            if (changed(3)) {
+                gl().glProgramUniform3fv(program.id, location, 1, value, 0);
+            }
+        }
+
+        /**
+         * sets a vec4 uniform
+         * @param value at least four floats
+         */
+        public void set4(float[] value) {
+            System.arraycopy(value, 0, scratch, 0, 4);
+            if (changed(4)) {
+                gl().glProgramUniform4fv(program.id, location, 1, value, 0);
+            }
+        }
+
+        /**
+         * sets a mat4 uniform
+         */
+        public void set(Matrix4fc value) {
+            value.get(scratch);
+            if (changed(16)) {
+                gl().glProgramUniformMatrix4fv(program.id, location, 1, false, scratch, 0);
+            }
+        }
+
+        /**
+         * compares the first n scratch floats with the last upload and remembers them if they differ
+         */
+        private boolean changed(int n) {
+            if (location < 0) {
+                return false;
+            }
+            if (floats != null && floats.length == n && Arrays.equals(floats, 0, n, scratch, 0, n)) {
+                program.skipped++;
+                return false;
+            }
+            if (floats == null || floats.length != n) {
+                floats = new float[n];
+            }
+            System.arraycopy(scratch, 0, floats, 0, n);
+            program.uploads++;
+            return true;
+        }
+
+        private static GL4 gl() {
+            return (GL4) GLContext.getCurrentGL();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Runs the scene's animation at a fixed tick rate on its own thread, independent of how fast frames are drawn.
+ * Every tick advances the simulation by exactly one tick length and publishes an immutable Snapshot. The
+ * renderer never reads the simulation state itself: it samples the last two snapshots, one tick behind real
+ * time, and interpolates between them, so the animation moves smoothly at any frame rate and runs at the same
+ * speed whether frames come faster or slower than ticks.
+ *
+ * If the thread falls far behind, for example after the process was suspended, it skips the missed ticks
+ * instead of replaying them all at once. For reproducible runs the simulation can instead be started with
+ * startAt and stepped on the caller's thread with advanceTo, driven by any Clock.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class Simulation {
+
+    //ticks the thread may fall behind before it gives up catching up
+    private static final int MAX_LAG_TICKS = 25;
+
+    //the robot's bow swings between these angles at BOW_SPEED radians per second, the arm at ARM_SPEED
+    private static final float BOW_MIN = 0.0f;
+    private static final float BOW_MAX = (float) Math.toRadians(30);
+    private static final float BOW_SPEED = 0.5f;
+    private static final float ARM_MAX = (float) Math.toRadians(90);
+    private static final float ARM_SPEED = 1.0f;
+
+    private final long tickNanos;
+    private final float tickSeconds;
+    private Thread thread;
+    private volatile boolean running;
+
+    //the previous and the current snapshot, replaced together as a new array every tick and never modified
+    private volatile Snapshot[] latest;
+
+    //simulation state, only touched by the thread stepping the simulation
+    private long tick;
+    private long lastTick;
+    private float bowAngle = (float) Math.toRadians(1);
+    private float bowDirection = 1;
+    private float armAngle;
+    private float armDirection = 1;
+
+    /**
+     * constructor
+     * @param ticksPerSecond simulation rate
+     */
+    public Simulation(int ticksPerSecond) {
+        tickNanos = 1_000_000_000L / ticksPerSecond;
+        tickSeconds = 1.0f / ticksPerSecond;
+    }
+
+    /**
+     * publishes the initial state and starts ticking
+     */
+    public void start() {
+        startAt(System.nanoTime());
+        running = true;
+        thread = new Thread(this::run, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * publishes the initial state without starting the thread, advanceTo steps the simulation from there
+     * @param nanoTime time of the initial state
+     */
+    public void startAt(long nanoTime) {
+        lastTick = nanoTime;
+        Snapshot first = snapshot(nanoTime);
+        latest = new Snapshot[]{first, first};
+    }
+
+    /**
+     * runs every tick due by the given time on the calling thread, for simulations started with startAt
+     * @param nanoTime current time of the caller's clock
+     */
+    public void advanceTo(long nanoTime) {
+        while (nanoTime - lastTick >= tickNanos) {
+            tick(lastTick + tickNanos);
+        }
+    }
+
+    /**
+     * stops ticking and waits for the thread to finish
+     */
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * interpolates the simulation state one tick behind the given time
+     * @param nanoTime time of the frame being drawn, on the clock the simulation runs by
+     * @return the interpolated state
+     */
+    public Snapshot sample(long nanoTime) {
+        Snapshot[] pair = latest;
+        Snapshot previous = pair[0], current = pair[1];
+        if (current.nanoTime == previous.nanoTime) {
+            return current;
+        }
+        float alpha = (float) (nanoTime - tickNanos - previous.nanoTime) / (current.nanoTime - previous.nanoTime);
+        return previous.interpolate(current, Math.max(0.0f, Math.min(1.0f, alpha)));
+    }
+
+    public long getTickNanos() { return tickNanos; }
+
+    private void run() {
+        long next = lastTick;
+        while (running) {
+            next += tickNanos;
+            long wait;
+            while (running && (wait = next - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (System.nanoTime() - next > MAX_LAG_TICKS * tickNanos) {
+                next = System.nanoTime();
+            }
+            tick(next);
+        }
+    }
+
+    /**
+     * steps the state and publishes it as the snapshot of the given time
+     */
+    private void tick(long nanoTime) {
+        step();
+        lastTick = nanoTime;
+        latest = new Snapshot[]{latest[1], snapshot(nanoTime)};
+    }
+
+    /**
+     * advances the state by one tick
+     */
+    private void step() {
+        tick++;
+        if (bowAngle <= BOW_MIN) {
+            bowDirection = 1;
+        } else if (bowAngle >= BOW_MAX) {
+            bowDirection = -1;
+        }
+        bowAngle += bowDirection * BOW_SPEED * tickSeconds;
+
+        if (armAngle <= -ARM_MAX) {
+            armDirection = 1;
+        } else if (armAngle >= ARM_MAX) {
+            armDirection = -1;
+        }
+        armAngle += armDirection * ARM_SPEED * tickSeconds;
+    }
+
+    private Snapshot snapshot(long nanoTime) {
+        return new Snapshot(nanoTime, tick * tickSeconds, bowAngle, armAngle);
+    }
+
+    /**
+     * The simulation state at one instant. Never modified once created, so it can be handed between threads.
+     */
+    public static final class Snapshot {
+
+        //clock time the snapshot stands for, and the simulated time in seconds
+        public final long nanoTime;
+        public final float time;
+        public final float bowAngle;
+        public final float armAngle;
+
+        Snapshot(long nanoTime, float time, float bowAngle, float armAngle) {
+            this.nanoTime = nanoTime;
+            this.time = time;
+            this.bowAngle = bowAngle;
+            this.armAngle = armAngle;
+        }
+
+        /**
+         * @param next later snapshot
+         * @param alpha 0 for this snapshot, 1 for next
+         * @return the state in between
+         */
+        public Snapshot interpolate(Snapshot next, float alpha) {
+            return new Snapshot(nanoTime + (long) ((next.nanoTime - nanoTime) * (double) alpha),
+                    time + (next.time - time) * alpha,
+                    bowAngle + (next.bowAngle - bowAngle) * alpha,
+                    armAngle + (next.armAngle - armAngle) * alpha);
+        }
+    }
+}
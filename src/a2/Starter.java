@@ -1,6 +1,7 @@
 /**
  * creates a 3d virtual world using objects created in blender and objects created explicitly with vertexs that
- * can be traversed through using the wasdeq and up down left right arrow keys.
+ * can be traversed through using the wasdeq and up down left right arrow keys. Runs in a window, or headless on
+ * an offscreen drawable driven by a HeadlessRunner, in which case nothing depends on real time.
  *
  * @author Jacob Hua
  * @version 1.0
@@ -9,51 +10,58 @@
  */
 package a2;
 
-import com.jogamp.common.nio.Buffers;
 import com.jogamp.opengl.GL4;
 import com.jogamp.opengl.GLAutoDrawable;
 import com.jogamp.opengl.GLContext;
 import com.jogamp.opengl.GLEventListener;
 import com.jogamp.opengl.awt.GLCanvas;
-import com.jogamp.opengl.util.Animator;
 import org.joml.*;
 
 import javax.swing.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.Math;
-import java.nio.FloatBuffer;
+import java.lang.Runtime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Future;
 
 import static com.jogamp.opengl.GL.*;
 
-public class Starter extends JFrame implements GLEventListener, KeyListener {
+public class Starter implements GLEventListener, KeyListener {
 
+    //the window, null when running headless
+    private JFrame frame;
     private GLCanvas myCanvas;
+    //time source of the animation, real time in the window
+    private final Clock clock;
 
-    private int renderingProgram;
-    private int axesRenderingProgram;
+    private ShaderProgram renderingProgram;
+    private ShaderProgram instancedProgram;
+    private ShaderProgram axesRenderingProgram;
+    //program the objects are drawn with, the instanced one unless -Da2.instancing=false
+    private ShaderProgram objectProgram;
 
-    private int vao[] = new int[1];
-    private int vbo[] = new int[9];
     private float cameraX, cameraY, cameraZ;
 
     //world matrices
-    private FloatBuffer vals = Buffers.newDirectFloatBuffer(16);
-    private Matrix4fStack mvStack = new Matrix4fStack(8);
+    private Matrix4f modelView = new Matrix4f();
     private Matrix4f pMat = new Matrix4f();
     private Matrix4f vMat = new Matrix4f();
-    private Matrix4f mMat = new Matrix4f();
-    private int mvLoc;
-    private int projLoc;
     private float aspect;
 
-    //texture
-    private int dummyTexture;
-    private int gordonFaceTexture;
+    //texture, every object texture is a layer of one texture array
+    private int textureArray;
+    private int dummyLayer;
+    private int gordonFaceLayer;
     private int importedModelTexture;
-    private int shuttleTexture;
-    private int mushroomTexture;
-    private int cubeHeadTexture;
+    private int shuttleLayer;
+    private int mushroomLayer;
+    private int cubeHeadLayer;
 
     //model
     private ImportedModel mushroom;
@@ -62,20 +70,67 @@ public class Starter extends JFrame implements GLEventListener, KeyListener {
     private Cube cube;
     private Rectangle rectangle;
 
+    //meshes uploaded to the GPU, the static ones in one shared geometry pool
+    private GeometryPool geometry;
+    private Mesh rectangleMesh;
+    private Mesh cubeHeadMesh;
+    private Mesh mushroomMesh;
+    private Mesh shuttleMesh;
+    private Mesh axesMesh;
+
+    //draws, triangles and state changes per frame, printed once a second with -Da2.stats
+    private RenderStats renderStats = new RenderStats(Boolean.getBoolean("a2.stats"));
+    //draws are queued during display and executed sorted by state
+    private RenderQueue renderQueue = new RenderQueue(renderStats);
+
+    //scene graph, only the animated nodes change their local transforms each frame
+    private SceneNode scene;
+    private SceneNode robot;
+    private SceneNode mushroomNode;
+    private SceneNode shuttleNode;
+    private List<SceneNode> rotationNodes = new ArrayList<>();
+    private List<SceneNode> bowNodes = new ArrayList<>();
+
+    //objects outside the view frustum are skipped before they reach the render queue
+    private FrustumCuller culler = new FrustumCuller();
+    //static mushrooms and shuttles scattered around the scene, from -Da2.scatter
+    private int scatterSize = Integer.getInteger("a2.scatter", 0);
+    //with -Da2.gpuCulling the scattered models skip the scene graph and are culled and drawn by a compute shader,
+    //-Da2.gpuCullingCheck also compares its results with the CPU culler every few seconds
+    private GpuCuller gpuCuller;
+    private boolean gpuCullingCheck = Boolean.getBoolean("a2.gpuCullingCheck");
+    private int frameNumber;
+
+    //robots drawn besides the animated one, from -Da2.crowd
+    private static final float CROWD_SPACING = 6.0f;
+    private int crowdSize = Integer.getInteger("a2.crowd", 0);
+    private int crowdColumns = Math.max(1, (int) Math.ceil(Math.sqrt(crowdSize)));
+
     //time variables
-    private long elapsedTime;
-    private long startTime;
-    private long currentTime;
+    private long launchTime;
+    private boolean firstFrameDrawn;
     private float tf;
 
-    //movement variables
-    private float movementIncrement;
+    //display loop pacing and frame time histograms, the last second's shown in the title bar
+    private FrameScheduler scheduler;
+    private long titleTime;
+
+    //cpu and gpu time per section of the frame with -Da2.profile, shown in an overlay in the window and
+    //written as a Chrome trace to -Da2.trace
+    private GpuProfiler profiler = GpuProfiler.fromProperties();
+    private ProfilerOverlay overlay;
+    private boolean overlayFlag = true;
+    private long profileTime;
+
+    //per frame gl call counts with -Da2.countGL, printed once a second
+    private GLCallCounter glCalls = Boolean.getBoolean("a2.countGL") ? new GLCallCounter() : null;
+    private long glCallsTime;
 
-    private float leftArmMovementAngle = 0;
-    private float leftArmRotationDirection = 1;
+    //records the gl calls up to frame -Da2.glCaptureFrame to -Da2.glCapture for GLFrameReplayer
+    private GLFrameRecorder glCapture;
 
-    private float bowAngle = (float) Math.toRadians(1);
-    private float bodyRotationDirection = 1;
+    //the bow and arm swing run on a fixed tick of their own, -Da2.tickRate ticks per second
+    private Simulation simulation = new Simulation(Integer.getInteger("a2.tickRate", 120));
 
     private float lookAtCenterAngle;
 
@@ -86,18 +141,35 @@ public class Starter extends JFrame implements GLEventListener, KeyListener {
     boolean axisFlag = true;
 
     /**
-     * constructor
+     * constructor, opens the window and starts drawing
      */
     public Starter() {
-        setTitle("assignment 2");
-        setSize(600,600);
+        launchTime = System.nanoTime();
+        clock = Clock.SYSTEM;
+        frame = new JFrame();
+        frame.setTitle("assignment 2");
+        frame.setSize(600,600);
         myCanvas = new GLCanvas();
         myCanvas.addGLEventListener(this);
         myCanvas.addKeyListener(this);
-        this.add(myCanvas);
-        this.setVisible(true);
-        Animator animator = new Animator(myCanvas);
-        animator.start();
+        frame.add(myCanvas);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setVisible(true);
+        scheduler = FrameScheduler.fromProperties(myCanvas);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("frame times: " + scheduler.getTotal().summary());
+            profiler.writeTrace();
+        }));
+        scheduler.start();
+    }
+
+    /**
+     * constructor for headless runs, the caller adds this listener to its drawable and calls display
+     * @param clock time source of the animation, advanced by the caller between frames
+     */
+    Starter(Clock clock) {
+        launchTime = System.nanoTime();
+        this.clock = clock;
     }
 
     /**
@@ -106,24 +178,70 @@ public class Starter extends JFrame implements GLEventListener, KeyListener {
      */
     @Override
     public void init(GLAutoDrawable glAutoDrawable) {
+        String capture = System.getProperty("a2.glCapture");
+        if(capture != null) {
+            try {
+                glCapture = new GLFrameRecorder(new File(capture), Integer.getInteger("a2.glCaptureFrame", 60),
+                        glAutoDrawable.getSurfaceWidth(), glAutoDrawable.getSurfaceHeight());
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            glAutoDrawable.setGL(GLFrameRecorder.wrap(glAutoDrawable.getGL(), glCapture));
+        }
+        if(glCalls != null) {
+            //every later GLContext.getCurrentGL returns the counting GL
+            glAutoDrawable.setGL(GLCallCounter.wrap(glAutoDrawable.getGL(), glCalls));
+        }
         GL4 gl = (GL4) GLContext.getCurrentGL();
-        renderingProgram = Utils.createShaderProgram("a2/vertShader.glsl", "a2/fragShader.glsl");
-        axesRenderingProgram = Utils.createShaderProgram("a2/axesVertShader.glsl", "a2/axesFragShader.glsl");
+        if(scheduler != null) {
+            scheduler.init(gl);
+        }
+        if(frame != null && profiler.isEnabled()) {
+            overlay = new ProfilerOverlay(gl);
+        }
 
-        startTime = System.currentTimeMillis();
+        //start loading models and decoding textures on worker threads
+        AssetLoader loader = new AssetLoader();
+        Future<ImportedModel> mushroomModel = loader.loadModel("mushroom.obj");
+        Future<ImportedModel> shuttleModel = loader.loadModel("shuttle.obj");
+        int layerSize = TextureArrayBuilder.defaultLayerSize();
+        Future<TextureCache.Entry> dummyTextureData = loader.loadTextureLayer(gl.getGLProfile(), "a2/brick1.jpg", layerSize, layerSize);
+        Future<TextureCache.Entry> gordonFaceTextureData = loader.loadTextureLayer(gl.getGLProfile(), "a2/gordonPic.jpg", layerSize, layerSize);
+        Future<TextureCache.Entry> shuttleTextureData = loader.loadTextureLayer(gl.getGLProfile(), "a2/spstob_1.jpg", layerSize, layerSize);
+        Future<TextureCache.Entry> mushroomTextureData = loader.loadTextureLayer(gl.getGLProfile(), "a2/mushroom_color.png", layerSize, layerSize);
+        Future<TextureCache.Entry> cubeHeadTextureData = loader.loadTextureLayer(gl.getGLProfile(), "a2/cubehead.png", layerSize, layerSize);
+
+        renderingProgram = ShaderProgram.load("a2/vertShader.glsl", "a2/fragShader.glsl");
+        instancedProgram = ShaderProgram.load("a2/instancedVertShader.glsl", "a2/instancedFragShader.glsl");
+        axesRenderingProgram = ShaderProgram.load("a2/axesVertShader.glsl", "a2/axesFragShader.glsl");
+        objectProgram = Boolean.parseBoolean(System.getProperty("a2.instancing", "true")) ? instancedProgram : renderingProgram;
+
+        //the window's simulation ticks on its own thread, a headless one is stepped with every frame
+        if(frame != null) {
+            simulation.start();
+        }else{
+            simulation.startAt(clock.nanoTime());
+        }
 
         cameraX = 0.0f; cameraY = 2.0f; cameraZ = 15.0f;
+        mushroom = loader.await(mushroomModel);
+        shuttle = loader.await(shuttleModel);
         setupVertices();
 
         //camera position and angle variables
         camera = new Camera(cameraX, cameraY, cameraZ);
 
-        //load textures
-        dummyTexture = Utils.loadTexture("a2/brick1.jpg");
-        gordonFaceTexture = Utils.loadTexture("a2/gordonPic.jpg");
-        shuttleTexture = Utils.loadTexture("a2/spstob_1.jpg");
-        mushroomTexture = Utils.loadTexture("a2/mushroom_color.png");
-        cubeHeadTexture = Utils.loadTexture("a2/cubehead.png");
+        //upload textures as layers of one array texture, bound to unit 0 for the whole run
+        TextureArrayBuilder textures = new TextureArrayBuilder(layerSize, layerSize);
+        dummyLayer = textures.add(loader.await(dummyTextureData));
+        gordonFaceLayer = textures.add(loader.await(gordonFaceTextureData));
+        shuttleLayer = textures.add(loader.await(shuttleTextureData));
+        mushroomLayer = textures.add(loader.await(mushroomTextureData));
+        cubeHeadLayer = textures.add(loader.await(cubeHeadTextureData));
+        gl.glActiveTexture(GL_TEXTURE0);
+        textureArray = textures.build();
+        buildScene();
+        loader.finish();
 
         //print out system aOpenGL, JOGL and JAVA
         System.out.println("OpenGL version: " +  gl.glGetString(GL_VERSION));
@@ -134,7 +252,13 @@ public class Starter extends JFrame implements GLEventListener, KeyListener {
 
 
     @Override
-    public void dispose(GLAutoDrawable glAutoDrawable) {}
+    public void dispose(GLAutoDrawable glAutoDrawable) {
+        simulation.stop();
+        //the window writes its trace on exit instead, see the constructor
+        if(frame == null) {
+            profiler.writeTrace();
+        }
+    }
 
     /**
      * displays objects onto screen at clock speed
@@ -143,21 +267,27 @@ public class Starter extends JFrame implements GLEventListener, KeyListener {
     @Override
     public void display(GLAutoDrawable glAutoDrawable) {
         GL4 gl = (GL4) GLContext.getCurrentGL();
+        if(scheduler != null) {
+            scheduler.beginFrame(gl);
+            updateTitle();
+        }
+        profiler.begin(gl, "frame");
         gl.glClear(GL_DEPTH_BUFFER_BIT);
         gl.glClear(GL_COLOR_BUFFER_BIT);
 
-        gl.glUseProgram(renderingProgram);
-
-
-        elapsedTime = System.currentTimeMillis() - startTime;
-        tf = (float)elapsedTime/1000;
-
-        mvLoc = gl.glGetUniformLocation(renderingProgram, "mv_matrix");
-        projLoc = gl.glGetUniformLocation(renderingProgram, "proj_matrix");
+        profiler.begin(gl, "scene update");
+        //the simulation state interpolated for this frame
+        long now = clock.nanoTime();
+        if(frame == null) {
+            simulation.advanceTo(now);
+        }
+        Simulation.Snapshot state = simulation.sample(now);
+        tf = state.time;
 
-        aspect = (float) myCanvas.getWidth() / (float) myCanvas.getHeight();
+        int width = glAutoDrawable.getSurfaceWidth(), height = glAutoDrawable.getSurfaceHeight();
+        aspect = (float) width / (float) height;
         pMat.setPerspective((float) Math.toRadians(60.0f), aspect, 0.1f, 1000.0f);
-        gl.glUniformMatrix4fv(projLoc, 1, false, pMat.get(vals));
+        renderQueue.begin(pMat, height);
 
         //rotation matrix
         camera.updateCameraRotation();
@@ -165,311 +295,227 @@ public class Starter extends JFrame implements GLEventListener, KeyListener {
         camera.updateCameraPosition();
 
         vMat = camera.vMatrix();
-        mMat.identity();
-        mMat.translate(0.0f,0.0f,0.0f);
 
-
-        mvStack.pushMatrix();//pushes camera onto matrix
-        mvStack.identity();
-        mvStack.mul(vMat);
-        mvStack.mul(mMat);
-
-
-        //creates a body
-        mvStack.pushMatrix();//translates entire body
-        mvStack.translate((float)Math.sin(tf)*5.0f, 0.0f,(float)Math.cos(tf)*5.0f);
-
-        mvStack.pushMatrix();
-        mvStack.rotate((float)Math.toRadians(180), 0, 1, 0);
-        mvStack.rotate(tf, 0, 1, 0);
-
-
-        //rotates the body
-        mvStack.pushMatrix();//bow rotation
-        movementIncrement = (float)(elapsedTime - currentTime) / 2000;
-        if(bowAngle <= Math.toRadians(0)) {
-            bodyRotationDirection = 1;
-        }else if(bowAngle >= Math.toRadians(30)){
-            bodyRotationDirection = -1;
+        //moves the animated nodes, everything else keeps its cached world matrix
+        robot.editLocal().translation((float)Math.sin(tf)*5.0f, 0.0f,(float)Math.cos(tf)*5.0f);
+        //the first robot is the animated one, the crowd robots each turn with their own phase
+        for(int i = 0; i < rotationNodes.size(); i++) {
+            float phase = (i == 0) ? 0.0f : (i - 1) * 0.37f;
+            rotationNodes.get(i).editLocal().rotationY((float)Math.toRadians(180) + tf + phase);
         }
-        bowAngle += (bodyRotationDirection * movementIncrement);
-
-        mvStack.translate(0.0f, -0.5f, 0.0f);
-        mvStack.rotate((float)bowAngle, 1.0f, 0.0f, 0.0f);
-        mvStack.translate(0.0f, 0.5f, 0.0f);
-
-
-        gl.glUniformMatrix4fv(mvLoc, 1, false, mvStack.get(vals));
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER,vbo[0]);
-        gl.glVertexAttribPointer(0,3,GL_FLOAT,false, 0, 0);
-        gl.glEnableVertexAttribArray(0);
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[1]);
-        gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-        gl.glEnableVertexAttribArray(1);
-
-        gl.glActiveTexture(GL_TEXTURE0);
-        gl.glBindTexture(GL_TEXTURE_2D, dummyTexture);
-
-        gl.glEnable(GL_DEPTH_TEST);
-        gl.glEnable(GL_LEQUAL);
-        gl.glEnable(GL_CULL_FACE);
-
-        gl.glDrawArrays(GL_TRIANGLES, 0, 36);
-
-
-        //creates left arm
-
-        //calculation for arm rotation
-        movementIncrement = (float)(elapsedTime - currentTime) / 1000;
-        if(leftArmMovementAngle <= -Math.toRadians(90)) {
-            leftArmRotationDirection = 1;
-        }else if(leftArmMovementAngle >= Math.toRadians(90)){
-            leftArmRotationDirection = -1;
+        for(SceneNode bow : bowNodes) {
+            bow.editLocal().translation(0.0f, -0.5f, 0.0f).rotateX(state.bowAngle).translate(0.0f, 0.5f, 0.0f);
         }
-        leftArmMovementAngle += (leftArmRotationDirection * movementIncrement);
-
-        mvStack.pushMatrix();//translate arm
-        mvStack.translate(-1.3f, 0.2f, 0.0f);
-
-
-        mvStack.pushMatrix();//rotate arm
-        mvStack.translate(0.0f, 1.1f, 0.0f);
-        mvStack.rotate((float)-Math.toRadians(140), 1.0f, 0.0f, 0.0f);
-        mvStack.translate(0.0f, -1.1f, 0.0f);
-
-
-        mvStack.pushMatrix();//scale arm
-        mvStack.scale(0.25f, 0.9f, 0.25f);
-
-        gl.glUniformMatrix4fv(mvLoc, 1, false, mvStack.get(vals));
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER,vbo[0]);
-        gl.glVertexAttribPointer(0,3,GL_FLOAT,false, 0, 0);
-        gl.glEnableVertexAttribArray(0);
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[1]);
-        gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-        gl.glEnableVertexAttribArray(1);
-
-        gl.glActiveTexture(GL_TEXTURE0);
-        gl.glBindTexture(GL_TEXTURE_2D, dummyTexture);
-
-        gl.glEnable(GL_DEPTH_TEST);
-        gl.glEnable(GL_LEQUAL);
-        gl.glEnable(GL_CULL_FACE);
-
-        gl.glDrawArrays(GL_TRIANGLES, 0, 36);
-
-        mvStack.popMatrix();//arm scale
-        mvStack.popMatrix();//arm rotate
-        mvStack.popMatrix();//arm translation
-
-        //creates right arm
-        mvStack.pushMatrix();//arm translation
-        mvStack.translate(1.3f, 0.2f, 0.0f);
-
-        mvStack.pushMatrix();//rotate arm
-        mvStack.translate(0.0f, 1.1f, 0.0f);
-        mvStack.rotate((float)-Math.toRadians(140), 1.0f, 0.0f, 0.0f);
-        mvStack.translate(0.0f, -1.1f, 0.0f);
-
-        mvStack.pushMatrix();//arm scale
-        mvStack.scale(0.25f, 0.9f, 0.25f);
-        gl.glUniformMatrix4fv(mvLoc, 1, false, mvStack.get(vals));
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER,vbo[0]);
-        gl.glVertexAttribPointer(0,3,GL_FLOAT,false, 0, 0);
-        gl.glEnableVertexAttribArray(0);
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[1]);
-        gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-        gl.glEnableVertexAttribArray(1);
-
-        gl.glActiveTexture(GL_TEXTURE0);
-        gl.glBindTexture(GL_TEXTURE_2D, dummyTexture);
-
-        gl.glEnable(GL_DEPTH_TEST);
-        gl.glEnable(GL_LEQUAL);
-        gl.glEnable(GL_CULL_FACE);
-
-        gl.glDrawArrays(GL_TRIANGLES, 0, 36);
-        mvStack.popMatrix(); // scale
-        mvStack.popMatrix(); // rotate
-        mvStack.popMatrix(); // translate
-
-
-        //creates head
-        mvStack.pushMatrix();//head translation
-        mvStack.translate(0.0f, 2.55f, 0.0f);
-        gl.glUniformMatrix4fv(mvLoc, 1, false, mvStack.get(vals));
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER,vbo[2]);
-        gl.glVertexAttribPointer(0,3,GL_FLOAT,false, 0, 0);
-        gl.glEnableVertexAttribArray(0);
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[3]);
-        gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-        gl.glEnableVertexAttribArray(1);
-
-        gl.glActiveTexture(GL_TEXTURE0);
-        gl.glBindTexture(GL_TEXTURE_2D, cubeHeadTexture);
-
-        gl.glEnable(GL_DEPTH_TEST);
-        gl.glEnable(GL_LEQUAL);
-        gl.glEnable(GL_CULL_FACE);
-
-        gl.glDrawArrays(GL_TRIANGLES, 0, 36);
-        mvStack.popMatrix();//head translation
-
-
-        mvStack.popMatrix();//bow movement
-
-        //creates left leg
-        mvStack.pushMatrix();//leg translation
-        mvStack.translate(-0.5f, -2.0f, 0.0f);
-        mvStack.pushMatrix();//leg scale
-        mvStack.scale(0.25f, 0.9f, 0.25f);
-        gl.glUniformMatrix4fv(mvLoc, 1, false, mvStack.get(vals));
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER,vbo[0]);
-        gl.glVertexAttribPointer(0,3,GL_FLOAT,false, 0, 0);
-        gl.glEnableVertexAttribArray(0);
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[1]);
-        gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-        gl.glEnableVertexAttribArray(1);
-
-        gl.glActiveTexture(GL_TEXTURE0);
-        gl.glBindTexture(GL_TEXTURE_2D, dummyTexture);
-
-        gl.glEnable(GL_DEPTH_TEST);
-        gl.glEnable(GL_LEQUAL);
-        gl.glEnable(GL_CULL_FACE);
-
-        gl.glDrawArrays(GL_TRIANGLES, 0, 36);
-        mvStack.popMatrix(); //leg scale
-        mvStack.popMatrix(); //leg translation
-
-        //right leg
-        mvStack.pushMatrix();//leg translation
-        mvStack.translate(0.5f, -2.0f, 0.0f);
-        mvStack.pushMatrix();//leg scale
-        mvStack.scale(0.25f, 0.9f, 0.25f);
-        gl.glUniformMatrix4fv(mvLoc, 1, false, mvStack.get(vals));
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER,vbo[0]);
-        gl.glVertexAttribPointer(0,3,GL_FLOAT,false, 0, 0);
-        gl.glEnableVertexAttribArray(0);
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[1]);
-        gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-        gl.glEnableVertexAttribArray(1);
-
-        gl.glActiveTexture(GL_TEXTURE0);
-        gl.glBindTexture(GL_TEXTURE_2D, dummyTexture);
-
-        gl.glEnable(GL_DEPTH_TEST);
-        gl.glEnable(GL_LEQUAL);
-        gl.glEnable(GL_CULL_FACE);
-
-        gl.glDrawArrays(GL_TRIANGLES, 0, 36);
-        mvStack.popMatrix(); //leg scale
-        mvStack.popMatrix(); //leg translation
-
-        //pops the rest of the stack
-        mvStack.popMatrix(); //pop rotation
-        mvStack.popMatrix(); //pop body
-
-
-        //creates mushroom
-        mvStack.pushMatrix();//mushroom translation
-        mvStack.translate(0, -2.0f,0);
-        mvStack.pushMatrix();//mushroom rotate
-        mvStack.rotate(tf, 0, 1, 0);
-        mvStack.pushMatrix();//mushroom scale
-        mvStack.scale(0.5f, 0.5f, 0.5f);
-        gl.glUniformMatrix4fv(mvLoc, 1, false, mvStack.get(vals));
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER,vbo[4]);
-        gl.glVertexAttribPointer(0,3,GL_FLOAT,false, 0, 0);
-        gl.glEnableVertexAttribArray(0);
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[5]);
-        gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-        gl.glEnableVertexAttribArray(1);
-
-        gl.glActiveTexture(GL_TEXTURE0);
-        gl.glBindTexture(GL_TEXTURE_2D, mushroomTexture);
-
-        gl.glEnable(GL_DEPTH_TEST);
-        gl.glEnable(GL_LEQUAL);
-        gl.glEnable(GL_CULL_FACE);
-
-        gl.glDrawArrays(GL_TRIANGLES, 0, mushroom.getNumVertices());
-
-        mvStack.popMatrix(); //mushroom scale
-        mvStack.popMatrix(); //mushroom rotate
-        mvStack.popMatrix(); // mushroom translation
+        mushroomNode.editLocal().translation(0, -2.0f, 0).rotateY(tf).scale(0.5f);
+        shuttleNode.editLocal().translation((float)Math.sin(tf * 2)*3.0f, 5.0f, (float)Math.cos(tf * 2)*3.0f)
+                .rotateY((float)Math.toRadians(-90) + tf * 2).scale(1.5f);
+        renderStats.addTransformUpdates(scene.updateWorld());
+        profiler.end(gl);
+
+        culler.update(pMat, vMat);
+        if(gpuCuller != null) {
+            profiler.begin(gl, "gpu cull");
+            gpuCuller.cull(gl, renderQueue.getState(), pMat, vMat, height);
+            profiler.end(gl);
+        }
+        profiler.begin(gl, "cull and submit");
+        submitScene(scene);
+        renderStats.addCulling(culler.getDrawn(), culler.getCulled());
+        culler.resetCounters();
 
+        //creates axis if spacebar is pushed
+        if(axisFlag) {
+            renderQueue.submit(axesRenderingProgram, 0, axesMesh, 0, vMat);
+        }
+        profiler.end(gl);
+
+        profiler.begin(gl, "draw queue");
+        renderQueue.flush(gl);
+        profiler.end(gl);
+        if(gpuCuller != null) {
+            profiler.begin(gl, "gpu culled draw");
+            gpuCuller.draw(gl, renderQueue.getState(), textureArray, pMat);
+            profiler.end(gl);
+            if(gpuCullingCheck && frameNumber % 300 == 0) {
+                System.out.println("gpu culling check " + (gpuCuller.check(gl, pMat, vMat) ? "passed" : "failed"));
+            }
+        }
+        if(overlay != null && overlayFlag) {
+            profiler.begin(gl, "overlay");
+            overlay.draw(gl, renderQueue.getState(), width, height);
+            profiler.end(gl);
+        }
+        profiler.end(gl);
+        profiler.endFrame(gl);
+        showProfile(gl);
+        printGLCalls();
+        if(glCapture != null) {
+            glCapture.endFrame();
+        }
+        frameNumber++;
+        renderStats.endFrame();
 
-        //creates shuttle
-        mvStack.pushMatrix();//shuttle translation
-        mvStack.translate(0, 5,0);
-        mvStack.translate((float)Math.sin(tf * 2)*3.0f, 0.0f,(float)Math.cos(tf * 2)*3.0f);
-        mvStack.pushMatrix();//shuttle rotate
-        mvStack.rotate((float)Math.toRadians(-90), 0, 1, 0);
-        mvStack.rotate(tf * 2, 0, 1, 0);
-        mvStack.pushMatrix();//shuttle scale
-        mvStack.scale(1.5f, 1.5f, 1.5f);
-        gl.glUniformMatrix4fv(mvLoc, 1, false, mvStack.get(vals));
+        if(!firstFrameDrawn) {
+            firstFrameDrawn = true;
+            System.out.printf("first frame after %.1f ms%n", (System.nanoTime() - launchTime) / 1e6);
+        }
 
-        gl.glBindBuffer(GL_ARRAY_BUFFER,vbo[6]);
-        gl.glVertexAttribPointer(0,3,GL_FLOAT,false, 0, 0);
-        gl.glEnableVertexAttribArray(0);
+    }
 
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[7]);
-        gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-        gl.glEnableVertexAttribArray(1);
+    /**
+     * once a second, shows the profiler's section times in the overlay, or prints them when headless
+     */
+    private void showProfile(GL4 gl) {
+        long now = System.nanoTime();
+        if(!profiler.isEnabled() || now - profileTime < 1_000_000_000L) {
+            return;
+        }
+        profileTime = now;
+        List<String> report = profiler.getReport();
+        if(overlay != null) {
+            overlay.setText(gl, renderQueue.getState(), report);
+        }else{
+            report.forEach(System.out::println);
+        }
+    }
 
-        gl.glActiveTexture(GL_TEXTURE0);
-        gl.glBindTexture(GL_TEXTURE_2D, shuttleTexture);
+    /**
+     * ends the counted frame and prints its gl call counts, once a second
+     */
+    private void printGLCalls() {
+        if(glCalls == null) {
+            return;
+        }
+        glCalls.endFrame();
+        long now = System.nanoTime();
+        if(now - glCallsTime >= 1_000_000_000L) {
+            glCallsTime = now;
+            System.out.println(glCalls.getLastFrame().summary());
+        }
+    }
 
-        gl.glEnable(GL_DEPTH_TEST);
-        gl.glEnable(GL_LEQUAL);
-        gl.glEnable(GL_CULL_FACE);
+    /**
+     * @return the gl call counter, null unless -Da2.countGL is set
+     */
+    GLCallCounter getGLCallCounter() { return glCalls; }
 
-        gl.glDrawArrays(GL_TRIANGLES, 0, mushroom.getNumVertices());
-        mvStack.popMatrix(); //mushroom scale
-        mvStack.popMatrix(); //mushroom rotate
-        mvStack.popMatrix(); // mushroom translation
+    /**
+     * shows the pacing mode and the last second's frame time percentiles in the title bar, once a second
+     */
+    private void updateTitle() {
+        long now = clock.nanoTime();
+        FrameTimeHistogram recent = scheduler.getRecent();
+        if(now - titleTime < 1_000_000_000L || recent.getCount() == 0) {
+            return;
+        }
+        String title = String.format("assignment 2 - %s, p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+                scheduler.getMode().name().toLowerCase(), recent.getPercentile(50), recent.getPercentile(99), recent.getMax());
+        recent.reset();
+        titleTime = now;
+        SwingUtilities.invokeLater(() -> frame.setTitle(title));
+    }
 
-        //creates axis if spacebar is pushed
-        if(axisFlag) {
-            mvStack.pushMatrix();
-            gl.glUseProgram(axesRenderingProgram);
-            mvLoc = gl.glGetUniformLocation(axesRenderingProgram, "mv_matrix");
-            projLoc = gl.glGetUniformLocation(axesRenderingProgram, "proj_matrix");
+    @Override
+    public void reshape(GLAutoDrawable glAutoDrawable, int i, int i1, int i2, int i3) {}
 
-            gl.glUniformMatrix4fv(projLoc, 1, false, pMat.get(vals));
-            gl.glUniformMatrix4fv(mvLoc, 1, false, mvStack.get(vals));
+    /**
+     * builds the scene graph: the animated robot, the crowd, the mushroom, the shuttle and the scattered models
+     */
+    private void buildScene() {
+        scene = new SceneNode();
+        robot = scene.addChild(new SceneNode());
+        buildRobot(robot);
+
+        //a grid of robots behind the scene
+        SceneNode crowd = scene.addChild(new SceneNode());
+        for(int i = 0; i < crowdSize; i++) {
+            SceneNode position = crowd.addChild(new SceneNode());
+            position.editLocal().translation((i % crowdColumns - crowdColumns / 2) * CROWD_SPACING, 0.0f,
+                    -20.0f - (i / crowdColumns) * CROWD_SPACING);
+            buildRobot(position);
+        }
 
+        mushroomNode = scene.addChild(new SceneNode(mushroomMesh, mushroomLayer));
+        shuttleNode = scene.addChild(new SceneNode(shuttleMesh, shuttleLayer));
 
-            gl.glDrawArrays(GL_LINES, 0, 6);
-            mvStack.popMatrix();
+        //static models scattered in a 400 unit square around the scene, the same layout every run
+        SceneNode scatter = scene.addChild(new SceneNode());
+        Random random = new Random(42);
+        boolean gpuCulling = Boolean.getBoolean("a2.gpuCulling");
+        if(gpuCulling && Boolean.getBoolean("a2.packedVertices")) {
+            System.out.println("gpu culling needs the geometry pool, ignored with packed vertices");
+            gpuCulling = false;
         }
+        if(gpuCulling) {
+            gpuCuller = new GpuCuller((GL4) GLContext.getCurrentGL(), geometry, instancedProgram);
+            System.out.println("gpu culling, the scattered models are not counted in the drawn and culled objects");
+        }
+        Matrix4f world = new Matrix4f();
+        for(int i = 0; i < scatterSize; i++) {
+            Mesh mesh = (i % 2 == 0) ? mushroomMesh : shuttleMesh;
+            int layer = (i % 2 == 0) ? mushroomLayer : shuttleLayer;
+            world.translation(random.nextFloat() * 400.0f - 200.0f, random.nextFloat() * 40.0f - 10.0f,
+                    random.nextFloat() * 400.0f - 200.0f).rotateY(random.nextFloat() * 6.2832f);
+            if(gpuCuller != null) {
+                gpuCuller.add(mesh, layer, world);
+            }else{
+                scatter.addChild(new SceneNode(mesh, layer)).setLocal(world);
+            }
+        }
+        if(gpuCuller != null) {
+            gpuCuller.upload((GL4) GLContext.getCurrentGL());
+        }
+    }
 
-        mvStack.popMatrix();//pop camera
-        currentTime = System.currentTimeMillis() - startTime;
-
+    /**
+     * builds the five rectangles and the head of one robot under a node giving its position
+     */
+    private void buildRobot(SceneNode position) {
+        SceneNode rotation = position.addChild(new SceneNode());
+        rotationNodes.add(rotation);
+
+        //the body, arms and head bow together
+        SceneNode bow = rotation.addChild(new SceneNode());
+        bowNodes.add(bow);
+        bow.addChild(new SceneNode(rectangleMesh, dummyLayer));
+
+        //left arm: translate, rotate about the shoulder, scale
+        bow.addChild(new SceneNode(rectangleMesh, dummyLayer)).editLocal()
+                .translation(-1.3f, 0.2f, 0.0f)
+                .translate(0.0f, 1.1f, 0.0f).rotateX((float)-Math.toRadians(140)).translate(0.0f, -1.1f, 0.0f)
+                .scale(0.25f, 0.9f, 0.25f);
+
+        //right arm
+        bow.addChild(new SceneNode(rectangleMesh, dummyLayer)).editLocal()
+                .translation(1.3f, 0.2f, 0.0f)
+                .translate(0.0f, 1.1f, 0.0f).rotateX((float)-Math.toRadians(140)).translate(0.0f, -1.1f, 0.0f)
+                .scale(0.25f, 0.9f, 0.25f);
+
+        //head
+        bow.addChild(new SceneNode(cubeHeadMesh, cubeHeadLayer)).editLocal().translation(0.0f, 2.55f, 0.0f);
+
+        //legs
+        rotation.addChild(new SceneNode(rectangleMesh, dummyLayer)).editLocal()
+                .translation(-0.5f, -2.0f, 0.0f).scale(0.25f, 0.9f, 0.25f);
+        rotation.addChild(new SceneNode(rectangleMesh, dummyLayer)).editLocal()
+                .translation(0.5f, -2.0f, 0.0f).scale(0.25f, 0.9f, 0.25f);
     }
 
-    @Override
-    public void reshape(GLAutoDrawable glAutoDrawable, int i, int i1, int i2, int i3) {}
+    /**
+     * queues every node of a subtree that has a mesh and is inside the view frustum, with the view applied to its cached world matrix
+     */
+    private void submitScene(SceneNode node) {
+        if(node.getMesh() != null && culler.isVisible(node.getMesh().getBounds(), node.getWorld())) {
+            modelView.set(vMat).mul(node.getWorld());
+            renderQueue.submit(objectProgram, textureArray, node.getMesh(), node.getLayer(), modelView);
+        }
+        for(SceneNode child : node.getChildren()) {
+            submitScene(child);
+        }
+    }
 
     /**
-     * sets up the vertices and texture coordinates and binds them to vbos
+     * uploads every model, the static ones into the shared geometry pool; the imported models must already be loaded
      */
     private void setupVertices(){
         GL4 gl = (GL4) GLContext.getCurrentGL();
@@ -477,51 +523,38 @@ public class Starter extends JFrame implements GLEventListener, KeyListener {
         cubeHead = new CubeHead();
         cube = new Cube();
         rectangle = new Rectangle();
-        mushroom = new ImportedModel("mushroom.obj");
-        shuttle = new ImportedModel("shuttle.obj");
-
-
-
-        gl.glGenVertexArrays(vao.length, vao, 0);
-        gl.glBindVertexArray(vao[0]);
-        gl.glGenBuffers(vbo.length, vbo, 0);
-
-        //binds rectangle model
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[0]);
-        FloatBuffer rectangleVertBuf = Buffers.newDirectFloatBuffer(rectangle.getVertices());
-        gl.glBufferData(GL_ARRAY_BUFFER, rectangleVertBuf.limit()*4, rectangleVertBuf, GL_STATIC_DRAW);
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[1]);
-        FloatBuffer rectangleTexBuf = Buffers.newDirectFloatBuffer(rectangle.getTextureCoordinates());
-        gl.glBufferData(GL_ARRAY_BUFFER, rectangleTexBuf.limit()*4, rectangleTexBuf, GL_STATIC_DRAW);
-
-        //binds cube model
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[2]);
-        FloatBuffer cubeVertBuf = Buffers.newDirectFloatBuffer(cubeHead.getVertices());
-        gl.glBufferData(GL_ARRAY_BUFFER, cubeVertBuf.limit()*4, cubeVertBuf, GL_STATIC_DRAW);
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[3]);
-        FloatBuffer cubeTexBuf = Buffers.newDirectFloatBuffer(cubeHead.getTextureCoordinates());
-        gl.glBufferData(GL_ARRAY_BUFFER, cubeTexBuf.limit()*4, cubeTexBuf, GL_STATIC_DRAW);
-
-        //binds mushroom model
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[4]);
-        FloatBuffer mushVertBuf = Buffers.newDirectFloatBuffer(mushroom.getPValues());
-        gl.glBufferData(GL_ARRAY_BUFFER, mushVertBuf.limit()*4, mushVertBuf, GL_STATIC_DRAW);
 
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[5]);
-        FloatBuffer mushTextBuf = Buffers.newDirectFloatBuffer(mushroom.getTValues());
-        gl.glBufferData(GL_ARRAY_BUFFER, mushTextBuf.limit()*4, mushTextBuf, GL_STATIC_DRAW);
-
-        //binds spaceship model
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[6]);
-        FloatBuffer vertBuf = Buffers.newDirectFloatBuffer(shuttle.getPValues());
-        gl.glBufferData(GL_ARRAY_BUFFER, vertBuf.limit()*4, vertBuf, GL_STATIC_DRAW);
-
-        gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[7]);
-        FloatBuffer textBuf = Buffers.newDirectFloatBuffer(shuttle.getTValues());
-        gl.glBufferData(GL_ARRAY_BUFFER, textBuf.limit()*4, textBuf, GL_STATIC_DRAW);
+        //static meshes share one vertex and index buffer, so the render queue can multi-draw them together
+        geometry = new GeometryPool(gl);
+        rectangleMesh = geometry.add(rectangle.getVertices(), rectangle.getTextureCoordinates(), null, rectangle.getBounds());
+        cubeHeadMesh = geometry.add(cubeHead.getVertices(), cubeHead.getTextureCoordinates(), null, cubeHead.getBounds());
+        if(Boolean.getBoolean("a2.packedVertices")) {
+            //packed vertices have their own layout and keep their own buffers
+            mushroomMesh = Mesh.createPacked(gl, mushroom, "mushroom.obj");
+            shuttleMesh = Mesh.createPacked(gl, shuttle, "shuttle.obj");
+        }else{
+            mushroomMesh = geometry.add(mushroom);
+            shuttleMesh = geometry.add(shuttle);
+        }
+        geometry.upload(gl);
+        axesMesh = Mesh.createProcedural(gl, GL_LINES, 6);
+
+        //print out vertex counts before and after deduplication
+        System.out.println("mushroom.obj vertices: " + mushroom.getNumIndices() + " -> " + mushroom.getNumVertices());
+        System.out.println("shuttle.obj vertices: " + shuttle.getNumIndices() + " -> " + shuttle.getNumVertices());
+        printLods("mushroom.obj", mushroom);
+        printLods("shuttle.obj", shuttle);
+    }
 
+    /**
+     * prints the triangle count of every level of detail of a model
+     */
+    private void printLods(String name, ImportedModel model) {
+        StringBuilder counts = new StringBuilder(name).append(" triangles per level of detail:");
+        for (int i = 0; i < model.getNumLods(); i++) {
+            counts.append(' ').append(model.getLodIndexCount(i) / 3);
+        }
+        System.out.println(counts);
     }
 
     /**
@@ -529,7 +562,11 @@ public class Starter extends JFrame implements GLEventListener, KeyListener {
      * @param args arguements
      */
     public static void main(String[] args){
-       new Starter();
+       if(Boolean.getBoolean("a2.headless")) {
+           HeadlessRunner.fromProperties().run();
+       }else{
+           new Starter();
+       }
     }
 
     @Override
@@ -591,6 +628,14 @@ public class Starter extends JFrame implements GLEventListener, KeyListener {
             case KeyEvent.VK_SPACE:
                 axisFlag = (axisFlag) ? false : true;
                 break;
+            // key push p, show or hide the profiler overlay
+            case KeyEvent.VK_P:
+                overlayFlag = !overlayFlag;
+                break;
+            // key push h, print the frame time histogram so far
+            case KeyEvent.VK_H:
+                System.out.println("frame times: " + scheduler.getTotal().summary());
+                break;
         }
     }
 
@@ -0,0 +1,172 @@
+/**
+ * Packs textures into the layers of one GL_TEXTURE_2D_ARRAY, so a frame binds a single texture and every draw
+ * only picks its layer. All layers share one size; textures of any other size are resampled to it (box
+ * filtered along axes that shrink, linearly interpolated along axes that grow), which keeps texture
+ * coordinates valid without any per-layer scale.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL4;
+import com.jogamp.opengl.GLContext;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jogamp.opengl.GL4.*;
+
+public class TextureArrayBuilder {
+
+    private final int width;
+    private final int height;
+    private final List<TextureCache.Entry> layers = new ArrayList<>();
+
+    /**
+     * constructor
+     * @param width layer width
+     * @param height layer height
+     */
+    public TextureArrayBuilder(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @return the layer size from -Da2.textureArraySize, default 1024
+     */
+    public static int defaultLayerSize() {
+        return Integer.getInteger("a2.textureArraySize", 1024);
+    }
+
+    /**
+     * adds a texture as the next layer, resampling it first if its size does not match
+     * @param texture texture with its mip chain
+     * @return the layer index for the shader's layer uniform
+     */
+    public int add(TextureCache.Entry texture) {
+        layers.add(resize(texture, width, height));
+        return layers.size() - 1;
+    }
+
+    /**
+     * uploads all layers with their mip chains, must be called on the GL thread
+     * @return the GL_TEXTURE_2D_ARRAY texture object, left bound
+     */
+    public int build() {
+        GL4 gl = (GL4) GLContext.getCurrentGL();
+        int levels = TextureCache.levelCount(width, height);
+        int[] textureIDs = new int[1];
+        gl.glGenTextures(1, textureIDs, 0);
+        gl.glBindTexture(GL_TEXTURE_2D_ARRAY, textureIDs[0]);
+        gl.glTexStorage3D(GL_TEXTURE_2D_ARRAY, levels, GL_RGBA8, width, height, layers.size());
+        for (int layer = 0; layer < layers.size(); layer++) {
+            TextureCache.Entry texture = layers.get(layer);
+            for (int level = 0; level < levels; level++) {
+                gl.glTexSubImage3D(GL_TEXTURE_2D_ARRAY, level, 0, 0, layer,
+                        texture.getLevelWidth(level), texture.getLevelHeight(level), 1,
+                        GL_RGBA, GL_UNSIGNED_BYTE, texture.getLevel(level));
+            }
+        }
+
+        //same sampling as the single textures in Utils.loadTexture, which keep the default GL_REPEAT wrap mode;
+        //shuttle.obj has texture coordinates up to t = 2 that rely on it
+        gl.glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
+        gl.glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+        gl.glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_S, GL_REPEAT);
+        gl.glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_T, GL_REPEAT);
+        if (gl.isExtensionAvailable("GL_EXT_texture_filter_anisotropic")) {
+            float[] anisoset = new float[1];
+            gl.glGetFloatv(GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, anisoset, 0);
+            gl.glTexParameterf(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAX_ANISOTROPY_EXT, anisoset[0]);
+        }
+        layers.clear();
+        return textureIDs[0];
+    }
+
+    /**
+     * resamples a texture to a new size and rebuilds its mip chain; does not touch OpenGL, so it can run on any
+     * thread
+     * @param texture texture with its mip chain
+     * @param width new width
+     * @param height new height
+     * @return the texture itself if it already has that size, otherwise a resampled copy
+     */
+    public static TextureCache.Entry resize(TextureCache.Entry texture, int width, int height) {
+        if (texture.getWidth() == width && texture.getHeight() == height) {
+            return texture;
+        }
+        //start from the smallest mip level that is still at least as large as the target along both axes
+        int level = 0;
+        while (level + 1 < texture.getNumLevels()
+                && texture.getLevelWidth(level + 1) >= width && texture.getLevelHeight(level + 1) >= height) {
+            level++;
+        }
+        int srcWidth = texture.getLevelWidth(level), srcHeight = texture.getLevelHeight(level);
+        ByteBuffer src = texture.getLevel(level);
+
+        int[] rows = new int[srcHeight * width * 4];
+        for (int y = 0; y < srcHeight; y++) {
+            resample(src, y * srcWidth * 4, 4, srcWidth, rows, y * width * 4, 4, width);
+        }
+        TextureCache.Entry resized = TextureCache.allocate(width, height);
+        ByteBuffer dst = resized.levels[0];
+        int[] column = new int[srcHeight * 4];
+        int[] out = new int[height * 4];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < srcHeight; y++) {
+                System.arraycopy(rows, (y * width + x) * 4, column, y * 4, 4);
+            }
+            resample(column, 0, 4, srcHeight, out, 0, 4, height);
+            for (int y = 0; y < height; y++) {
+                for (int c = 0; c < 4; c++) {
+                    dst.put((y * width + x) * 4 + c, (byte) out[y * 4 + c]);
+                }
+            }
+        }
+        TextureCache.generateMipmaps(resized);
+        return resized;
+    }
+
+    private static void resample(ByteBuffer src, int srcOffset, int srcStride, int srcLength,
+                                 int[] dst, int dstOffset, int dstStride, int dstLength) {
+        int[] values = new int[srcLength * 4];
+        for (int i = 0; i < srcLength; i++) {
+            for (int c = 0; c < 4; c++) {
+                values[i * 4 + c] = src.get(srcOffset + i * srcStride + c) & 0xFF;
+            }
+        }
+        resample(values, 0, 4, srcLength, dst, dstOffset, dstStride, dstLength);
+    }
+
+    /**
+     * resamples one row or column of RGBA values: averages the source texels each target texel covers when
+     * shrinking, interpolates between texel centers when growing
+     */
+    private static void resample(int[] src, int srcOffset, int srcStride, int srcLength,
+                                 int[] dst, int dstOffset, int dstStride, int dstLength) {
+        double scale = (double) srcLength / dstLength;
+        for (int i = 0; i < dstLength; i++) {
+            for (int c = 0; c < 4; c++) {
+                double value;
+                if (scale >= 1.0) {
+                    double start = i * scale, end = start + scale, sum = 0.0;
+                    for (int s = (int) start; s < end && s < srcLength; s++) {
+                        double coverage = Math.min(end, s + 1) - Math.max(start, s);
+                        sum += coverage * src[srcOffset + s * srcStride + c];
+                    }
+                    value = sum / scale;
+                } else {
+                    double position = Math.max(0.0, Math.min(srcLength - 1.0, (i + 0.5) * scale - 0.5));
+                    int s0 = (int) position, s1 = Math.min(s0 + 1, srcLength - 1);
+                    double t = position - s0;
+                    value = src[srcOffset + s0 * srcStride + c] * (1.0 - t) + src[srcOffset + s1 * srcStride + c] * t;
+                }
+                dst[dstOffset + i * dstStride + c] = (int) Math.round(Math.min(255.0, value));
+            }
+        }
+    }
+}
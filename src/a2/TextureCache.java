@@ -0,0 +1,319 @@
+/**
+ * Binary cache for decoded textures. The first load of an image decodes it through TextureIO, converts it to
+ * RGBA, builds the whole mip chain on the CPU with a 2x2 box filter and writes everything to a cache file.
+ * Later loads memory-map that file, so every level can go straight to glTexSubImage2D without decoding the
+ * image or running glGenerateMipmap. A cache file is only used while the length and CRC32C of the image file
+ * still match.
+ *
+ * File layout, in native byte order:
+ *   int magic, int version, long source length, int source crc,
+ *   int width, int height, int level count, RGBA8 pixels of every level from largest to smallest
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GLProfile;
+import com.jogamp.opengl.util.texture.TextureData;
+import com.jogamp.opengl.util.texture.TextureIO;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+import static com.jogamp.opengl.GL4.*;
+
+public class TextureCache {
+
+    private static final int MAGIC = 0x43543241; // "A2TC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * RGBA8 texture with its mip chain, as stored in or loaded from a cache file
+     */
+    public static class Entry {
+        final int width;
+        final int height;
+        final ByteBuffer[] levels;
+
+        Entry(int width, int height, ByteBuffer[] levels) {
+            this.width = width;
+            this.height = height;
+            this.levels = levels;
+        }
+
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public int getNumLevels() { return levels.length; }
+
+        /**
+         * @param level mip level, 0 is the full size image
+         * @return the level's RGBA8 pixels
+         */
+        public ByteBuffer getLevel(int level) { return levels[level].duplicate(); }
+        public int getLevelWidth(int level) { return Math.max(1, width >> level); }
+        public int getLevelHeight(int level) { return Math.max(1, height >> level); }
+    }
+
+    /**
+     * @return false if the cache was turned off with -Da2.textureCache=false
+     */
+    public static boolean isEnabled() {
+        return !"false".equals(System.getProperty("a2.textureCache"));
+    }
+
+    /**
+     * @param textureFileName image file path, e.g. a2/brick1.jpg
+     * @param width width the texture is resampled to, 0 for the image's own size
+     * @param height height the texture is resampled to, 0 for the image's own size
+     * @return the cache file for the image at that size, inside -Da2.cacheDir (default .a2cache)
+     */
+    public static File cacheFile(String textureFileName, int width, int height) {
+        File dir = new File(System.getProperty("a2.cacheDir", ".a2cache"));
+        String size = (width > 0 && height > 0) ? "." + width + "x" + height : "";
+        return new File(dir, textureFileName.replace('/', '_').replace('\\', '_') + size + ".tex");
+    }
+
+    /**
+     * loads a texture from its cache file, or decodes the image and refreshes the cache file if it is missing
+     * or stale; does not touch OpenGL, so it can run on any thread
+     * @param glp profile of the context the texture will be uploaded to
+     * @param textureFileName image file path
+     * @param width width to resample the texture to, 0 to keep the image's own size
+     * @param height height to resample the texture to, 0 to keep the image's own size
+     * @return the texture with its full mip chain
+     */
+    public static Entry load(GLProfile glp, String textureFileName, int width, int height) {
+        byte[] source;
+        try {
+            source = Files.readAllBytes(new File(textureFileName).toPath());
+        } catch (IOException e) {
+            System.err.println("Error reading '" + textureFileName + '"');
+            throw new RuntimeException(e);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(source, 0, source.length);
+        int sourceCrc = (int) crc.getValue();
+
+        File cacheFile = cacheFile(textureFileName, width, height);
+        if (isEnabled()) {
+            try {
+                Entry cached = read(cacheFile, source.length, sourceCrc);
+                if (cached != null) {
+                    return cached;
+                }
+            } catch (IOException e) {
+                System.err.println("could not read texture cache " + cacheFile + ": " + e);
+            }
+        }
+
+        Entry texture;
+        try {
+            String suffix = textureFileName.substring(textureFileName.lastIndexOf('.') + 1).toLowerCase();
+            TextureData data = TextureIO.newTextureData(glp, new ByteArrayInputStream(source), false, suffix);
+            texture = buildMipChain(data);
+            data.flush();
+            if (width > 0 && height > 0) {
+                texture = TextureArrayBuilder.resize(texture, width, height);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading '" + textureFileName + '"');
+            throw new RuntimeException(e);
+        }
+        if (isEnabled()) {
+            try {
+                write(cacheFile, source.length, sourceCrc, texture);
+            } catch (IOException e) {
+                System.err.println("could not write texture cache " + cacheFile + ": " + e);
+            }
+        }
+        return texture;
+    }
+
+    /**
+     * memory-maps a cache file
+     * @param file cache file
+     * @param sourceLength length of the image file the caller is about to load
+     * @param sourceCrc CRC32C of that file
+     * @return the cached texture, or null if there is no cache file or it was written for a different image
+     * @throws IOException if an existing cache file cannot be read
+     */
+    public static Entry read(File file, long sourceLength, int sourceCrc) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        ByteBuffer map;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.nativeOrder());
+        }
+        if (map.remaining() < HEADER_SIZE || map.getInt() != MAGIC || map.getInt() != VERSION
+                || map.getLong() != sourceLength || map.getInt() != sourceCrc) {
+            return null;
+        }
+        int width = map.getInt();
+        int height = map.getInt();
+        int numLevels = map.getInt();
+        if (width <= 0 || height <= 0 || numLevels != levelCount(width, height)
+                || HEADER_SIZE + chainSize(width, height) != map.limit()) {
+            return null;
+        }
+        ByteBuffer[] levels = new ByteBuffer[numLevels];
+        map.position(HEADER_SIZE);
+        for (int level = 0; level < numLevels; level++) {
+            int length = Math.max(1, width >> level) * Math.max(1, height >> level) * 4;
+            ByteBuffer slice = map.slice();
+            slice.limit(length);
+            levels[level] = slice;
+            map.position(map.position() + length);
+        }
+        return new Entry(width, height, levels);
+    }
+
+    /**
+     * writes a cache file, going through a temporary file so a reader never sees a half written cache
+     * @param file cache file
+     * @param sourceLength length of the image file the texture was decoded from
+     * @param sourceCrc CRC32C of that file
+     * @param texture texture to store
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(File file, long sourceLength, int sourceCrc, Entry texture) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+        header.putInt(MAGIC).putInt(VERSION).putLong(sourceLength).putInt(sourceCrc);
+        header.putInt(texture.width).putInt(texture.height).putInt(texture.levels.length);
+        header.flip();
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories(dir.toPath());
+        File temp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+                ByteBuffer[] parts = new ByteBuffer[texture.levels.length + 1];
+                parts[0] = header;
+                long remaining = header.remaining();
+                for (int level = 0; level < texture.levels.length; level++) {
+                    parts[level + 1] = texture.levels[level].duplicate();
+                    remaining += parts[level + 1].remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= channel.write(parts);
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * converts decoded image data to RGBA8 and box filters it down to 1x1, keeping the row order TextureIO
+     * produced so cached textures look exactly like textures uploaded straight from TextureIO
+     * @param data decoded image with unsigned byte RGB, RGBA, BGR or BGRA pixels
+     * @return the texture with its full mip chain in one direct buffer
+     */
+    static Entry buildMipChain(TextureData data) {
+        int width = data.getWidth(), height = data.getHeight();
+        int format = data.getPixelFormat();
+        int components = (format == GL_RGBA || format == GL_BGRA) ? 4 : (format == GL_RGB || format == GL_BGR) ? 3 : 0;
+        if (components == 0 || data.getPixelType() != GL_UNSIGNED_BYTE) {
+            throw new IllegalArgumentException("unsupported pixel format 0x" + Integer.toHexString(format)
+                    + ", type 0x" + Integer.toHexString(data.getPixelType()));
+        }
+        boolean bgr = format == GL_BGR || format == GL_BGRA;
+        int alignment = Math.max(1, data.getAlignment());
+        int rowLength = (width * components + alignment - 1) / alignment * alignment;
+
+        Entry texture = allocate(width, height);
+        ByteBuffer source = ((ByteBuffer) data.getBuffer()).duplicate();
+        source.clear();
+        ByteBuffer base = texture.levels[0];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int in = y * rowLength + x * components;
+                int out = (y * width + x) * 4;
+                base.put(out, source.get(in + (bgr ? 2 : 0)));
+                base.put(out + 1, source.get(in + 1));
+                base.put(out + 2, source.get(in + (bgr ? 0 : 2)));
+                base.put(out + 3, components == 4 ? source.get(in + 3) : (byte) 0xFF);
+            }
+        }
+        generateMipmaps(texture);
+        return texture;
+    }
+
+    /**
+     * allocates an RGBA8 texture with room for its full mip chain in one direct buffer
+     * @param width level 0 width
+     * @param height level 0 height
+     * @return the texture, all levels zeroed
+     */
+    static Entry allocate(int width, int height) {
+        ByteBuffer chain = Buffers.newDirectByteBuffer((int) chainSize(width, height));
+        ByteBuffer[] levels = new ByteBuffer[levelCount(width, height)];
+        int offset = 0;
+        for (int level = 0; level < levels.length; level++) {
+            int length = Math.max(1, width >> level) * Math.max(1, height >> level) * 4;
+            levels[level] = slice(chain, offset, length);
+            offset += length;
+        }
+        return new Entry(width, height, levels);
+    }
+
+    /**
+     * fills every level after the first by box filtering the level above it
+     * @param texture texture whose level 0 is set
+     */
+    static void generateMipmaps(Entry texture) {
+        for (int level = 1; level < texture.levels.length; level++) {
+            int srcWidth = texture.getLevelWidth(level - 1), srcHeight = texture.getLevelHeight(level - 1);
+            int dstWidth = texture.getLevelWidth(level), dstHeight = texture.getLevelHeight(level);
+            ByteBuffer src = texture.levels[level - 1];
+            ByteBuffer dst = texture.levels[level];
+            for (int y = 0; y < dstHeight; y++) {
+                int y0 = Math.min(y * 2, srcHeight - 1), y1 = Math.min(y * 2 + 1, srcHeight - 1);
+                for (int x = 0; x < dstWidth; x++) {
+                    int x0 = Math.min(x * 2, srcWidth - 1), x1 = Math.min(x * 2 + 1, srcWidth - 1);
+                    for (int c = 0; c < 4; c++) {
+                        int sum = (src.get((y0 * srcWidth + x0) * 4 + c) & 0xFF)
+                                + (src.get((y0 * srcWidth + x1) * 4 + c) & 0xFF)
+                                + (src.get((y1 * srcWidth + x0) * 4 + c) & 0xFF)
+                                + (src.get((y1 * srcWidth + x1) * 4 + c) & 0xFF);
+                        dst.put((y * dstWidth + x) * 4 + c, (byte) ((sum + 2) >> 2));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of mip levels down to 1x1, as glTexStorage2D counts them
+     */
+    static int levelCount(int width, int height) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+    }
+
+    private static long chainSize(int width, int height) {
+        long size = 0;
+        for (int level = 0; level < levelCount(width, height); level++) {
+            size += (long) Math.max(1, width >> level) * Math.max(1, height >> level) * 4;
+        }
+        return size;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(offset).limit(offset + length);
+        return slice.slice();
+    }
+}
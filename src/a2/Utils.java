@@ -81,6 +81,15 @@ public class Utils
 		return vfprogram;
 	}
 
+	public static int createShaderProgram(String cS)
+	{	GL4 gl = (GL4) GLContext.getCurrentGL();
+		int cShader  = prepareShader(GL_COMPUTE_SHADER, cS);
+		int cprogram = gl.glCreateProgram();
+		gl.glAttachShader(cprogram, cShader);
+		finalizeProgram(cprogram);
+		return cprogram;
+	}
+
 	public static int finalizeProgram(int sprogram)
 	{	GL4 gl = (GL4) GLContext.getCurrentGL();
 		int[] linked = new int[1];
@@ -109,6 +118,7 @@ public class Utils
 			if (shaderTYPE == GL_TESS_EVALUATION_SHADER) System.out.print("Tess Eval ");
 			if (shaderTYPE == GL_GEOMETRY_SHADER) System.out.print("Geometry ");
 			if (shaderTYPE == GL_FRAGMENT_SHADER) System.out.print("Fragment ");
+			if (shaderTYPE == GL_COMPUTE_SHADER) System.out.print("Compute ");
 			System.out.println("shader compilation error.");
 			printShaderLog(shaderRef);
 		}
@@ -186,11 +196,24 @@ public class Utils
 	}
 	
 	public static int loadTexture(String textureFileName)
+	{	GL4 gl = (GL4) GLContext.getCurrentGL();
+		return loadTexture(loadTextureData(gl.getGLProfile(), textureFileName));
+	}
+
+	// decodes an image file without touching OpenGL, so it can run on any thread
+	public static TextureData loadTextureData(GLProfile glp, String textureFileName)
+	{	try { return TextureIO.newTextureData(glp, new File(textureFileName), false, null); }
+		catch (IOException e)
+		{	System.err.println("Error reading '" + textureFileName + '"');
+			throw new RuntimeException(e);
+		}
+	}
+
+	// uploads decoded image data, must be called on the thread that owns the GL context
+	public static int loadTexture(TextureData textureData)
 	{	GL4 gl = (GL4) GLContext.getCurrentGL();
 		int finalTextureRef;
-		Texture tex = null;
-		try { tex = TextureIO.newTexture(new File(textureFileName), false); }
-		catch (Exception e) { e.printStackTrace(); }
+		Texture tex = TextureIO.newTexture(gl, textureData);
 		finalTextureRef = tex.getTextureObject();
 
 		// building a mipmap and use anisotropic filtering
@@ -305,7 +328,7 @@ public class Utils
 		return img;
 	}
 
-	private static byte[] getRGBAPixelData(BufferedImage img, boolean flip)
+	static byte[] getRGBAPixelData(BufferedImage img, boolean flip)
 	{	int height = img.getHeight(null);
 		int width = img.getWidth(null);
 
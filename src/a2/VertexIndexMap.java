@@ -0,0 +1,90 @@
+/**
+ * Open addressing hash map from a (v, vt, vn) index triple to the index of the unique vertex built from it.
+ * Keys and values live in flat int arrays so looking up a face corner never allocates.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import java.util.Arrays;
+
+public class VertexIndexMap {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;     //three ints per slot
+    private int[] values;   //EMPTY marks a free slot
+    private int mask;
+    private int size;
+
+    /**
+     * constructor
+     * @param expectedSize number of unique triples expected, the table is sized so it never needs to grow for it
+     */
+    public VertexIndexMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) * 2;
+        allocate(capacity);
+    }
+
+    /**
+     * looks the triple up and, if it is not present yet, maps it to the next free vertex index
+     * @return the vertex index of the triple, or -(index + 1) if the triple was just added
+     */
+    public int getOrAdd(int v, int vt, int vn) {
+        int slot = hash(v, vt, vn) & mask;
+        while (values[slot] != EMPTY) {
+            int k = slot * 3;
+            if (keys[k] == v && keys[k + 1] == vt && keys[k + 2] == vn) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        int index = size++;
+        insert(slot, v, vt, vn, index);
+        if (size * 2 > values.length) {
+            rehash();
+        }
+        return -(index + 1);
+    }
+
+    public int size() { return size; }
+
+    private void insert(int slot, int v, int vt, int vn, int index) {
+        keys[slot * 3] = v;
+        keys[slot * 3 + 1] = vt;
+        keys[slot * 3 + 2] = vn;
+        values[slot] = index;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldValues.length * 2);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != EMPTY) {
+                int v = oldKeys[i * 3], vt = oldKeys[i * 3 + 1], vn = oldKeys[i * 3 + 2];
+                int slot = hash(v, vt, vn) & mask;
+                while (values[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                insert(slot, v, vt, vn, oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity * 3];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private static int hash(int v, int vt, int vn) {
+        int h = v * 0x9E3779B1;
+        h = (h ^ vt) * 0x85EBCA6B;
+        h = (h ^ vn) * 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,84 @@
+#version 430
+
+//one invocation per object: frustum test, level of detail choice and compaction into the instance buffer
+layout (local_size_x = 64) in;
+
+struct CullObject {
+    mat4 world;
+    vec4 sphere;     //model space center and radius
+    vec4 box_min;    //model space bounding box
+    vec4 box_max;
+    uint command;    //first indirect command of the object's mesh, one per level of detail
+    uint lods;
+    int layer;
+    uint pad;
+};
+
+struct DrawCommand {
+    uint count;
+    uint instance_count;
+    uint first_index;
+    int base_vertex;
+    uint base_instance;
+};
+
+layout (std430, binding=0) readonly buffer Objects { CullObject objects[]; };
+layout (std430, binding=1) buffer Commands { DrawCommand commands[]; };
+//Mesh.INSTANCE_STRIDE records: 16 floats of model-view matrix and the layer's int bits
+layout (std430, binding=2) writeonly buffer Instances { float instances[]; };
+
+uniform mat4 view_matrix;
+uniform vec4 planes[6];
+uniform int object_count;
+//projection m11 times viewport height, see RenderQueue.selectLod
+uniform float lod_scale;
+uniform float lod_full_detail_pixels;
+
+//same tests as FrustumCuller: the sphere first, the world space box when the sphere straddles a plane
+bool visible(CullObject o, vec3 center, float radius) {
+    bool inside = true;
+    for (int i = 0; i < 6; i++) {
+        float d = dot(planes[i].xyz, center) + planes[i].w;
+        if (d < -radius) return false;
+        inside = inside && d >= radius;
+    }
+    if (inside) return true;
+    vec3 box_center = (o.world * vec4((o.box_min.xyz + o.box_max.xyz) * 0.5, 1.0)).xyz;
+    vec3 half_size = (o.box_max.xyz - o.box_min.xyz) * 0.5;
+    vec3 extent = abs(o.world[0].xyz) * half_size.x + abs(o.world[1].xyz) * half_size.y + abs(o.world[2].xyz) * half_size.z;
+    for (int i = 0; i < 6; i++) {
+        if (dot(planes[i].xyz, box_center) + dot(abs(planes[i].xyz), extent) < -planes[i].w) return false;
+    }
+    return true;
+}
+
+void main(void) {
+    uint index = gl_GlobalInvocationID.x;
+    if (index >= uint(object_count)) return;
+    CullObject o = objects[index];
+
+    vec3 center = (o.world * vec4(o.sphere.xyz, 1.0)).xyz;
+    float radius = o.sphere.w * max(length(o.world[0].xyz), max(length(o.world[1].xyz), length(o.world[2].xyz)));
+    if (!visible(o, center, radius)) return;
+
+    mat4 mv = view_matrix * o.world;
+    float distance = -(view_matrix * vec4(center, 1.0)).z;
+    uint lod = 0;
+    if (distance > radius) {
+        float pixels = radius / distance * lod_scale;
+        while (lod < o.lods - 1 && pixels < lod_full_detail_pixels) {
+            pixels *= 2.0;
+            lod++;
+        }
+    }
+
+    uint command = o.command + lod;
+    uint slot = atomicAdd(commands[command].instance_count, 1u);
+    uint base = (commands[command].base_instance + slot) * 17;
+    for (int c = 0; c < 4; c++) {
+        for (int r = 0; r < 4; r++) {
+            instances[base + c * 4 + r] = mv[c][r];
+        }
+    }
+    instances[base + 16] = intBitsToFloat(o.layer);
+}
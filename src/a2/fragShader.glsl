@@ -5,8 +5,11 @@ out vec4 color;
 
 uniform mat4 mv_matrix;
 uniform mat4 proj_matrix;
-layout (binding=0) uniform sampler2D samp;
+layout (binding=0) uniform sampler2DArray samp;
+
+//layer of the texture array holding this object's texture
+uniform int layer;
 
 void main(void){
-    color = texture(samp, tc);
+    color = texture(samp, vec3(tc, layer));
 }
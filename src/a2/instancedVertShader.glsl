@@ -0,0 +1,22 @@
+#version 430
+
+
+layout (location=0) in vec3 pos;
+layout (location=1) in vec2 texCoord;
+//per-instance attributes, see Mesh.attachInstanceBuffer
+layout (location=3) in mat4 instance_mv;
+layout (location=7) in int instance_layer;
+out vec2 tc;
+flat out int tex_layer;
+
+uniform mat4 proj_matrix;
+
+//decodes packed unorm16 positions relative to the mesh bounding box, float meshes keep the defaults
+uniform vec3 pos_offset = vec3(0.0);
+uniform vec3 pos_scale = vec3(1.0);
+
+void main(void){
+    gl_Position = proj_matrix * instance_mv * vec4(pos_offset + pos * pos_scale, 1.0);
+    tc = texCoord;
+    tex_layer = instance_layer;
+}
@@ -0,0 +1,12 @@
+#version 430
+
+//screen space rectangle, corners generated from gl_VertexID for a 4 vertex triangle strip
+uniform vec4 rect;
+out vec2 tc;
+
+void main(void){
+    vec2 corner = vec2(gl_VertexID & 1, gl_VertexID >> 1);
+    //the overlay image is stored top row first
+    tc = vec2(corner.x, 1.0 - corner.y);
+    gl_Position = vec4(mix(rect.xy, rect.zw, corner), 0.0, 1.0);
+}
@@ -7,9 +7,13 @@ out vec2 tc;
 
 uniform mat4 mv_matrix;
 uniform mat4 proj_matrix;
-layout (binding=0) uniform sampler2D samp;
+layout (binding=0) uniform sampler2DArray samp;
+
+//decodes packed unorm16 positions relative to the mesh bounding box, float meshes keep the defaults
+uniform vec3 pos_offset = vec3(0.0);
+uniform vec3 pos_scale = vec3(1.0);
 
 void main(void){
-    gl_Position = proj_matrix * mv_matrix * vec4(pos,1.0);
+    gl_Position = proj_matrix * mv_matrix * vec4(pos_offset + pos * pos_scale, 1.0);
     tc = texCoord;
 }
\ No newline at end of file
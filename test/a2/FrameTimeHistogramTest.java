@@ -0,0 +1,89 @@
+/**
+ * Checks FrameTimeHistogram's percentiles against known distributions: exact below 128 microseconds, within the
+ * bucket precision above, never below the true value, and never above the recorded maximum.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FrameTimeHistogramTest {
+
+    //one bucket per 1/64 of a power of two
+    private static final double PRECISION = 1.0 / 64;
+
+    @Test
+    public void isEmptyBeforeAnyFrame() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getPercentile(50));
+        assertEquals(0.0, histogram.getMean());
+        assertEquals(0.0, histogram.getMax());
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        for (int micros = 1; micros <= 100; micros++) {
+            histogram.record(micros * 1000L);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(0.001, histogram.getPercentile(0));
+        assertEquals(0.050, histogram.getPercentile(50));
+        assertEquals(0.099, histogram.getPercentile(99));
+        assertEquals(0.100, histogram.getPercentile(100));
+        assertEquals(0.0505, histogram.getMean(), 1e-9);
+        assertEquals(0.100, histogram.getMax());
+    }
+
+    @Test
+    public void largeValuesStayWithinBucketPrecision() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis * 1_000_000L);
+        }
+        for (double percentile : new double[]{10, 50, 90, 95, 99, 99.9}) {
+            //the values are 1 to 1000 ms, so the p-th percentile is the ceil(10 p)-th of them
+            double expected = Math.ceil(percentile * 10);
+            double actual = histogram.getPercentile(percentile);
+            assertTrue(actual >= expected && actual <= expected * (1 + PRECISION),
+                    "p" + percentile + " was " + actual + " ms, expected " + expected + " ms");
+        }
+        assertEquals(1000.0, histogram.getPercentile(100));
+        assertEquals(1000.0, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    public void singleStallShowsInMaxNotInP99() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        for (int i = 0; i < 999; i++) {
+            histogram.record(16_667_000L);
+        }
+        histogram.record(250_000_000L);
+        assertTrue(Math.abs(histogram.getPercentile(99) - 16.667) <= 16.667 * PRECISION);
+        assertEquals(250.0, histogram.getPercentile(100));
+        assertEquals(250.0, histogram.getMax());
+    }
+
+    @Test
+    public void clampsOutOfRangeValuesAndResets() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0.0, histogram.getPercentile(50));
+        assertTrue(histogram.getMax() > 1e8, "a stall of over a day is clamped, not wrapped");
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getPercentile(99));
+        assertEquals(0.0, histogram.getMax());
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Counts calls made through GLCallCounter.wrap on a fake GL: which calls are draws and uniform uploads, which
+ * state changes are redundant, and that the counts move to getLastFrame at endFrame.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL4;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+
+import static com.jogamp.opengl.GL4.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GLCallCounterTest {
+
+    @Test
+    public void countsDrawsButNotDrawBufferSelection() {
+        GLCallCounter counter = new GLCallCounter();
+        GL4 gl = GLCallCounter.wrap(fakeGL(), counter);
+
+        gl.glDrawArrays(GL_TRIANGLES, 0, 3);
+        gl.glDrawElements(GL_TRIANGLES, 6, GL_UNSIGNED_INT, 0);
+        gl.glDrawElementsInstancedBaseVertexBaseInstance(GL_TRIANGLES, 6, GL_UNSIGNED_INT, 0, 4, 0, 0);
+        gl.glDrawElementsIndirect(GL_TRIANGLES, GL_UNSIGNED_INT, 0);
+        gl.glMultiDrawElementsIndirectCountARB(GL_TRIANGLES, GL_UNSIGNED_INT, 0, 0, 8, 20);
+        gl.glDrawBuffer(GL_BACK);
+        gl.glDrawBuffers(1, new int[]{GL_COLOR_ATTACHMENT0}, 0);
+        //not a gl* entry point, not counted at all
+        gl.isExtensionAvailable("GL_ARB_indirect_parameters");
+
+        GLCallCounter.Frame frame = counter.getCurrentFrame();
+        assertEquals(5, frame.getDraws());
+        assertEquals(7, frame.getCalls());
+        assertEquals(1, frame.getCalls("glDrawBuffers"));
+    }
+
+    @Test
+    public void countsUniformUploadsButNotBlockBindings() {
+        GLCallCounter counter = new GLCallCounter();
+        GL4 gl = GLCallCounter.wrap(fakeGL(), counter);
+
+        gl.glUniform1i(0, 1);
+        gl.glUniformMatrix4fv(1, 1, false, new float[16], 0);
+        gl.glProgramUniform3f(5, 2, 0.0f, 1.0f, 2.0f);
+        gl.glUniformBlockBinding(5, 0, 1);
+
+        assertEquals(3, counter.getCurrentFrame().getUniformUploads());
+    }
+
+    @Test
+    public void flagsRedundantStateChanges() {
+        GLCallCounter counter = new GLCallCounter();
+        GL4 gl = GLCallCounter.wrap(fakeGL(), counter);
+
+        gl.glUseProgram(3);
+        gl.glUseProgram(3);
+        gl.glUseProgram(4);
+        gl.glActiveTexture(GL_TEXTURE0);
+        gl.glBindTexture(GL_TEXTURE_2D_ARRAY, 7);
+        gl.glBindTexture(GL_TEXTURE_2D_ARRAY, 7);
+        gl.glActiveTexture(GL_TEXTURE1);
+        //another unit, so not redundant
+        gl.glBindTexture(GL_TEXTURE_2D_ARRAY, 7);
+        gl.glEnable(GL_DEPTH_TEST);
+        gl.glEnable(GL_DEPTH_TEST);
+        gl.glDisable(GL_DEPTH_TEST);
+        gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 9);
+        gl.glBindVertexArray(2);
+        //the element array binding belongs to the VAO, so binding it again after the VAO changed is not redundant
+        gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 9);
+        gl.glBindVertexArray(2);
+
+        GLCallCounter.Frame frame = counter.getCurrentFrame();
+        assertEquals(4, frame.getRedundant());
+        assertEquals(1, frame.getRedundant("glUseProgram"));
+        assertEquals(1, frame.getRedundant("glBindTexture"));
+        assertEquals(1, frame.getRedundant("glEnable"));
+        assertEquals(1, frame.getRedundant("glBindVertexArray"));
+        assertEquals(0, frame.getRedundant("glBindBuffer"));
+        assertEquals(3, frame.getProgramSwitches());
+        assertEquals(3, frame.getTextureBinds());
+    }
+
+    @Test
+    public void endFrameStartsAFreshFrameButKeepsTheShadowedState() {
+        GLCallCounter counter = new GLCallCounter();
+        GL4 gl = GLCallCounter.wrap(fakeGL(), counter);
+
+        gl.glUseProgram(3);
+        gl.glDrawArrays(GL_TRIANGLES, 0, 3);
+        counter.endFrame();
+        gl.glUseProgram(3);
+
+        assertEquals(1, counter.getLastFrame().getDraws());
+        assertEquals(0, counter.getLastFrame().getRedundant());
+        assertEquals(1, counter.getCurrentFrame().getCalls());
+        assertEquals(0, counter.getCurrentFrame().getDraws());
+        assertEquals(1, counter.getCurrentFrame().getRedundant());
+    }
+
+    /**
+     * a GL4 that does nothing and returns zero, false or null
+     */
+    private static GL4 fakeGL() {
+        return (GL4) Proxy.newProxyInstance(GLCallCounterTest.class.getClassLoader(), new Class<?>[]{GL4.class},
+                (self, method, args) -> {
+                    Class<?> type = method.getReturnType();
+                    if (type == boolean.class) return false;
+                    if (type == int.class) return 0;
+                    if (type == long.class) return 0L;
+                    if (type == float.class) return 0.0f;
+                    if (type == double.class) return 0.0;
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Records calls through GLFrameRecorder into a fake GL and replays the file with GLFrameReplayer into another
+ * fake GL that hands out different names, checking what reaches the second GL: the setup once, the captured
+ * frame on display, names mapped, and a call with an unsupported argument left out without upsetting the
+ * method indices of the calls after it.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL4;
+import com.jogamp.opengl.GLAutoDrawable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GLFrameReplayerTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    public void replaysRecordedFrameWithMappedNames() throws Exception {
+        File file = new File(directory, "capture.a2gl");
+        GLFrameRecorder recorder = new GLFrameRecorder(file, 1, 640, 480);
+        GL4 gl = GLFrameRecorder.wrap(fakeGL(100, new ArrayList<>()), recorder);
+
+        int[] buffers = new int[3];
+        gl.glGenBuffers(3, buffers, 0);
+        //a PointerBuffer cannot be recorded, the call is left out
+        gl.glGetNamedBufferPointerv(buffers[0], GL4.GL_BUFFER_MAP_POINTER, null);
+        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, buffers[1]);
+        //only the name at the offset is deleted, the one before it is not the call's to map
+        gl.glDeleteBuffers(1, new int[]{buffers[0], buffers[2]}, 1);
+        recorder.endFrame();
+        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, buffers[1]);
+        gl.glDrawArrays(GL.GL_TRIANGLES, 0, 3);
+        recorder.endFrame();
+
+        List<String> replayed = new ArrayList<>();
+        GLAutoDrawable drawable = fakeDrawable(fakeGL(500, replayed));
+        GLFrameReplayer replayer = new GLFrameReplayer(file);
+        replayer.init(drawable);
+        assertEquals(Arrays.asList(
+                "glGenBuffers[3, [500, 501, 502], 0]",
+                "glBindBuffer[34962, 501]",
+                "glDeleteBuffers[1, [100, 502], 1]"), replayed);
+
+        replayed.clear();
+        replayer.display(drawable);
+        assertEquals(Arrays.asList(
+                "glBindBuffer[34962, 501]",
+                "glDrawArrays[4, 0, 3]"), replayed);
+    }
+
+    /**
+     * a GL4 that hands out buffer names counting up from firstName and logs every gl call but glFinish
+     */
+    private static GL4 fakeGL(int firstName, List<String> log) {
+        int[] nextName = {firstName};
+        return (GL4) Proxy.newProxyInstance(GLFrameReplayerTest.class.getClassLoader(), new Class<?>[]{GL4.class},
+                (self, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("glGenBuffers")) {
+                        int[] names = (int[]) args[1];
+                        for (int i = 0; i < (Integer) args[0]; i++) {
+                            names[(Integer) args[2] + i] = nextName[0]++;
+                        }
+                    }
+                    if (name.startsWith("gl") && !name.equals("glFinish")) {
+                        log.add(name + Arrays.deepToString(args));
+                    }
+                    return defaultValue(method.getReturnType());
+                });
+    }
+
+    private static GLAutoDrawable fakeDrawable(GL4 gl) {
+        return (GLAutoDrawable) Proxy.newProxyInstance(GLFrameReplayerTest.class.getClassLoader(),
+                new Class<?>[]{GLAutoDrawable.class},
+                (self, method, args) -> method.getName().equals("getGL") ? gl : defaultValue(method.getReturnType()));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0.0f;
+        if (type == double.class) return 0.0;
+        return null;
+    }
+}
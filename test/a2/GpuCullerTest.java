@@ -0,0 +1,92 @@
+/**
+ * Compares FrustumCuller, the CPU reference of GpuCuller.check, with the Java copy of the compute shader's test
+ * on scattered objects and on objects placed on the frustum planes: they must agree on every object that is not
+ * on a plane as far as rounding is concerned.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GpuCullerTest {
+
+    private final Matrix4f projection = new Matrix4f().setPerspective((float) Math.toRadians(60.0f), 1.0f, 0.1f, 1000.0f);
+    private final Matrix4f view = new Matrix4f().lookAt(0.0f, 2.0f, 15.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
+    private final Bounds cube = Bounds.fromPositions(new float[]{-1, -1, -1, 1, 1, 1, 1, -1, 1, -1, 1, -1});
+
+    @Test
+    public void shaderTestMatchesFrustumCullerOffThePlanes() {
+        float[] planes = planes();
+        FrustumCuller reference = new FrustumCuller();
+        reference.update(projection, view);
+        Random random = new Random(11);
+        int visible = 0;
+        for (int i = 0; i < 20_000; i++) {
+            Matrix4f world = new Matrix4f()
+                    .translation(random.nextFloat() * 400.0f - 200.0f, random.nextFloat() * 40.0f - 10.0f,
+                            random.nextFloat() * 400.0f - 200.0f)
+                    .rotateXYZ(random.nextFloat() * 6.0f, random.nextFloat() * 6.0f, random.nextFloat() * 6.0f)
+                    .scale(0.5f + random.nextFloat() * 3.0f);
+            boolean cpu = reference.isVisible(cube, world);
+            boolean gpu = GpuCuller.isVisible(planes, cube, world, 0.0f);
+            if (cpu != gpu) {
+                assertTrue(GpuCuller.isOnPlane(planes, cube, world), "object " + i + " differs but is not on a plane");
+            }
+            visible += cpu ? 1 : 0;
+        }
+        //the scatter has both outcomes in quantity
+        assertTrue(visible > 1000 && visible < 19_000, visible + " visible");
+    }
+
+    @Test
+    public void flagsBoxesTouchingAPlane() {
+        float[] planes = planes();
+        for (int p = 0; p < 24; p += 4) {
+            //a box on the view axis (at the camera for the far plane), moved along the plane normal until it is
+            //outside the plane, touching it with one corner
+            Vector4f plane = new Vector4f(planes[p], planes[p + 1], planes[p + 2], planes[p + 3]);
+            float onAxis = (p == 20) ? 0.0f : 50.0f;
+            float x = 0.0f, y = 2.0f - onAxis * 0.13f, z = 15.0f - onAxis;
+            float distance = plane.x * x + plane.y * y + plane.z * z + plane.w;
+            float reach = Math.abs(plane.x) + Math.abs(plane.y) + Math.abs(plane.z);
+            float move = -(distance + reach);
+            Matrix4f world = new Matrix4f().translation(x + plane.x * move, y + plane.y * move, z + plane.z * move);
+            assertTrue(GpuCuller.isOnPlane(planes, cube, world), "plane " + p / 4);
+
+            //clearly inside or outside is not on a plane
+            Matrix4f outside = new Matrix4f().translation(x + plane.x * (move - 5.0f), y + plane.y * (move - 5.0f),
+                    z + plane.z * (move - 5.0f));
+            assertFalse(GpuCuller.isOnPlane(planes, cube, outside), "outside plane " + p / 4);
+            assertFalse(GpuCuller.isVisible(planes, cube, outside, 0.0f), "outside plane " + p / 4);
+        }
+        assertFalse(GpuCuller.isOnPlane(planes, cube, new Matrix4f()));
+        assertTrue(GpuCuller.isVisible(planes, cube, new Matrix4f(), 0.0f));
+    }
+
+    /**
+     * the planes GpuCuller.cull hands the shader
+     */
+    private float[] planes() {
+        Matrix4f viewProjection = projection.mul(view, new Matrix4f());
+        Vector4f plane = new Vector4f();
+        float[] planes = new float[24];
+        for (int i = 0; i < 6; i++) {
+            viewProjection.frustumPlane(i, plane);
+            planes[i * 4] = plane.x;
+            planes[i * 4 + 1] = plane.y;
+            planes[i * 4 + 2] = plane.z;
+            planes[i * 4 + 3] = plane.w;
+        }
+        return planes;
+    }
+}
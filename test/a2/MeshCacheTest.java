@@ -0,0 +1,144 @@
+/**
+ * Writes mesh cache files and reads them back after changing the source or damaging the file: a cache written
+ * for other source data, a truncated file and one of another version must all be ignored, and ImportedModel
+ * must then parse the OBJ again and replace the cache with a good one.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MeshCacheTest {
+
+    private static final long SOURCE_LENGTH = 1234;
+    private static final int SOURCE_CRC = 0x5eed;
+
+    //offsets of the header fields, see MeshCache
+    private static final int VERSION_OFFSET = 4;
+    private static final int CRC_OFFSET = 16;
+
+    @TempDir
+    File directory;
+
+    private String cacheDir;
+
+    @BeforeEach
+    public void useTempCacheDir() {
+        cacheDir = System.getProperty("a2.cacheDir");
+        System.setProperty("a2.cacheDir", directory.getPath());
+    }
+
+    @AfterEach
+    public void restoreCacheDir() {
+        if (cacheDir == null) {
+            System.clearProperty("a2.cacheDir");
+        } else {
+            System.setProperty("a2.cacheDir", cacheDir);
+        }
+    }
+
+    @Test
+    public void readsBackWhatWasWritten() throws IOException {
+        File file = writeTriangle();
+        MeshCache.Entry entry = MeshCache.read(file, SOURCE_LENGTH, SOURCE_CRC);
+        assertNotNull(entry);
+        assertEquals(3, entry.numVertices);
+        assertArrayEquals(new int[]{3}, entry.lodCounts);
+        assertEquals(3 * Mesh.STRIDE, entry.vertices.remaining());
+        assertEquals(2, entry.indices.getInt(8));
+    }
+
+    @Test
+    public void ignoresCacheOfChangedSource() throws IOException {
+        File file = writeTriangle();
+        assertNull(MeshCache.read(file, SOURCE_LENGTH, SOURCE_CRC + 1));
+        assertNull(MeshCache.read(file, SOURCE_LENGTH + 1, SOURCE_CRC));
+    }
+
+    @Test
+    public void ignoresTruncatedCache() throws IOException {
+        File file = writeTriangle();
+        for (long length : new long[]{file.length() - 1, 40, 20, 0}) {
+            truncate(file, length);
+            assertNull(MeshCache.read(file, SOURCE_LENGTH, SOURCE_CRC), "truncated to " + length);
+        }
+    }
+
+    @Test
+    public void ignoresCacheOfAnotherVersion() throws IOException {
+        File file = writeTriangle();
+        patchInt(file, VERSION_OFFSET, 2);
+        assertNull(MeshCache.read(file, SOURCE_LENGTH, SOURCE_CRC));
+    }
+
+    @Test
+    public void importedModelParsesAgainAndRewritesBadCaches() throws IOException {
+        ImportedModel parsed = new ImportedModel("mushroom.obj");
+        File file = MeshCache.cacheFile("mushroom.obj");
+        byte[] good = Files.readAllBytes(file.toPath());
+
+        patchInt(file, CRC_OFFSET, 0);
+        assertSameMesh(parsed, new ImportedModel("mushroom.obj"));
+        assertArrayEquals(good, Files.readAllBytes(file.toPath()), "after a source change");
+
+        truncate(file, good.length / 2);
+        assertSameMesh(parsed, new ImportedModel("mushroom.obj"));
+        assertArrayEquals(good, Files.readAllBytes(file.toPath()), "after truncation");
+
+        patchInt(file, VERSION_OFFSET, 2);
+        assertSameMesh(parsed, new ImportedModel("mushroom.obj"));
+        assertArrayEquals(good, Files.readAllBytes(file.toPath()), "after a version change");
+
+        //and the good cache is used as it is
+        assertSameMesh(parsed, new ImportedModel("mushroom.obj"));
+    }
+
+    private static void assertSameMesh(ImportedModel expected, ImportedModel actual) {
+        assertEquals(expected.getNumVertices(), actual.getNumVertices());
+        assertEquals(expected.getNumLods(), actual.getNumLods());
+        assertEquals(expected.getVertexData(), actual.getVertexData());
+        assertEquals(expected.getIndexData(), actual.getIndexData());
+    }
+
+    private File writeTriangle() throws IOException {
+        ByteBuffer vertices = ByteBuffer.allocateDirect(3 * Mesh.STRIDE).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < 3 * Mesh.STRIDE / 4; i++) {
+            vertices.putFloat(i * 4, i * 0.5f);
+        }
+        ByteBuffer indices = ByteBuffer.allocateDirect(3 * 4).order(ByteOrder.nativeOrder());
+        indices.putInt(0, 0).putInt(4, 1).putInt(8, 2);
+        File file = MeshCache.cacheFile("triangle.obj");
+        MeshCache.write(file, SOURCE_LENGTH, SOURCE_CRC, new MeshCache.Entry(3, new int[]{3}, vertices, indices));
+        return file;
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        }
+    }
+
+    private static void patchInt(File file, int offset, int value) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder()).putInt(offset, value);
+        Files.write(file.toPath(), bytes);
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Parses a small OBJ file sequentially and with parseParallel forced to split it into many chunks, and checks
+ * that the merged tables and corners are the same; the file mixes absolute and negative indices, faces without
+ * texture coordinates and polygons, with faces referring back to vertices several chunks before them.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ObjParserTest {
+
+    private static final String OBJ = String.join("\n",
+            "# quad and triangles, defined in pieces between the faces that use them",
+            "v 0.0 0.0 0.0",
+            "v 1.0 0.0 0.0",
+            "v 1.0 1.0 0.0",
+            "v 0.0 1.0 0.0",
+            "vt 0.0 0.0",
+            "vt 1.0 0.0",
+            "vt 1.0 1.0",
+            "vt 0.0 1.0",
+            "vn 0.0 0.0 1.0",
+            "f 1/1/1 2/2/1 3/3/1 4/4/1",
+            "f -4/-4/-1 -3/-3/-1 -2/-2/-1",
+            "v 2.0 0.0 0.5",
+            "v 2.0 1.0 0.5",
+            "vn 0.0 1.0 0.0",
+            "f 2//2 5//2 6//2",
+            "f -4//-1 -2//-1 -1//-2",
+            "o second",
+            "v -1.5 2.25 3.0",
+            "v -2.5 2.25 3.0",
+            "v -2.5 3.25 3.0",
+            "vt 0.5 0.5",
+            "f -3/-1/-1 -2/-1/-1 -1/-1/-1",
+            "f -1/5/1 -2/-5/2 1/1/-2 -9/-4/1",
+            "f 7 8 9",
+            "f -3 -2 -1",
+            "");
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void parallelParseMatchesSequentialAtEverySplit() {
+        byte[] data = OBJ.getBytes(StandardCharsets.US_ASCII);
+        ObjParser sequential = new ObjParser();
+        sequential.parse(data);
+        assertEquals(10, sequential.getNumCorners() / 3);
+
+        //at most 16 chunks with this pool; sizes from a few bytes up move the splits across every line
+        for (int minChunkSize = 1; minChunkSize <= data.length; minChunkSize++) {
+            ObjParser parallel = ObjParser.parseParallel(data, pool, minChunkSize);
+            String split = "minimum chunk size " + minChunkSize;
+            assertArrayEquals(sequential.getPositions().toArray(), parallel.getPositions().toArray(), split);
+            assertArrayEquals(sequential.getTexCoords().toArray(), parallel.getTexCoords().toArray(), split);
+            assertArrayEquals(sequential.getNormals().toArray(), parallel.getNormals().toArray(), split);
+            assertArrayEquals(sequential.getCorners().toArray(), parallel.getCorners().toArray(), split);
+        }
+    }
+
+    @Test
+    public void negativeIndicesCountBackFromTheVerticesReadSoFar() {
+        ObjParser parser = ObjParser.parseParallel(OBJ.getBytes(StandardCharsets.US_ASCII), pool, 1);
+        int[] corners = parser.getCorners().toArray();
+        //the second face repeats the first triangle of the quad through negative indices
+        for (int i = 0; i < 9; i++) {
+            assertEquals(corners[i], corners[6 * 3 + i]);
+        }
+        //the face before the last refers to v 7 8 9 absolutely, the last one to the same vertices relatively
+        int last = corners.length - 9;
+        for (int i = 0; i < 9; i++) {
+            assertEquals(corners[last - 9 + i], corners[last + i]);
+        }
+        //faces without texture coordinates store -1 for them
+        assertEquals(-1, corners[9 * 3 + 1]);
+    }
+}
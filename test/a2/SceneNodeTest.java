@@ -0,0 +1,141 @@
+/**
+ * Checks SceneNode's world transforms and dirty propagation: only changed nodes and their descendants are
+ * recomputed, and the fork/join update of a large scene gives the same matrices and counts as the sequential
+ * one.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SceneNodeTest {
+
+    @Test
+    public void worldIsParentWorldTimesLocal() {
+        SceneNode root = new SceneNode();
+        SceneNode arm = root.addChild(new SceneNode());
+        SceneNode hand = arm.addChild(new SceneNode());
+        root.editLocal().translation(1.0f, 0.0f, 0.0f);
+        arm.editLocal().rotationY(0.5f);
+        hand.editLocal().translation(0.0f, 2.0f, 0.0f).scale(0.5f);
+
+        assertEquals(3, root.updateWorld(null));
+        assertEquals(root.getLocal(), root.getWorld());
+        assertEquals(new Matrix4f(root.getLocal()).mul(arm.getLocal()), arm.getWorld());
+        assertEquals(new Matrix4f(root.getLocal()).mul(arm.getLocal()).mul(hand.getLocal()), hand.getWorld());
+        assertEquals(3, root.getSubtreeSize());
+    }
+
+    @Test
+    public void updatesOnlyChangedNodesAndTheirDescendants() {
+        SceneNode root = new SceneNode();
+        SceneNode left = root.addChild(new SceneNode());
+        SceneNode leftChild = left.addChild(new SceneNode());
+        SceneNode leftGrandchild = leftChild.addChild(new SceneNode());
+        SceneNode right = root.addChild(new SceneNode());
+        SceneNode rightChild = right.addChild(new SceneNode());
+        assertEquals(6, root.updateWorld(null));
+        assertEquals(0, root.updateWorld(null));
+
+        //a leaf, edited twice, is recomputed once
+        rightChild.editLocal().translation(0.0f, 1.0f, 0.0f);
+        rightChild.editLocal().translate(0.0f, 1.0f, 0.0f);
+        assertEquals(1, root.updateWorld(null));
+        assertEquals(new Matrix4f().translation(0.0f, 2.0f, 0.0f), rightChild.getWorld());
+
+        //an inner node moves its descendants, but not its sibling's subtree
+        Matrix4f rightWorld = new Matrix4f(rightChild.getWorld());
+        left.editLocal().translation(3.0f, 0.0f, 0.0f);
+        assertEquals(3, root.updateWorld(null));
+        assertEquals(new Matrix4f().translation(3.0f, 0.0f, 0.0f), leftGrandchild.getWorld());
+        assertEquals(rightWorld, rightChild.getWorld());
+
+        //a node and its descendant both changed are each recomputed once
+        left.editLocal().translation(4.0f, 0.0f, 0.0f);
+        leftGrandchild.editLocal().translation(0.0f, 0.0f, 1.0f);
+        assertEquals(3, root.updateWorld(null));
+        assertEquals(new Matrix4f().translation(4.0f, 0.0f, 1.0f), leftGrandchild.getWorld());
+
+        //a child attached after an update gets its world matrix on the next one
+        SceneNode added = leftGrandchild.addChild(new SceneNode());
+        added.editLocal().translation(0.0f, 5.0f, 0.0f);
+        assertEquals(1, root.updateWorld(null));
+        assertEquals(new Matrix4f().translation(4.0f, 5.0f, 1.0f), added.getWorld());
+        assertEquals(7, root.getSubtreeSize());
+    }
+
+    @Test
+    public void rejectsNodeWithParent() {
+        SceneNode root = new SceneNode();
+        SceneNode child = root.addChild(new SceneNode());
+        assertThrows(IllegalArgumentException.class, () -> new SceneNode().addChild(child));
+    }
+
+    @Test
+    public void parallelUpdateMatchesSequential() {
+        List<SceneNode> sequentialMoving = new ArrayList<>();
+        List<SceneNode> parallelMoving = new ArrayList<>();
+        SceneNode sequential = buildScene(400, sequentialMoving);
+        SceneNode parallel = buildScene(400, parallelMoving);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(sequential.updateWorld(null), parallel.updateWorld(pool));
+            assertSameWorlds(sequential, parallel);
+
+            Random random = new Random(3);
+            for (int round = 0; round < 20; round++) {
+                //from none to all of the robots move
+                int moving = (round == 0) ? 0 : (round == 1) ? sequentialMoving.size() : random.nextInt(200);
+                for (int i = 0; i < moving; i++) {
+                    int robot = (round == 1) ? i : random.nextInt(sequentialMoving.size());
+                    float angle = random.nextFloat();
+                    sequentialMoving.get(robot).editLocal().rotateY(angle);
+                    parallelMoving.get(robot).editLocal().rotateY(angle);
+                }
+                assertEquals(sequential.updateWorld(null), parallel.updateWorld(pool), "round " + round);
+                assertSameWorlds(sequential, parallel);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * robots of eight nodes, well past SceneNode.PARALLEL_THRESHOLD in total
+     */
+    private static SceneNode buildScene(int robots, List<SceneNode> moving) {
+        SceneNode root = new SceneNode();
+        for (int i = 0; i < robots; i++) {
+            SceneNode position = root.addChild(new SceneNode());
+            position.editLocal().translation(i % 20 * 6.0f, 0.0f, i / 20 * -6.0f);
+            SceneNode rotation = position.addChild(new SceneNode());
+            moving.add(rotation);
+            SceneNode bow = rotation.addChild(new SceneNode());
+            for (int part = 0; part < 3; part++) {
+                bow.addChild(new SceneNode()).editLocal().translation(part - 1.0f, 0.2f, 0.0f).scale(0.25f);
+            }
+            rotation.addChild(new SceneNode()).editLocal().translation(0.0f, -2.0f, 0.0f);
+        }
+        return root;
+    }
+
+    private static void assertSameWorlds(SceneNode expected, SceneNode actual) {
+        assertEquals(expected.getWorld(), actual.getWorld());
+        assertEquals(expected.getChildren().size(), actual.getChildren().size());
+        for (int i = 0; i < expected.getChildren().size(); i++) {
+            assertSameWorlds(expected.getChildren().get(i), actual.getChildren().get(i));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Checks VertexIndexMap's return convention, -(index + 1) for a triple it just added and the index for one it
+ * already holds, and that every triple keeps its index while the table grows far past its expected size.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+package a2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class VertexIndexMapTest {
+
+    @Test
+    public void returnsNegativeIndexForNewTriplesOnly() {
+        VertexIndexMap map = new VertexIndexMap(4);
+        assertEquals(-1, map.getOrAdd(0, 0, 0));
+        assertEquals(-2, map.getOrAdd(1, 0, 0));
+        assertEquals(0, map.getOrAdd(0, 0, 0));
+        assertEquals(1, map.getOrAdd(1, 0, 0));
+        //the same indices in another order, and -1 for a missing vt or vn, are other triples
+        assertEquals(-3, map.getOrAdd(0, 1, 0));
+        assertEquals(-4, map.getOrAdd(0, 0, 1));
+        assertEquals(-5, map.getOrAdd(0, -1, -1));
+        assertEquals(4, map.getOrAdd(0, -1, -1));
+        assertEquals(5, map.size());
+    }
+
+    @Test
+    public void keepsIndicesWhileGrowing() {
+        VertexIndexMap map = new VertexIndexMap(1);
+        Map<List<Integer>, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        //many more triples than the map was sized for, with repeats so lookups hit both old and new slots
+        for (int i = 0; i < 20_000; i++) {
+            int v = random.nextInt(3000), vt = random.nextInt(4) - 1, vn = random.nextInt(3) - 1;
+            List<Integer> key = List.of(v, vt, vn);
+            Integer index = expected.get(key);
+            int result = map.getOrAdd(v, vt, vn);
+            if (index == null) {
+                assertEquals(-(expected.size() + 1), result);
+                expected.put(key, expected.size());
+            } else {
+                assertEquals((int) index, result);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<List<Integer>, Integer> entry : expected.entrySet()) {
+            List<Integer> key = entry.getKey();
+            assertEquals((int) entry.getValue(), map.getOrAdd(key.get(0), key.get(1), key.get(2)));
+        }
+    }
+
+    @Test
+    public void handlesFloatBitsKeys() {
+        //MeshSimplifier keys the map with float bits, including negative zero and NaN patterns
+        VertexIndexMap map = new VertexIndexMap(2);
+        int zero = Float.floatToIntBits(0.0f), negativeZero = Float.floatToIntBits(-0.0f);
+        int nan = Float.floatToIntBits(Float.NaN);
+        assertEquals(-1, map.getOrAdd(zero, zero, zero));
+        assertEquals(-2, map.getOrAdd(negativeZero, zero, zero));
+        assertEquals(-3, map.getOrAdd(nan, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(2, map.getOrAdd(nan, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(0, map.getOrAdd(zero, zero, zero));
+    }
+}